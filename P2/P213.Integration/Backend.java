@@ -1,9 +1,9 @@
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * This class uses Djisktra's algorithm to find the quickets paths
@@ -12,122 +12,89 @@ import java.util.NoSuchElementException;
  */
 public class Backend implements BackendInterface {
     private GraphADT<String, Double> graph = new DijkstraGraph();
+    // queries share the read lock, and reloading the graph takes the write
+    // lock, so that no query sees a graph that is only partly reloaded
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * The number of start locations whose shortest path trees a DijkstraGraph
+   * backend caches. The Frontend asks for a path's locations and then for
+   * its times, and the second query reads the path from the tree the first
+   * one cached instead of searching again. Each tree takes 12 bytes per
+   * location, which is about 2 KB for campus.dot.
+   */
+  public static final int PATH_CACHE_CAPACITY = 8;
+
   /*
    * Implementing classes should support the constructor below.
    * @param graph object to store the backend's graph data
    */
   public Backend(GraphADT<String,Double> graph) {
     this.graph = graph;
+    if (graph instanceof DijkstraGraph<?, ?> dijkstra) {
+        dijkstra.setPathCacheCapacity(PATH_CACHE_CAPACITY);
+    }
   }
 
   /**
-   * Loads graph data from a dot file. If a graph was previously loaded, this
-   * method should first delete the contents (nodes and edges) of the existing 
-   * graph before loading a new one.
+   * Loads graph data from a dot file, or from a snapshot saved by
+   * GraphSnapshot, which is recognized by its first bytes. If a graph was
+   * previously loaded, the graph ends up with exactly the nodes and edges
+   * in the new file, but only the nodes, edges and weights that changed are
+   * inserted, removed or updated, so reloading a file whose weights change
+   * now and then keeps most of the graph in place.
    * @param filename the path to a dot file to read graph data from
    * @throws IOException if there was any problem reading from this file
    */
   public void loadGraphData(String filename) throws IOException {
-    // check if the graph's empty
-    if (graph.getNodeCount() != 0) {
-        // loop through the list
-        for (String node : graph.getAllNodes()) {
-            // remove each node
-            graph.removeNode(node);
-        }
-    }
-
-    // try reading the file
-    try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-        // pass the first line
-        String headerLine = br.readLine();
-        // use it to make sure the file isn't empty
-        if (headerLine == null) {
-            throw new IOException("File is empty");}
-
-        // start reading each line after the header
-        String line;
-        while ((line = br.readLine()) != null && !line.equals("}")) {            List<Object> lineElements = lineSplitHelper(line);
-            // using a helper method, get the node, edge, and weight from the line
-            String nodeData = (String) lineElements.get(0);
-            String edgeData = (String) lineElements.get(1);
-            Double weightData = (Double) lineElements.get(2);
-
-            // insert data into graph
-            graph.insertNode(nodeData);
-            graph.insertNode(edgeData);
-            graph.insertEdge(nodeData, edgeData, weightData);
+    // read the whole file before touching the graph, so that queries keep
+    // searching the current graph meanwhile, and it stays as it was if the
+    // file can't be read. A binary snapshot is recognized by its first
+    // bytes, and otherwise the file's lines are read in chunks on the common
+    // pool's threads
+    EdgeList edges;
+    try {
+        if (GraphSnapshot.isSnapshot(filename)) {
+            edges = GraphSnapshot.readEdges(filename);
+        } else {
+            edges = DotGraphLoader.readEdges(filename, ForkJoinPool.commonPool());
         }
     }
     catch (IOException e) {
         // throw an exception if error
         throw new IOException("Error reading file.");
     }
-  }
 
-  /**
-   * Assists with splitting up each line of the dot file to store 
-   * the node, edge, and weight data, while checking for edge cases
-   */
-  private List<Object> lineSplitHelper(String line) {
-    // create a list to store the node, edge, and weight data
-    List<Object> lineElements = new ArrayList<>();
-    
+    // then change only the nodes, edges and weights that differ from the
+    // file, while no query is running, so each query sees the graph either
+    // all before or all after the reload
+    lock.writeLock().lock();
     try {
-        // find the indices of the quoted strings
-        int firstQuoteStart = line.indexOf("\"");
-        int firstQuoteEnd = line.indexOf("\"", firstQuoteStart + 1);
-        int secondQuoteStart = line.indexOf("\"", firstQuoteEnd + 1);
-        int secondQuoteEnd = line.indexOf("\"", secondQuoteStart + 1);
-        
-        // check if all quotes were found
-        if (firstQuoteStart == -1 || firstQuoteEnd == -1 || 
-            secondQuoteStart == -1 || secondQuoteEnd == -1) {
-            throw new IllegalArgumentException("Invalid line format: " + line);
-        }
-        
-        // extract node and edge data from between quotes
-        String nodeData = line.substring(firstQuoteStart + 1, firstQuoteEnd);
-        String edgeData = line.substring(secondQuoteStart + 1, secondQuoteEnd);
-        
-        // extract weight data
-        int weightStart = line.indexOf("=", secondQuoteEnd) + 1;
-        int weightEnd = line.indexOf("]", weightStart);
-        if (weightStart == 0 || weightEnd == -1) {
-            throw new IllegalArgumentException("Weight not found in line: " + line);
-        }
-        
-        String weightString = line.substring(weightStart, weightEnd).trim();
-        Double weightData = Double.parseDouble(weightString);
-        
-        // add elements to list
-        lineElements.add(nodeData);
-        lineElements.add(edgeData);
-        lineElements.add(weightData);
-        
-    } catch (Exception e) {
-        // if any parsing errors occur, we can handle them appropriately
-        System.err.println("Error parsing line: " + line);
-        throw new IllegalArgumentException("Failed to parse line: " + e.getMessage());
+        edges.replaceIn(graph, ForkJoinPool.commonPool());
+    } finally {
+        lock.writeLock().unlock();
     }
-    
-    return lineElements;
-}
+  }
 
   /**
    * Returns a list of all locations (node data) available in the graph.
    * @return list of all location names
    */
   public List<String> getListOfAllLocations() {
-    // create an empty list to hold the node data
-    List<String> locations = new ArrayList<>();
-    
-    // loop through the list
-    for (String node : graph.getAllNodes()) {
-        locations.add(node);
-    }
+    lock.readLock().lock();
+    try {
+        // create an empty list to hold the node data
+        List<String> locations = new ArrayList<>();
+
+        // loop through the list
+        for (String node : graph.getAllNodes()) {
+            locations.add(node);
+        }
 
-    return locations;
+        return locations;
+    } finally {
+        lock.readLock().unlock();
+    }
   }
 
   /**
@@ -139,29 +106,32 @@ public class Backend implements BackendInterface {
      *         to endLocation, or an empty list if no such path exists
     */
     public List<String> findLocationsOnShortestPath(String startLocation, String endLocation) {
-        // create the list that will hold the shortest path
-        List<String> shortestLocationPath = new ArrayList<>();
-        // check that the starting and ending locations exist
-        List<String> currentGraph = graph.getAllNodes();
-        if (!currentGraph.contains(startLocation) || !currentGraph.contains(endLocation)) {
-            return shortestLocationPath;
-        }
+        lock.readLock().lock();
+        try {
+            // create the list that will hold the shortest path
+            List<String> shortestLocationPath = new ArrayList<>();
+            // check that the starting and ending locations exist
+            if (!graph.containsNode(startLocation) || !graph.containsNode(endLocation)) {
+                return shortestLocationPath;
+            }
         
-        // if start and end locations are the same, return a list with just that location
-        if (startLocation.equals(endLocation)) {
-            shortestLocationPath.add(startLocation);
-            return shortestLocationPath;
-        }
+            // if start and end locations are the same, return a list with just that location
+            if (startLocation.equals(endLocation)) {
+                shortestLocationPath.add(startLocation);
+                return shortestLocationPath;
+            }
 
-        // find the shortest path using the graph's shortestPathData method
-        shortestLocationPath = graph.shortestPathData(startLocation, endLocation);
-        
-        // if shortestPathData returned null, create a new empty list
-        if (shortestLocationPath == null) {
-            shortestLocationPath = new ArrayList<>();
-        }
+            // find the shortest path, or return the empty list if there isn't one
+            try {
+                shortestLocationPath.addAll(graph.shortestPath(startLocation, endLocation).getNodes());
+            } catch (NoSuchElementException e) {
+                // no path exists, so the list stays empty
+            }
 
-        return shortestLocationPath;
+            return shortestLocationPath;
+        } finally {
+            lock.readLock().unlock();
+        }
     }
 
   /**
@@ -175,30 +145,31 @@ public class Backend implements BackendInterface {
      *         list if no such path exists
      */
     public List<Double> findTimesOnShortestPath(String startLocation, String endLocation) {
-        // create the list that will hold the times
-        List<Double> shortestTimes = new ArrayList<>();
-        // check that the starting and ending locations exist
-        List<String> currentGraph = graph.getAllNodes();
-        if (!currentGraph.contains(startLocation) || !currentGraph.contains(endLocation)) {
-            return shortestTimes;
-        }
+        lock.readLock().lock();
+        try {
+            // create the list that will hold the times
+            List<Double> shortestTimes = new ArrayList<>();
+            // check that the starting and ending locations exist
+            if (!graph.containsNode(startLocation) || !graph.containsNode(endLocation)) {
+                return shortestTimes;
+            }
+
+            // a path from a location to itself has no hops
+            if (startLocation.equals(endLocation)) {
+                return shortestTimes;
+            }
+
+            // one search gives the time of every hop along the shortest path
+            try {
+                shortestTimes.addAll(graph.shortestPath(startLocation, endLocation).getHopCosts());
+            } catch (NoSuchElementException e) {
+                // no path exists, so the list stays empty
+            }
 
-        // create the list that will hold the locations
-        List<String> shortestLocationPath = findLocationsOnShortestPath(startLocation, endLocation);
-        // if path doesn't exist or has only one node, return empty list
-        if (shortestLocationPath.isEmpty() || shortestLocationPath.size() < 2) {
             return shortestTimes;
+        } finally {
+            lock.readLock().unlock();
         }
-        
-        // find the shortest time between each path using the placeholder shortestPathCost method
-        for (int i = 0; i < shortestLocationPath.size() - 1; i++) {
-            String fromNode = shortestLocationPath.get(i);
-            String toNode = shortestLocationPath.get(i + 1);
-            Double edgeWeight = graph.shortestPathCost(fromNode, toNode);
-            shortestTimes.add(edgeWeight);
-        }
-
-        return shortestTimes;
     }
     
     /**
@@ -212,41 +183,20 @@ public class Backend implements BackendInterface {
      * @throws NoSuchElementException if startLocation does not exist
      */
     public List<String> getReachableFromWithin(String startLocation, double travelTime) throws NoSuchElementException {
-        // check if startLocation exists
-        List<String> currentGraph = graph.getAllNodes();
-        if (!currentGraph.contains(startLocation)) {
-            throw new NoSuchElementException("startLocation does not exist");
-        }
-
-        // create a list to hold the list of reachable locations
-        List<String> reachableLocations = new ArrayList<>();
-
-        // loop through all nodes in the graph
-        for (String node : currentGraph) {
-            // skip the start location
-            if (!node.equals(startLocation)) {
-                // get the shortest path
-                List<String> path = findLocationsOnShortestPath(startLocation, node);
-                
-                // check if a valid path of at least 2 nodes exists
-                if (path.size() >= 2) {
-                    // get the times along the path
-                    List<Double> times = findTimesOnShortestPath(startLocation, node);
-                    
-                    // calculate total time
-                    double totalTime = 0.0;
-                    for (Double time : times) {
-                        totalTime += time;
-                    }
-                    
-                    // add to reachable locations IF within time limit
-                    if (totalTime <= travelTime) {
-                        reachableLocations.add(node);
-                    }
-                }
+        lock.readLock().lock();
+        try {
+            // check if startLocation exists
+            if (!graph.containsNode(startLocation)) {
+                throw new NoSuchElementException("startLocation does not exist");
             }
+
+            // one bounded search finds every location within travelTime, in
+            // order of travel time, starting with startLocation itself
+            List<String> reachableLocations = graph.reachableWithin(startLocation, travelTime);
+            reachableLocations.remove(startLocation);
+            return reachableLocations;
+        } finally {
+            lock.readLock().unlock();
         }
-        
-        return reachableLocations;
     }
 }
\ No newline at end of file
@@ -1,8 +1,13 @@
 import org.junit.jupiter.api.Test;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Assertions;
 
 public class BackendTests {
@@ -89,6 +94,99 @@ public class BackendTests {
         Assertions.assertEquals(expected3, result3);
     }
 
+    // testing that reloading only changes what differs, and that queries
+    // running during a reload see the graph either before or after it
+    @Test
+    public void roleTest5() throws Exception {
+        // make a copy of campus.dot where one walk takes 50 seconds instead of
+        // 105.8, and one walk is gone
+        String campus = Files.readString(Path.of("campus.dot"));
+        String changed = campus.replace("\"Memorial Union\" -> \"Science Hall\" [seconds=105.8];",
+                "\"Memorial Union\" -> \"Science Hall\" [seconds=50.0];")
+                .replace("\t\"Memorial Union\" -> \"Brat Stand\" [seconds=156.49999999999997];\n", "");
+        Assertions.assertTrue(changed.contains("[seconds=50.0]"));
+        Assertions.assertFalse(changed.contains("\"Memorial Union\" -> \"Brat Stand\""));
+        Path file = Files.createTempFile("campus", ".dot");
+        Files.writeString(file, changed);
+
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+        Backend backend = new Backend(graph);
+        try {
+            backend.loadGraphData("campus.dot");
+            int edges = graph.getEdgeCount();
+
+            // reloading the same file changes nothing, so the frozen copy stays
+            graph.freeze();
+            backend.loadGraphData("campus.dot");
+            Assertions.assertTrue(graph.isFrozen());
+
+            backend.loadGraphData(file.toString());
+            Assertions.assertFalse(graph.isFrozen());
+            Assertions.assertEquals(edges - 1, graph.getEdgeCount());
+            Assertions.assertEquals(List.of(50.0), backend.findTimesOnShortestPath("Memorial Union", "Science Hall"));
+            Assertions.assertFalse(graph.containsEdge("Memorial Union", "Brat Stand"));
+
+            // a file that can't be read leaves the graph as it was
+            Assertions.assertThrows(IOException.class, () -> backend.loadGraphData("illinois.dot"));
+            Assertions.assertEquals(edges - 1, graph.getEdgeCount());
+
+            // switch between the two files while other threads query
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicInteger queries = new AtomicInteger();
+            List<String> wrong = Collections.synchronizedList(new ArrayList<>());
+            List<Thread> readers = new ArrayList<>();
+            for (int t = 0; t < 3; t++) {
+                Thread reader = new Thread(() -> {
+                    while (running.get()) {
+                        List<Double> times = backend.findTimesOnShortestPath("Memorial Union", "Science Hall");
+                        int locations = backend.getListOfAllLocations().size();
+                        if (!(times.equals(List.of(50.0)) || times.equals(List.of(105.8))) || locations == 0) {
+                            wrong.add(times + " " + locations);
+                        }
+                        queries.incrementAndGet();
+                    }
+                });
+                readers.add(reader);
+                reader.start();
+            }
+            for (int i = 0; i < 40; i++) {
+                backend.loadGraphData(i % 2 == 0 ? "campus.dot" : file.toString());
+            }
+            running.set(false);
+            for (Thread reader : readers) {
+                reader.join();
+            }
+            Assertions.assertEquals(List.of(), wrong);
+            Assertions.assertTrue(queries.get() > 0);
+            Assertions.assertEquals(edges - 1, graph.getEdgeCount());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // testing that the frontend's two queries for a path take one search,
+    // through the path cache the backend turns on
+    @Test
+    public void roleTest6() throws IOException {
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+        Backend backend = new Backend(graph);
+        backend.loadGraphData("campus.dot");
+        Frontend frontend = new Frontend(backend);
+        LruCache<?, ?> cache = graph.getPathCache();
+        Assertions.assertEquals(Backend.PATH_CACHE_CAPACITY, cache.getCapacity());
+
+        String html = frontend.generateShortestPathResponseHTML("Memorial Union", "Science Hall");
+        Assertions.assertTrue(html.contains("<p>The total travel time is 105.8</p>"));
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(1, cache.getHits());
+
+        // reloading the same file changes nothing, so the cached tree stays
+        backend.loadGraphData("campus.dot");
+        Assertions.assertEquals(List.of(105.8), backend.findTimesOnShortestPath("Memorial Union", "Science Hall"));
+        Assertions.assertEquals(1, cache.getMisses());
+        Assertions.assertEquals(2, cache.getHits());
+    }
+
     // testing generateShortestPathResponseHTML and associated backend methods
     @Test
     public void integrationTest1() {
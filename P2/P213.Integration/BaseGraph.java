@@ -1,6 +1,12 @@
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * This BaseGraph class contains stores a set of nodes, along with a set of
@@ -8,25 +14,33 @@ import java.util.NoSuchElementException;
  */
 public class BaseGraph<NodeType, EdgeType extends Number> {
 
-    // Each node contains unique data along with two lists of directed edges
+    // Each node contains unique data along with two lists of directed edges,
+    // and an integer id that searches can use to index primitive bookkeeping.
+    // The lists are only changed through linkEdge, unlinkEdge and
+    // insertEdges, so that every edge knows its own position in both of them
     protected class Node {
         public NodeType data;
-        public List<Edge> edgesLeaving = new LinkedList<>();
-        public List<Edge> edgesEntering = new LinkedList<>();
+        public int id;
+        public List<Edge> edgesLeaving = new ArrayList<>();
+        public List<Edge> edgesEntering = new ArrayList<>();
 
-        public Node(NodeType data) {
+        public Node(NodeType data, int id) {
             this.data = data;
+            this.id = id;
         }
     }
 
     // Nodes can be retrieved from this map by their unique data
     protected MapADT<NodeType, Node> nodes = null;
 
-    // Each edge contains data/weight, and two nodes that it connects
+    // Each edge contains data/weight, two nodes that it connects, and its
+    // index within the predecessor's leaving and successor's entering lists
     protected class Edge {
         public EdgeType data; // the weight or cost of this edge
         public Node predecessor;
         public Node successor;
+        public int leavingIndex;
+        public int enteringIndex;
 
         public Edge(EdgeType data, Node pred, Node succ) {
             this.data = data;
@@ -36,6 +50,21 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     }
 
     protected int edgeCount = 0;
+    // Every node id is below this. Ids freed by removeNode are kept on the
+    // freeIds stack and handed out again before any new one, so that arrays
+    // indexed by id stay as small as the most nodes the graph has held
+    protected int nextNodeId = 0;
+    protected int[] freeIds = new int[0];
+    protected int freeIdCount = 0;
+    // Every node by its id, with null for ids that aren't in use, so that
+    // searches can keep node ids rather than references to the nodes
+    protected Node[] nodesById = newNodeArray(0);
+    // Counts the insertions, removals and weight updates made to this graph,
+    // so that copies such as a CompactGraph can tell when they are stale
+    protected int modCount = 0;
+    // Every edge by its predecessor and successor ids, when the graph keeps
+    // an edge index, or else null and edges are found by scanning lists
+    protected LongObjectMap<Edge> edgeIndex = null;
     // Edges can be retrieved through the edge lists in either connected node
 
     /**
@@ -48,6 +77,52 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         this.nodes = map;
     }
 
+    /**
+     * Creates an array that can hold length nodes, for example one indexed by
+     * node id. Java doesn't allow creating arrays of a generic class's inner
+     * class directly.
+     *
+     * @param length the length of the array
+     * @return a new array of nulls
+     */
+    @SuppressWarnings("unchecked")
+    protected Node[] newNodeArray(int length) {
+        return (Node[]) new BaseGraph<?, ?>.Node[length];
+    }
+
+    /**
+     * Turns the edge index on or off. With the index, finding, inserting and
+     * removing an edge takes constant time however many edges its nodes
+     * have, at the cost of one more table entry per edge. Without it, edges
+     * are found by scanning the predecessor's list of leaving edges.
+     *
+     * @param indexed true to index every edge, or false to drop the index
+     */
+    public void setEdgeIndexed(boolean indexed) {
+        if (!indexed) {
+            edgeIndex = null;
+        } else if (edgeIndex == null) {
+            edgeIndex = new LongObjectMap<>(edgeCount);
+            nodes.forEachKey(data -> {
+                for (Edge edge : nodes.get(data).edgesLeaving)
+                    edgeIndex.put(edgeKey(edge.predecessor, edge.successor), edge);
+            });
+        }
+    }
+
+    /**
+     * Checks whether the graph keeps an edge index.
+     *
+     * @return true if edges are indexed, and false otherwise
+     */
+    public boolean isEdgeIndexed() {
+        return edgeIndex != null;
+    }
+
+    private long edgeKey(Node pred, Node succ) {
+        return LongObjectMap.pair(pred.id, succ.id);
+    }
+
     /**
      * Insert a new node into the graph.
      * 
@@ -57,9 +132,20 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @throws NullPointerException if data is null
      */
     public boolean insertNode(NodeType data) {
-        if (nodes.containsKey(data))
-            return false; // throws NPE when data's null
-        nodes.put(data, new Node(data));
+        // throws NPE when data's null, and only uses up an id when inserted
+        boolean recycled = freeIdCount > 0;
+        int id = recycled ? freeIds[freeIdCount - 1] : nextNodeId;
+        Node node = new Node(data, id);
+        if (!nodes.putIfAbsent(data, node))
+            return false;
+        if (recycled)
+            freeIdCount--;
+        else
+            nextNodeId++;
+        if (id == nodesById.length)
+            nodesById = Arrays.copyOf(nodesById, Math.max(4, id * 2));
+        nodesById[id] = node;
+        modCount++;
         return true;
     }
 
@@ -77,15 +163,77 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         if (!nodes.containsKey(data))
             return false; // throws NPE when data==null
         Node oldNode = nodes.remove(data);
-        // remove all edges entering neighboring nodes from this one
+        // remove all edges entering neighboring nodes from this one, where a
+        // loop back to this node drops out of its own entering list here
         for (Edge edge : oldNode.edgesLeaving)
-            edge.successor.edgesEntering.remove(edge);
+            removeEntering(edge);
         // remove all edges leaving neighboring nodes toward this one
         for (Edge edge : oldNode.edgesEntering)
-            edge.predecessor.edgesLeaving.remove(edge);
+            removeLeaving(edge);
+        // and count them all as removed, where a loop is only left in the
+        // leaving list, since removeEntering took it out of the entering one
+        edgeCount -= oldNode.edgesLeaving.size() + oldNode.edgesEntering.size();
+        // and drop them all from the index, before the node's id is reused
+        if (edgeIndex != null) {
+            for (Edge edge : oldNode.edgesLeaving)
+                edgeIndex.remove(edgeKey(edge.predecessor, edge.successor));
+            for (Edge edge : oldNode.edgesEntering)
+                edgeIndex.remove(edgeKey(edge.predecessor, edge.successor));
+        }
+        // free the node's id for the next insertNode
+        if (freeIdCount == freeIds.length)
+            freeIds = Arrays.copyOf(freeIds, Math.max(4, freeIdCount * 2));
+        freeIds[freeIdCount++] = oldNode.id;
+        nodesById[oldNode.id] = null;
+        modCount++;
         return true;
     }
 
+    /**
+     * Removes edge from its predecessor's leaving list in constant time, by
+     * moving the list's last edge into its place.
+     */
+    private void removeLeaving(Edge edge) {
+        List<Edge> list = edge.predecessor.edgesLeaving;
+        Edge last = list.remove(list.size() - 1);
+        if (last != edge) {
+            list.set(edge.leavingIndex, last);
+            last.leavingIndex = edge.leavingIndex;
+        }
+    }
+
+    /**
+     * Removes edge from its successor's entering list in constant time, by
+     * moving the list's last edge into its place.
+     */
+    private void removeEntering(Edge edge) {
+        List<Edge> list = edge.successor.edgesEntering;
+        Edge last = list.remove(list.size() - 1);
+        if (last != edge) {
+            list.set(edge.enteringIndex, last);
+            last.enteringIndex = edge.enteringIndex;
+        }
+    }
+
+    /**
+     * Removes every node and edge from the graph without unlinking edges
+     * one by one, and makes every node id available again. Apart from the
+     * node map's clear, this only replaces or resets fields, so it takes
+     * constant time with a ProbingHashtableMap, which swaps in fresh arrays.
+     * A map that empties its table slot by slot, like HashtableMap, takes
+     * time in proportion to its capacity instead.
+     */
+    public void clear() {
+        nodes.clear();
+        if (edgeIndex != null)
+            edgeIndex = new LongObjectMap<>();
+        edgeCount = 0;
+        nextNodeId = 0;
+        freeIdCount = 0;
+        nodesById = newNodeArray(0);
+        modCount++;
+    }
+
     /**
      * Check whether the graph contains a node with the provided data.
      * 
@@ -98,12 +246,16 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     }
 
     /**
-     * Retrieves a list of all node data from this graph.
+     * Retrieves a list of all node data from this graph. The list is a new
+     * copy, so callers that only need to check membership should use
+     * containsNode instead.
      *
      * @return list of all node data
      */
     public List<NodeType> getAllNodes(){
-        return nodes.getKeys();
+        List<NodeType> allNodes = new ArrayList<>(nodes.getSize());
+        nodes.forEachKey(allNodes::add);
+        return allNodes;
     }
 
     /**
@@ -128,47 +280,319 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      */
     public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
         // find nodes associated with node data, and return false when not found
-        Node predNode = nodes.get(pred);
-        Node succNode = nodes.get(succ);
+        Node predNode = nodes.getOrDefault(pred, null);
+        Node succNode = nodes.getOrDefault(succ, null);
         if (predNode == null || succNode == null)
             return false;
-        try {
+        Edge existingEdge = findEdge(predNode, succNode);
+        if (existingEdge != null) {
             // when an edge alread exists within the graph, update its weight
-            Edge existingEdge = getEdgeHelper(pred, succ);
             existingEdge.data = weight;
-        } catch (NoSuchElementException e) {
-            // otherwise create a new edges
-            Edge newEdge = new Edge(weight, predNode, succNode);
-            this.edgeCount++;
-            // and insert it into each of its adjacent nodes' respective lists
-            predNode.edgesLeaving.add(newEdge);
-            succNode.edgesEntering.add(newEdge);
+        } else {
+            // otherwise create a new edge, and insert it into each of its
+            // adjacent nodes' respective lists
+            linkEdge(new Edge(weight, predNode, succNode));
         }
+        modCount++;
         return true;
     }
 
+    /**
+     * Adds a new edge to the end of its nodes' edge lists, and to the index.
+     */
+    private void linkEdge(Edge edge) {
+        edge.leavingIndex = edge.predecessor.edgesLeaving.size();
+        edge.predecessor.edgesLeaving.add(edge);
+        edge.enteringIndex = edge.successor.edgesEntering.size();
+        edge.successor.edgesEntering.add(edge);
+        if (edgeIndex != null)
+            edgeIndex.put(edgeKey(edge.predecessor, edge.successor), edge);
+        edgeCount++;
+    }
+
+    /**
+     * Removes an edge from its nodes' edge lists, and from the index.
+     */
+    private void unlinkEdge(Edge edge) {
+        removeLeaving(edge);
+        removeEntering(edge);
+        if (edgeIndex != null)
+            edgeIndex.remove(edgeKey(edge.predecessor, edge.successor));
+        edgeCount--;
+    }
+
+    /**
+     * Inserts every node in data, in order, and then many edges between them
+     * at once. The graph ends up the same as after calling insertNode for
+     * each node and then insertEdge(data.get(preds[i]), data.get(succs[i]),
+     * weights[i]) for each i in order: every edge list is in the same order,
+     * and a later edge between the same nodes updates an earlier one's
+     * weight. But rather than looking up both nodes and scanning for an
+     * existing edge each time, the edges are grouped by node, and the groups
+     * are linked on pool's threads.
+     *
+     * @param data    the distinct data of the nodes the edges connect
+     * @param preds   the index in data of each edge's predecessor
+     * @param succs   the index in data of each edge's successor
+     * @param weights the weight of each edge
+     * @param pool    the threads that link the groups of edges
+     * @throws IllegalArgumentException if the arrays' lengths differ, or data
+     *                                  holds the same node twice
+     * @throws NullPointerException     if any node data is null
+     */
+    public void insertEdges(List<NodeType> data, int[] preds, int[] succs, EdgeType[] weights,
+            ForkJoinPool pool) {
+        if (preds.length != succs.length || preds.length != weights.length)
+            throw new IllegalArgumentException("Edge arrays have different lengths.");
+        Node[] byIndex = newNodeArray(data.size());
+        for (int i = 0; i < byIndex.length; i++) {
+            insertNode(data.get(i));
+            byIndex[i] = nodes.get(data.get(i));
+        }
+        // two groups of the same node would be linked by two threads at once
+        boolean[] seen = new boolean[nextNodeId];
+        for (Node node : byIndex) {
+            if (seen[node.id])
+                throw new IllegalArgumentException("Node " + node.data + " is listed twice.");
+            seen[node.id] = true;
+        }
+        int grain = Math.max(1, byIndex.length / (4 * pool.getParallelism()));
+
+        // link each node's leaving edges in order, remembering which ones
+        // are new rather than updates of an edge already in the graph
+        int[][] leaving = groupByKey(preds, byIndex.length, null);
+        Edge[] created = newEdgeArray(preds.length);
+        pool.invoke(new RangeTask(0, byIndex.length, grain, (from, to) -> {
+            // the edge from the current node toward each node id, if any
+            Edge[] toward = newEdgeArray(nextNodeId);
+            for (int node = from; node < to; node++) {
+                Node predNode = byIndex[node];
+                for (Edge edge : predNode.edgesLeaving)
+                    toward[edge.successor.id] = edge;
+                for (int j = leaving[1][node]; j < leaving[1][node + 1]; j++) {
+                    int i = leaving[0][j];
+                    Node succNode = byIndex[succs[i]];
+                    Edge edge = toward[succNode.id];
+                    if (edge != null) {
+                        edge.data = weights[i];
+                        continue;
+                    }
+                    edge = new Edge(weights[i], predNode, succNode);
+                    edge.leavingIndex = predNode.edgesLeaving.size();
+                    predNode.edgesLeaving.add(edge);
+                    toward[succNode.id] = edge;
+                    created[i] = edge;
+                }
+                for (Edge edge : predNode.edgesLeaving)
+                    toward[edge.successor.id] = null;
+            }
+        }));
+
+        // then link the new edges into their successors' entering lists, in
+        // the order they were first inserted
+        int createdCount = 0;
+        for (Edge edge : created)
+            if (edge != null)
+                createdCount++;
+        int[] positions = new int[createdCount];
+        for (int i = 0, count = 0; i < created.length; i++)
+            if (created[i] != null)
+                positions[count++] = i;
+        int[][] entering = groupByKey(succs, byIndex.length, positions);
+        pool.invoke(new RangeTask(0, byIndex.length, grain, (from, to) -> {
+            for (int node = from; node < to; node++) {
+                Node succNode = byIndex[node];
+                for (int j = entering[1][node]; j < entering[1][node + 1]; j++) {
+                    Edge edge = created[entering[0][j]];
+                    edge.enteringIndex = succNode.edgesEntering.size();
+                    succNode.edgesEntering.add(edge);
+                }
+            }
+        }));
+        if (edgeIndex != null)
+            for (int i : positions)
+                edgeIndex.put(edgeKey(created[i].predecessor, created[i].successor), created[i]);
+        edgeCount += createdCount;
+        modCount++;
+    }
+
+    /**
+     * Changes this graph to hold exactly the nodes in data and the edges
+     * between them given by preds, succs and weights, where a later edge
+     * between the same nodes replaces an earlier one's weight, as with
+     * insertEdge. Only the nodes, edges and weights that differ are changed,
+     * so a graph that already matches isn't modified at all, and copies of
+     * it such as a frozen CompactGraph stay current. New edges are added at
+     * the end of their nodes' edge lists, and removing an edge moves the
+     * last edge of each of its lists into its place, so kept edges may be
+     * reordered.
+     *
+     * @param data    the distinct data of every node the graph should hold
+     * @param preds   the index in data of each edge's predecessor
+     * @param succs   the index in data of each edge's successor
+     * @param weights the weight of each edge
+     * @return the number of nodes and edges inserted or removed, plus the
+     *         number of weights changed
+     * @throws IllegalArgumentException if the arrays' lengths differ, or data
+     *                                  holds the same node twice
+     * @throws NullPointerException     if any node data is null
+     */
+    public int replaceEdges(List<NodeType> data, int[] preds, int[] succs, EdgeType[] weights) {
+        if (preds.length != succs.length || preds.length != weights.length)
+            throw new IllegalArgumentException("Edge arrays have different lengths.");
+        Set<NodeType> listed = new HashSet<>(data);
+        if (listed.size() != data.size())
+            throw new IllegalArgumentException("A node is listed twice.");
+        int changes = 0;
+        // remove the nodes that aren't listed first, so new ones reuse their ids
+        for (NodeType old : getAllNodes()) {
+            if (!listed.contains(old)) {
+                removeNode(old);
+                changes++;
+            }
+        }
+        Node[] byIndex = newNodeArray(data.size());
+        for (int i = 0; i < byIndex.length; i++) {
+            if (insertNode(data.get(i)))
+                changes++;
+            byIndex[i] = nodes.get(data.get(i));
+        }
+
+        int[][] leaving = groupByKey(preds, byIndex.length, null);
+        // the edge from the current node toward each node id, if any, and
+        // which of those edges are listed, marked with the current node + 1
+        // and then its negation once the edge has its last listed weight
+        Edge[] toward = newEdgeArray(nextNodeId);
+        int[] listedFrom = new int[nextNodeId];
+        List<Edge> unlisted = new ArrayList<>();
+        for (int node = 0; node < byIndex.length; node++) {
+            Node predNode = byIndex[node];
+            int existing = predNode.edgesLeaving.size();
+            for (Edge edge : predNode.edgesLeaving)
+                toward[edge.successor.id] = edge;
+            // link the edges that are missing, in the order they're listed
+            for (int j = leaving[1][node]; j < leaving[1][node + 1]; j++) {
+                int i = leaving[0][j];
+                Node succNode = byIndex[succs[i]];
+                if (toward[succNode.id] == null) {
+                    toward[succNode.id] = new Edge(weights[i], predNode, succNode);
+                    linkEdge(toward[succNode.id]);
+                    changes++;
+                }
+                listedFrom[succNode.id] = node + 1;
+            }
+            // then give each edge the last weight listed for it
+            for (int j = leaving[1][node + 1] - 1; j >= leaving[1][node]; j--) {
+                int i = leaving[0][j];
+                Node succNode = byIndex[succs[i]];
+                Edge edge = toward[succNode.id];
+                if (listedFrom[succNode.id] == node + 1) {
+                    listedFrom[succNode.id] = -(node + 1);
+                    if (!Objects.equals(edge.data, weights[i])) {
+                        if (edge.leavingIndex < existing)
+                            changes++;
+                        edge.data = weights[i];
+                    }
+                }
+            }
+            for (Edge edge : predNode.edgesLeaving) {
+                if (listedFrom[edge.successor.id] != -(node + 1))
+                    unlisted.add(edge);
+                toward[edge.successor.id] = null;
+            }
+            for (Edge edge : unlisted)
+                unlinkEdge(edge);
+            changes += unlisted.size();
+            unlisted.clear();
+        }
+        if (changes > 0)
+            modCount++;
+        return changes;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Edge[] newEdgeArray(int length) {
+        return (Edge[]) new BaseGraph<?, ?>.Edge[length];
+    }
+
+    /**
+     * Sorts positions by the key at each position, keeping positions with
+     * the same key in order.
+     *
+     * @param keys      the key of each position, from 0 up to keyCount
+     * @param keyCount  the number of distinct keys
+     * @param positions the positions to sort, or null for every position
+     * @return the sorted positions, and then keyCount+1 starts, where the
+     *         positions with key k are from starts[k] up to starts[k+1]
+     */
+    private static int[][] groupByKey(int[] keys, int keyCount, int[] positions) {
+        int count = positions == null ? keys.length : positions.length;
+        int[] starts = new int[keyCount + 1];
+        for (int j = 0; j < count; j++)
+            starts[keys[positions == null ? j : positions[j]] + 1]++;
+        for (int k = 0; k < keyCount; k++)
+            starts[k + 1] += starts[k];
+        int[] next = Arrays.copyOf(starts, keyCount);
+        int[] sorted = new int[count];
+        for (int j = 0; j < count; j++) {
+            int position = positions == null ? j : positions[j];
+            sorted[next[keys[position]]++] = position;
+        }
+        return new int[][] { sorted, starts };
+    }
+
+    /**
+     * Runs an action on the indexes from up to to, split into ranges of at
+     * most grain indexes that run on a ForkJoinPool's threads.
+     */
+    private static class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        interface Action {
+            void run(int from, int to);
+        }
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final Action action;
+
+        RangeTask(int from, int to, int grain, Action action) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                action.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, grain, action),
+                    new RangeTask(middle, to, grain, action));
+        }
+    }
+
     /**
      * Remove an edge from the graph.
-     * 
+     *
      * @param pred the data item contained in the source node for the edge
      * @param succ the data item contained in the target node for the edge
      * @return true if the edge could be removed, or
      *         false if such an edge is not found in the graph
      */
     public boolean removeEdge(NodeType pred, NodeType succ) {
-        try {
-            // when an edge exists
-            Edge oldEdge = getEdgeHelper(pred, succ);
-            // remove it from the edge lists of each adjacent node
-            oldEdge.predecessor.edgesLeaving.remove(oldEdge);
-            oldEdge.successor.edgesEntering.remove(oldEdge);
-            // and decrement the edge count before removing
-            this.edgeCount--;
-            return true;
-        } catch (NoSuchElementException e) {
-            // when no such edge exists, return false instead
+        Edge oldEdge = findEdge(pred, succ);
+        // when no such edge exists, return false instead
+        if (oldEdge == null)
             return false;
-        }
+        // remove it from the edge lists of each adjacent node
+        unlinkEdge(oldEdge);
+        modCount++;
+        return true;
     }
 
     /**
@@ -179,12 +603,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @return true if the edge is found in the graph, or false other
      */
     public boolean containsEdge(NodeType pred, NodeType succ) {
-        try {
-            getEdgeHelper(pred, succ);
-            return true;
-        } catch (NoSuchElementException e) {
-            return false;
-        }
+        return findEdge(pred, succ) != null;
     }
 
     /**
@@ -201,15 +620,44 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     }
 
     protected Edge getEdgeHelper(NodeType pred, NodeType succ) {
-        Node predNode = nodes.get(pred);
-        // search for edge through the predecessor's list of leaving edges
+        Edge edge = findEdge(pred, succ);
+        // when no such edge can be found, throw NSE
+        if (edge == null)
+            throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
+                    succ.toString());
+        return edge;
+    }
+
+    /**
+     * Finds the edge between the nodes containing pred and succ, without
+     * throwing when there isn't one.
+     *
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return the edge, or null if either node or the edge between them are
+     *         not found within this graph
+     */
+    protected Edge findEdge(NodeType pred, NodeType succ) {
+        Node predNode = nodes.getOrDefault(pred, null);
+        Node succNode = nodes.getOrDefault(succ, null);
+        if (predNode == null || succNode == null)
+            return null;
+        return findEdge(predNode, succNode);
+    }
+
+    /**
+     * Finds the edge from predNode to succNode, through the edge index when
+     * there is one, and otherwise by scanning predNode's leaving edges.
+     *
+     * @return the edge, or null if there is none
+     */
+    protected Edge findEdge(Node predNode, Node succNode) {
+        if (edgeIndex != null)
+            return edgeIndex.get(edgeKey(predNode, succNode));
         for (Edge edge : predNode.edgesLeaving)
-            // compare succ to the data in each leaving edge's successor
-            if (edge.successor.data.equals(succ))
+            if (edge.successor == succNode)
                 return edge;
-        // when no such edge can be found, throw NSE
-        throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
-                succ.toString());
+        return null;
     }
 
     /**
@@ -220,4 +668,40 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     public int getEdgeCount() {
         return this.edgeCount;
     }
+
+    /**
+     * Copies this graph into a CompactGraph, which stores every node's
+     * leaving edges in consecutive primitive arrays. The copy does not change
+     * when this graph does.
+     *
+     * @return a compact, read-only copy of this graph
+     */
+    public CompactGraph<NodeType> compact() {
+        List<Node> all = new ArrayList<>(nodes.getSize());
+        nodes.forEachKey(data -> all.add(nodes.get(data)));
+
+        // number the nodes in the copy, and count their leaving edges
+        int[] indexById = new int[nextNodeId];
+        Object[] nodeData = new Object[all.size()];
+        int[] offsets = new int[all.size() + 1];
+        for (int i = 0; i < all.size(); i++) {
+            Node node = all.get(i);
+            indexById[node.id] = i;
+            nodeData[i] = node.data;
+            offsets[i + 1] = offsets[i] + node.edgesLeaving.size();
+        }
+
+        // copy each node's leaving edges into its range of the edge arrays
+        int[] targets = new int[offsets[all.size()]];
+        double[] weights = new double[targets.length];
+        for (int i = 0; i < all.size(); i++) {
+            int position = offsets[i];
+            for (Edge edge : all.get(i).edgesLeaving) {
+                targets[position] = indexById[edge.successor.id];
+                weights[position] = edge.data.doubleValue();
+                position++;
+            }
+        }
+        return new CompactGraph<>(nodeData, offsets, targets, weights);
+    }
 }
\ No newline at end of file
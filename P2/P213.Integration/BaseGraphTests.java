@@ -0,0 +1,238 @@
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for how BaseGraph stores its nodes and edges.
+ */
+public class BaseGraphTests {
+
+    /**
+     * Test that removed nodes' ids are handed out again, so searches keep
+     * working over arrays no longer than the most nodes the graph has held
+     */
+    @Test
+    public void testRecycledNodeIds() {
+        DijkstraGraph<String, Double> graph = DijkstraGraph.sampleGraph();
+        assertEquals(5, graph.nextNodeId);
+        graph.removeNode("B");
+        graph.removeNode("E");
+        assertTrue(graph.insertNode("F"));
+        assertTrue(!graph.insertNode("F"));
+        assertTrue(graph.insertNode("G"));
+        assertTrue(graph.insertNode("H"));
+        assertEquals(6, graph.nextNodeId);
+        assertEquals(6, graph.getNodeCount());
+
+        graph.insertEdge("A", "F", 1.0);
+        graph.insertEdge("F", "G", 1.0);
+        graph.insertEdge("G", "D", 1.0);
+        assertEquals(List.of("A", "F", "G", "D"), graph.shortestPathData("A", "D"));
+        assertEquals(3.0, graph.shortestPathCost("A", "D"));
+        assertEquals(List.of("A", "F", "G", "D"), graph.compact().shortestPathData("A", "D"));
+        assertEquals(List.of(), graph.shortestPathData("A", "H"));
+    }
+
+    /**
+     * Test that graphs find, update and remove the same edges with and
+     * without the edge index, including after node ids are reused
+     */
+    @Test
+    public void testEdgeIndex() {
+        DijkstraGraph<String, Double> graph = DijkstraGraph.sampleGraph();
+        graph.setEdgeIndexed(true);
+        assertTrue(graph.isEdgeIndexed());
+        assertTrue(graph.containsEdge("A", "B"));
+        assertTrue(!graph.containsEdge("B", "A"));
+        assertTrue(!graph.containsEdge("A", "F"));
+        assertEquals(5.0, graph.getEdge("B", "D"));
+        assertThrows(NoSuchElementException.class, () -> graph.getEdge("D", "B"));
+
+        assertTrue(graph.insertEdge("B", "D", 2.5));
+        assertEquals(2.5, graph.getEdge("B", "D"));
+        assertEquals(5, graph.getEdgeCount());
+        assertTrue(graph.removeEdge("A", "C"));
+        assertTrue(!graph.removeEdge("A", "C"));
+        assertTrue(!graph.containsEdge("A", "C"));
+
+        // C's id goes to F, which must not inherit C's edges
+        graph.removeNode("C");
+        graph.insertNode("F");
+        assertTrue(!graph.containsEdge("B", "F"));
+        assertTrue(!graph.containsEdge("F", "D"));
+        graph.insertEdge("F", "A", 1.0);
+        assertEquals(List.of("F", "A", "B", "D"), graph.shortestPathData("F", "D"));
+
+        graph.setEdgeIndexed(false);
+        assertTrue(!graph.isEdgeIndexed());
+        assertEquals(1.0, graph.getEdge("F", "A"));
+        graph.setEdgeIndexed(true);
+        assertEquals(2.5, graph.getEdge("B", "D"));
+        assertTrue(!graph.containsEdge("B", "C"));
+    }
+
+    /**
+     * Test that edges removed from the middle of long edge lists leave every
+     * other edge reachable from both of its nodes, and that clear empties
+     * the graph for reuse
+     */
+    @Test
+    public void testRemoveEdgesAndClear() {
+        DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+        for (int i = 0; i < 50; i++) {
+            graph.insertNode(i);
+        }
+        for (int i = 1; i < 50; i++) {
+            graph.insertEdge(0, i, (double) i);
+            graph.insertEdge(i, 0, (double) i);
+        }
+        graph.insertEdge(0, 0, 1.0);
+        Random random = new Random(3);
+        for (int i = 0; i < 30; i++) {
+            int removed = 1 + random.nextInt(49);
+            assertEquals(graph.containsEdge(0, removed), graph.removeEdge(0, removed));
+        }
+        for (int i = 1; i < 50; i++) {
+            // every edge left is still found through both of its nodes
+            assertEquals(graph.containsEdge(0, i), graph.reachableWithin(0, 100).contains(i));
+            assertEquals((double) i, graph.shortestPathCost(i, 0));
+        }
+        assertTrue(graph.removeNode(0));
+        assertEquals(List.of(7), graph.reachableWithin(7, 100));
+        assertTrue(!graph.containsEdge(7, 0));
+        assertEquals(0, graph.getEdgeCount());
+
+        // a loop is counted once when its node is removed, with or without
+        // the edge index
+        for (boolean indexed : new boolean[] {false, true}) {
+            DijkstraGraph<String, Double> loops = new DijkstraGraph<>();
+            loops.setEdgeIndexed(indexed);
+            loops.insertNode("A");
+            loops.insertNode("B");
+            loops.insertEdge("A", "A", 1.0);
+            loops.insertEdge("A", "B", 1.0);
+            loops.insertEdge("B", "A", 1.0);
+            assertEquals(3, loops.getEdgeCount());
+            assertTrue(loops.removeNode("A"));
+            assertEquals(0, loops.getEdgeCount());
+            assertTrue(!loops.containsEdge("B", "A"));
+        }
+
+        graph.clear();
+        assertEquals(0, graph.getNodeCount());
+        assertEquals(0, graph.getEdgeCount());
+        assertTrue(!graph.containsNode(7));
+        graph.insertNode(7);
+        graph.insertNode(8);
+        graph.insertEdge(7, 8, 2.0);
+        assertEquals(2.0, graph.shortestPathCost(7, 8));
+        assertEquals(2, graph.nextNodeId);
+    }
+
+    /**
+     * Test that insertEdges adds nodes and edges to a graph that already has
+     * some exactly as inserting them one at a time would, and that the edges
+     * it links can be found and removed through both of their nodes
+     */
+    @Test
+    public void testInsertEdges() {
+        DijkstraGraph<String, Double> bulk = DijkstraGraph.sampleGraph();
+        DijkstraGraph<String, Double> single = DijkstraGraph.sampleGraph();
+        bulk.setEdgeIndexed(true);
+        bulk.removeNode("E");
+        single.removeNode("E");
+        List<String> data = List.of("B", "F", "A", "D", "G");
+        int[] preds = {0, 1, 2, 1, 3, 4, 0, 2, 1};
+        int[] succs = {1, 2, 1, 2, 1, 1, 1, 2, 1};
+        Double[] weights = {1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0};
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            bulk.insertEdges(data, preds, succs, weights, pool);
+            assertThrows(IllegalArgumentException.class,
+                    () -> bulk.insertEdges(List.of("A", "A"), new int[0], new int[0], new Double[0], pool));
+        } finally {
+            pool.shutdown();
+        }
+        for (String name : data) {
+            single.insertNode(name);
+        }
+        for (int i = 0; i < preds.length; i++) {
+            single.insertEdge(data.get(preds[i]), data.get(succs[i]), weights[i]);
+        }
+
+        assertEquals(single.getEdgeCount(), bulk.getEdgeCount());
+        CompactGraph<String> expected = single.compact();
+        CompactGraph<String> actual = bulk.compact();
+        assertArrayEquals(expected.nodeData, actual.nodeData);
+        assertArrayEquals(expected.targets, actual.targets);
+        assertArrayEquals(expected.weights, actual.weights);
+        // F, the first new node, reuses the id E freed
+        assertEquals(single.nodes.get("F").id, bulk.nodes.get("F").id);
+        assertEquals(9.0, bulk.getEdge("F", "F"));
+        assertEquals(7.0, bulk.getEdge("B", "F"));
+        assertEquals(List.of("G", "F", "A", "B", "C"), bulk.shortestPathData("G", "C"));
+        assertTrue(bulk.removeEdge("D", "F"));
+        assertTrue(bulk.removeNode("F"));
+        assertTrue(!bulk.containsEdge("A", "F"));
+        assertEquals(List.of("A", "B", "C"), bulk.shortestPathData("A", "C"));
+    }
+
+    /**
+     * Test that replaceEdges changes only the nodes, edges and weights that
+     * differ, leaving a graph that already matches untouched, and that the
+     * result holds the same edges as a graph built from scratch
+     */
+    @Test
+    public void testReplaceEdges() {
+        DijkstraGraph<String, Double> graph = DijkstraGraph.sampleGraph();
+        graph.setEdgeIndexed(true);
+        List<String> data = List.of("A", "B", "C", "D", "E");
+        int[] preds = {0, 1, 2, 1, 0};
+        int[] succs = {1, 2, 3, 3, 2};
+        Double[] weights = {1.0, 2.0, 6.0, 5.0, 4.0};
+        CompactGraph<String> frozen = graph.freeze();
+        assertEquals(0, graph.replaceEdges(data, preds, succs, weights));
+        assertTrue(graph.isFrozen());
+        assertSame(frozen, graph.freeze());
+
+        // drop E and the edge B->C, reweigh C->D, and add F with an edge
+        // that is listed twice
+        data = List.of("A", "B", "C", "D", "F");
+        preds = new int[] {0, 2, 1, 0, 4, 4};
+        succs = new int[] {1, 3, 3, 2, 0, 0};
+        weights = new Double[] {1.0, 0.5, 5.0, 4.0, 9.0, 3.0};
+        assertEquals(5, graph.replaceEdges(data, preds, succs, weights));
+        assertTrue(!graph.isFrozen());
+        assertEquals(5, graph.getNodeCount());
+        assertEquals(5, graph.getEdgeCount());
+        assertTrue(!graph.containsNode("E"));
+        assertTrue(!graph.containsEdge("B", "C"));
+        assertEquals(0.5, graph.getEdge("C", "D"));
+        assertEquals(3.0, graph.getEdge("F", "A"));
+        assertEquals(List.of("F", "A", "C", "D"), graph.shortestPathData("F", "D"));
+        assertEquals(7.5, graph.shortestPathCost("F", "D"));
+
+        DijkstraGraph<String, Double> fresh = new DijkstraGraph<>();
+        for (String name : data) {
+            fresh.insertNode(name);
+        }
+        for (int i = 0; i < preds.length; i++) {
+            fresh.insertEdge(data.get(preds[i]), data.get(succs[i]), weights[i]);
+        }
+        for (String pred : data) {
+            for (String succ : data) {
+                assertEquals(fresh.containsEdge(pred, succ), graph.containsEdge(pred, succ));
+            }
+        }
+        // every kept edge is still found through both of its nodes
+        assertTrue(graph.removeNode("C"));
+        assertEquals(3, graph.getEdgeCount());
+        assertTrue(graph.removeEdge("B", "D"));
+        assertEquals(List.of(), graph.shortestPathData("A", "D"));
+        assertThrows(IllegalArgumentException.class,
+                () -> graph.replaceEdges(List.of("A", "A"), new int[0], new int[0], new Double[0]));
+    }
+}
@@ -0,0 +1,439 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An immutable, read-optimized copy of a graph in compressed sparse row (CSR)
+ * form. Node i's leaving edges are stored at positions offsets[i] up to
+ * offsets[i+1] of the targets and weights arrays, so a search walks
+ * consecutive ints and doubles instead of following Edge and Node objects
+ * and unboxing every weight.
+ *
+ * Nodes are numbered 0 to getNodeCount()-1 in the order they were copied.
+ * Because a CompactGraph never changes, it can be shared by any number of
+ * threads searching it at the same time.
+ */
+public class CompactGraph<NodeType> {
+
+    protected final Object[] nodeData;
+    protected final int[] offsets;
+    protected final int[] targets;
+    protected final double[] weights;
+    // looks up a node's index from its data
+    protected final MapADT<NodeType, Integer> indexOf;
+
+    /**
+     * Creates a compact graph from CSR arrays, which are used without copying.
+     *
+     * @param nodeData the data of each node, by index
+     * @param offsets  nodeData.length+1 positions, where node i's leaving edges
+     *                 are stored from offsets[i] up to offsets[i+1]
+     * @param targets  the index of each edge's successor node
+     * @param weights  the non-negative weight of each edge
+     * @throws IllegalArgumentException if the arrays' lengths don't agree
+     */
+    @SuppressWarnings("unchecked")
+    public CompactGraph(Object[] nodeData, int[] offsets, int[] targets, double[] weights) {
+        if (offsets.length != nodeData.length + 1 || targets.length != weights.length
+                || offsets[nodeData.length] != targets.length) {
+            throw new IllegalArgumentException("CSR arrays have inconsistent lengths.");
+        }
+        this.nodeData = nodeData;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.indexOf = new ProbingHashtableMap<>(Math.max(2, (int) (nodeData.length / 0.75)));
+        for (int i = 0; i < nodeData.length; i++) {
+            indexOf.put((NodeType) nodeData[i], i);
+        }
+    }
+
+    /**
+     * Return the number of nodes in the graph
+     *
+     * @return the number of nodes in the graph
+     */
+    public int getNodeCount() {
+        return nodeData.length;
+    }
+
+    /**
+     * Return the number of edges in the graph.
+     *
+     * @return the number of edges in the graph
+     */
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Retrieves the index of the node that holds data.
+     *
+     * @param data the node data to look up
+     * @return the index of that node, or -1 if no node holds data
+     */
+    public int indexOf(NodeType data) {
+        return indexOf.getOrDefault(data, -1);
+    }
+
+    /**
+     * Retrieves the data held by the node with the provided index.
+     *
+     * @param index the index of the node
+     * @return that node's data
+     */
+    @SuppressWarnings("unchecked")
+    public NodeType dataAt(int index) {
+        return (NodeType) nodeData[index];
+    }
+
+    /**
+     * Decides, as a search settles each node, whether the search is done.
+     */
+    protected interface SettleStop {
+        /**
+         * @param node the index of the node just settled
+         * @param cost the cost of the shortest path to node
+         * @return true to end the search without settling any more nodes
+         */
+        boolean settled(int node, double cost);
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from start, settling nodes in order of
+     * increasing path cost until stop ends the search, the next node costs
+     * more than maxCost, or every node reachable from start is settled.
+     *
+     * @param start       the index of the starting node
+     * @param maxCost     the largest path cost to settle nodes at
+     * @param cost        cost[i] is set to the cost of the shortest path to i
+     *                    for every settled node, and is infinite for nodes
+     *                    that weren't reached
+     * @param predecessor predecessor[i] is set to the node before i on that
+     *                    path, or -1 for start, or null if paths aren't needed
+     * @param stop        called with each node as it is settled
+     * @return true if stop ended the search
+     */
+    protected boolean settle(int start, double maxCost, double[] cost, int[] predecessor,
+            SettleStop stop) {
+        Arrays.fill(cost, Double.POSITIVE_INFINITY);
+        IndexedMinHeap queue = new IndexedMinHeap(nodeData.length);
+        cost[start] = 0;
+        if (predecessor != null) {
+            predecessor[start] = -1;
+        }
+        queue.addOrDecrease(start, 0);
+
+        while (!queue.isEmpty()) {
+            int current = queue.removeMin();
+            double currentCost = cost[current];
+            // the rest of the queue costs at least as much as this node
+            if (currentCost > maxCost) {
+                return false;
+            }
+            if (stop.settled(current, currentCost)) {
+                return true;
+            }
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int next = targets[e];
+                double nextCost = currentCost + weights[e];
+                if (nextCost < cost[next]) {
+                    cost[next] = nextCost;
+                    if (predecessor != null) {
+                        predecessor[next] = current;
+                    }
+                    queue.addOrDecrease(next, nextCost);
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from start until end is settled, filling in
+     * the cost of and predecessor on the shortest path to each reached node.
+     *
+     * @param start       the index of the starting node
+     * @param end         the index of the destination node
+     * @param cost        cost[i] is set to the cost of the shortest path to i
+     *                    for every settled node
+     * @param predecessor predecessor[i] is set to the node before i on that
+     *                    path, or -1 for start
+     * @return true if end was reached, and false if no path to it exists
+     */
+    protected boolean search(int start, int end, double[] cost, int[] predecessor) {
+        return settle(start, Double.POSITIVE_INFINITY, cost, predecessor,
+                (node, nodeCost) -> node == end);
+    }
+
+    /**
+     * Computes the cost of the shortest path from source to every node.
+     *
+     * @param source the index of the node to search from
+     * @return the cost to each node by index, which is infinite for nodes
+     *         that can't be reached from source
+     */
+    public double[] costsFrom(int source) {
+        double[] cost = new double[nodeData.length];
+        settle(source, Double.POSITIVE_INFINITY, cost, null, (node, nodeCost) -> false);
+        return cost;
+    }
+
+    /**
+     * Computes the costs of the shortest paths from source to each of a set
+     * of targets, with a search that stops once every target is settled.
+     *
+     * @param source  the index of the node to search from
+     * @param targets the indexes of the nodes to find costs to
+     * @return the cost to each target, in the same order, which is infinite
+     *         for targets that can't be reached from source
+     */
+    public double[] costsFrom(int source, int[] targets) {
+        // count each target once, even if it's listed more than once
+        boolean[] isTarget = new boolean[nodeData.length];
+        int[] remaining = {0};
+        for (int target : targets) {
+            if (!isTarget[target]) {
+                isTarget[target] = true;
+                remaining[0]++;
+            }
+        }
+        double[] result = new double[targets.length];
+        if (remaining[0] == 0) {
+            return result;
+        }
+        double[] cost = new double[nodeData.length];
+        settle(source, Double.POSITIVE_INFINITY, cost, null,
+                (node, nodeCost) -> isTarget[node] && --remaining[0] == 0);
+        for (int i = 0; i < targets.length; i++) {
+            result[i] = cost[targets[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Computes the cost of the shortest path from every origin to every
+     * destination. Each origin takes one search, and the searches are spread
+     * across the threads of pool, which is safe because a CompactGraph never
+     * changes.
+     *
+     * @param origins      the data items in the nodes paths start at
+     * @param destinations the data items in the nodes paths end at
+     * @param pool         the threads to run the searches on
+     * @return matrix[i][j] is the cost of the shortest path from origin i to
+     *         destination j, which is infinite when there is no such path
+     * @throws NoSuchElementException if any origin or destination cannot be
+     *         found in the graph
+     */
+    public double[][] distanceMatrix(List<NodeType> origins, List<NodeType> destinations,
+            ForkJoinPool pool) {
+        int[] sources = new int[origins.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = requireIndex(origins.get(i));
+        }
+        int[] sinks = new int[destinations.size()];
+        for (int j = 0; j < sinks.length; j++) {
+            sinks[j] = requireIndex(destinations.get(j));
+        }
+        double[][] matrix = new double[sources.length][];
+        pool.invoke(new MatrixRows(sources, sinks, matrix, 0, sources.length));
+        return matrix;
+    }
+
+    /**
+     * Fills in a range of a distance matrix's rows, splitting the range in
+     * half until each task has only a few origins left to search from.
+     */
+    private class MatrixRows extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] sources;
+        private final int[] sinks;
+        private final double[][] matrix;
+        private final int from;
+        private final int to;
+
+        MatrixRows(int[] sources, int[] sinks, double[][] matrix, int from, int to) {
+            this.sources = sources;
+            this.sinks = sinks;
+            this.matrix = matrix;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 2) {
+                for (int i = from; i < to; i++) {
+                    matrix[i] = costsFrom(sources[i], sinks);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new MatrixRows(sources, sinks, matrix, from, middle),
+                    new MatrixRows(sources, sinks, matrix, middle, to));
+        }
+    }
+
+    /**
+     * Creates a copy of this graph with the same nodes and every edge
+     * reversed, so that searching it from a node finds the costs of the
+     * shortest paths to that node in this graph.
+     *
+     * @return the reversed graph, whose nodes keep their indexes
+     */
+    public CompactGraph<NodeType> reverse() {
+        // count the edges entering each node, to size its range of the arrays
+        int[] reverseOffsets = new int[nodeData.length + 1];
+        for (int target : targets) {
+            reverseOffsets[target + 1]++;
+        }
+        for (int i = 0; i < nodeData.length; i++) {
+            reverseOffsets[i + 1] += reverseOffsets[i];
+        }
+        int[] reverseTargets = new int[targets.length];
+        double[] reverseWeights = new double[weights.length];
+        int[] next = Arrays.copyOf(reverseOffsets, nodeData.length);
+        for (int from = 0; from < nodeData.length; from++) {
+            for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+                int position = next[targets[e]]++;
+                reverseTargets[position] = from;
+                reverseWeights[position] = weights[e];
+            }
+        }
+        return new CompactGraph<>(nodeData, reverseOffsets, reverseTargets, reverseWeights);
+    }
+
+    /**
+     * Returns the list of data values from nodes along the shortest path
+     * from the node with the provided start value through the node with the
+     * provided end value.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return list of data item from node along this shortest path
+     * @throws NoSuchElementException if either the start or end node cannot
+     *         be found in the graph, or if there is no directed path from the
+     *         start node to the end node
+     */
+    public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+        int startIndex = requireIndex(start);
+        int endIndex = requireIndex(end);
+        double[] cost = new double[nodeData.length];
+        int[] predecessor = new int[nodeData.length];
+        if (!search(startIndex, endIndex, cost, predecessor)) {
+            throw new NoSuchElementException("No path from start to end is found");
+        }
+        List<NodeType> path = new ArrayList<>();
+        for (int i = endIndex; i != -1; i = predecessor[i]) {
+            path.add(dataAt(i));
+        }
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * Returns the cost of the path (sum over edge weights) of the shortest
+     * path from the node containing the start data to the node containing the
+     * end data.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException if either the start or end node cannot
+     *         be found in the graph, or if there is no directed path from the
+     *         start node to the end node
+     */
+    public double shortestPathCost(NodeType start, NodeType end) {
+        int startIndex = requireIndex(start);
+        int endIndex = requireIndex(end);
+        double[] cost = new double[nodeData.length];
+        int[] predecessor = new int[nodeData.length];
+        if (!search(startIndex, endIndex, cost, predecessor)) {
+            throw new NoSuchElementException("No path from start to end is found");
+        }
+        return cost[endIndex];
+    }
+
+    /**
+     * Returns the nodes along the shortest path from start to end, together
+     * with the cost of each hop and the cumulative cost to each node.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the nodes and costs along this shortest path
+     * @throws NoSuchElementException if either the start or end node cannot
+     *         be found in the graph, or if there is no directed path from the
+     *         start node to the end node
+     */
+    public ShortestPath<NodeType> shortestPath(NodeType start, NodeType end) {
+        int startIndex = requireIndex(start);
+        int endIndex = requireIndex(end);
+        double[] cost = new double[nodeData.length];
+        int[] predecessor = new int[nodeData.length];
+        if (!search(startIndex, endIndex, cost, predecessor)) {
+            throw new NoSuchElementException("No path from start to end is found");
+        }
+        List<NodeType> path = new ArrayList<>();
+        for (int i = endIndex; i != -1; i = predecessor[i]) {
+            path.add(dataAt(i));
+        }
+        Collections.reverse(path);
+
+        // walk the predecessors again to fill in each hop's edge weight
+        double[] hopCosts = new double[path.size() - 1];
+        int hop = hopCosts.length - 1;
+        for (int i = endIndex; predecessor[i] != -1; i = predecessor[i]) {
+            hopCosts[hop--] = edgeWeight(predecessor[i], i);
+        }
+        return new ShortestPath<>(path, hopCosts);
+    }
+
+    /**
+     * Finds the lowest weight of the edges from index from to index to.
+     */
+    private double edgeWeight(int from, int to) {
+        double weight = Double.POSITIVE_INFINITY;
+        for (int e = offsets[from]; e < offsets[from + 1]; e++) {
+            if (targets[e] == to) {
+                weight = Math.min(weight, weights[e]);
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * Returns the data of every node that can be reached from start along a
+     * path costing at most maxCost, including start itself, in order of
+     * increasing path cost.
+     *
+     * @param start   the data item in the starting node
+     * @param maxCost the largest path cost to include
+     * @return list of data items from the nodes within maxCost of start
+     * @throws NoSuchElementException if start cannot be found in the graph
+     */
+    public List<NodeType> reachableWithin(NodeType start, double maxCost) {
+        int startIndex = indexOf(start);
+        if (startIndex == -1) {
+            throw new NoSuchElementException("Start data does not correspond to a graph node.");
+        }
+        List<NodeType> within = new ArrayList<>();
+        settle(startIndex, maxCost, new double[nodeData.length], null, (node, nodeCost) -> {
+            within.add(dataAt(node));
+            return false;
+        });
+        return within;
+    }
+
+    private int requireIndex(NodeType data) {
+        int index = indexOf(data);
+        if (index == -1) {
+            throw new NoSuchElementException("Either start or end data do not correspond to a graph node.");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for CompactGraph, the array copy of a DijkstraGraph that its
+ * searches run over once it is frozen.
+ */
+public class CompactGraphTests {
+
+    /**
+     * Test that the compact copy keeps every node and edge, and finds the
+     * same shortest paths as the linked graph
+     */
+    @Test
+    public void testCompactMatchesLinked() {
+        DijkstraGraph<String, Double> graph = DijkstraGraph.sampleGraph();
+        graph.removeNode("E");
+        CompactGraph<String> compact = graph.compact();
+        assertEquals(4, compact.getNodeCount());
+        assertEquals(5, compact.getEdgeCount());
+        assertEquals(-1, compact.indexOf("E"));
+        assertEquals("B", compact.dataAt(compact.indexOf("B")));
+
+        assertEquals(List.of("A", "B", "C"), compact.shortestPathData("A", "C"));
+        assertEquals(3.0, compact.shortestPathCost("A", "C"));
+        assertEquals(graph.shortestPathData("A", "D"), compact.shortestPathData("A", "D"));
+        assertEquals(graph.shortestPathCost("A", "D"), compact.shortestPathCost("A", "D"));
+        assertThrows(NoSuchElementException.class, () -> compact.shortestPathData("D", "A"));
+        assertThrows(NoSuchElementException.class, () -> compact.shortestPathCost("A", "E"));
+    }
+
+    /**
+     * Test that reversing a compact graph reverses every edge, so searching
+     * it finds the costs of paths into a node
+     */
+    @Test
+    public void testReverse() {
+        CompactGraph<String> compact = DijkstraGraph.sampleGraph().compact();
+        CompactGraph<String> reversed = compact.reverse();
+        assertEquals(compact.getNodeCount(), reversed.getNodeCount());
+        assertEquals(compact.getEdgeCount(), reversed.getEdgeCount());
+        assertEquals(List.of("D", "B", "A"), reversed.shortestPathData("D", "A"));
+
+        double[] toD = reversed.costsFrom(compact.indexOf("D"));
+        assertEquals(6.0, toD[compact.indexOf("A")]);
+        assertEquals(6.0, toD[compact.indexOf("C")]);
+        assertEquals(Double.POSITIVE_INFINITY, toD[compact.indexOf("E")]);
+    }
+}
@@ -0,0 +1,524 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A thread-safe hashtable implementation of the MapADT interface, so that one
+ * map (for example the node map of a DijkstraGraph) can be shared by several
+ * threads.
+ *
+ * Buckets are chains of immutable entries, so lookups never lock: they read
+ * the current table and walk a chain that no writer will modify in place.
+ * Writers lock one of a fixed number of stripes chosen by the key's hash, and
+ * publish their changes by replacing the head of a bucket. A resize takes
+ * every stripe, builds a new table next to the old one and then publishes it,
+ * so readers keep using the old table until the new one is complete.
+ */
+public class ConcurrentHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+    // number of locks guarding the buckets; also the minimum table capacity,
+    // so that every bucket of a table belongs to exactly one stripe
+    private static final int STRIPES = 16;
+    private static final double LOAD_FACTOR = 0.8;
+
+    /**
+     * An immutable link in a bucket's chain. Removing an entry copies the
+     * entries in front of it instead of changing their next references.
+     */
+    protected static class Entry<KeyType, ValueType> {
+        public final KeyType key;
+        public final int hash;
+        public final ValueType value;
+        public final Entry<KeyType, ValueType> next;
+
+        public Entry(KeyType key, int hash, ValueType value, Entry<KeyType, ValueType> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    protected volatile AtomicReferenceArray<Entry<KeyType, ValueType>> table;
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final LongAdder size = new LongAdder();
+
+    /**
+     * Creates a map with at least the requested capacity, rounded up to a
+     * power of two that is no smaller than the number of lock stripes.
+     * @param capacity the minimum number of buckets in the table
+     */
+    public ConcurrentHashtableMap(int capacity) {
+        int rounded = STRIPES;
+        while (rounded < capacity) {
+            rounded <<= 1;
+        }
+        table = new AtomicReferenceArray<>(rounded);
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public ConcurrentHashtableMap() {
+        this(64);
+    }
+
+    /**
+     * Spreads the bits of a key's hashCode so that the low bits used to pick
+     * a bucket and a stripe depend on the whole hashCode.
+     * @throws NullPointerException if key is null
+     */
+    private static int spread(Object key) {
+        if (key == null) {
+            throw new NullPointerException("Key cannot be null.");
+        }
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Finds the entry for key in a table without locking.
+     * @return that entry, or null when key is not in the table
+     */
+    private Entry<KeyType, ValueType> find(AtomicReferenceArray<Entry<KeyType, ValueType>> t,
+            Object key, int hash) {
+        Entry<KeyType, ValueType> e = t.get(hash & (t.length() - 1));
+        while (e != null) {
+            if (e.hash == hash && e.key.equals(key)) {
+                return e;
+            }
+            e = e.next;
+        }
+        return null;
+    }
+
+    /**
+     * Locks the stripe that owns every bucket that hash can map to.
+     */
+    private ReentrantLock lockFor(int hash) {
+        ReentrantLock lock = locks[hash & (STRIPES - 1)];
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Adds a new entry at the head of its bucket. The caller must hold the
+     * stripe lock for hash, and should call resizeIfNeeded after releasing it.
+     */
+    private void addEntry(KeyType key, int hash, ValueType value) {
+        AtomicReferenceArray<Entry<KeyType, ValueType>> t = table;
+        int index = hash & (t.length() - 1);
+        t.set(index, new Entry<>(key, hash, value, t.get(index)));
+        size.increment();
+    }
+
+    /**
+     * Doubles the table when the load factor has been reached. Every stripe
+     * is locked while the new table is built, which blocks writers but not
+     * readers, who continue to use the old table until the new one is
+     * published.
+     */
+    private void resizeIfNeeded() {
+        if ((double) size.sum() / table.length() < LOAD_FACTOR) {
+            return;
+        }
+        // always lock the stripes in order, so that two resizing threads
+        // can't deadlock each other
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            AtomicReferenceArray<Entry<KeyType, ValueType>> oldTable = table;
+            // another thread may have resized while this one was waiting
+            if ((double) size.sum() / oldTable.length() < LOAD_FACTOR) {
+                return;
+            }
+            AtomicReferenceArray<Entry<KeyType, ValueType>> newTable =
+                    new AtomicReferenceArray<>(oldTable.length() * 2);
+            int mask = newTable.length() - 1;
+            for (int i = 0; i < oldTable.length(); i++) {
+                // copy entries, since the old chains may still be in use
+                for (Entry<KeyType, ValueType> e = oldTable.get(i); e != null; e = e.next) {
+                    int index = e.hash & mask;
+                    newTable.set(index, new Entry<>(e.key, e.hash, e.value, newTable.get(index)));
+                }
+            }
+            table = newTable;
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection. It is ok that the value is null.
+     * @param key the key of the key,value pair
+     * @param value the value that key maps to
+     * @throws IllegalArgumentException if key already maps to a value
+     * @throws NullPointerException if key is null
+     */
+    public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+        if (!putIfAbsent(key, value)) {
+            throw new IllegalArgumentException("Key already maps to a value.");
+        }
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection only if key does
+     * not already map to a value. The check and the insert happen atomically.
+     * @param key the key of the key,value pair
+     * @param value the value that key maps to
+     * @return true if the pair was added, or false if key already maps to a
+     *         value (which is left unchanged)
+     * @throws NullPointerException if key is null
+     */
+    public boolean putIfAbsent(KeyType key, ValueType value) {
+        int hash = spread(key);
+        ReentrantLock lock = lockFor(hash);
+        try {
+            if (find(table, key, hash) != null) {
+                return false;
+            }
+            addEntry(key, hash, value);
+        } finally {
+            lock.unlock();
+        }
+        resizeIfNeeded();
+        return true;
+    }
+
+    /**
+     * Retrieves the value that key maps to. When key is not stored in this
+     * collection, the mappingFunction is first used to compute a value that
+     * key is then mapped to. The function is called at most once per key,
+     * while other writers to the same stripe wait.
+     * @param key the key to look up
+     * @param mappingFunction computes the value for a key that is not found,
+     *        and must not modify this collection
+     * @return the existing or newly computed value that key maps to
+     * @throws NullPointerException if key is null
+     */
+    public ValueType computeIfAbsent(KeyType key,
+            Function<? super KeyType, ? extends ValueType> mappingFunction) {
+        int hash = spread(key);
+        // most calls find the key, so try without the lock first
+        Entry<KeyType, ValueType> e = find(table, key, hash);
+        if (e != null) {
+            return e.value;
+        }
+        ValueType value;
+        ReentrantLock lock = lockFor(hash);
+        try {
+            e = find(table, key, hash);
+            if (e != null) {
+                return e.value;
+            }
+            value = mappingFunction.apply(key);
+            addEntry(key, hash, value);
+        } finally {
+            lock.unlock();
+        }
+        resizeIfNeeded();
+        return value;
+    }
+
+    /**
+     * Checks whether a key maps to a value in this collection.
+     * @param key the key to check
+     * @return true if the key maps to a value, and false is the
+     *         key doesn't map to a value
+     */
+    public boolean containsKey(KeyType key) {
+        return find(table, key, spread(key)) != null;
+    }
+
+    /**
+     * Retrieves the specific value that a key maps to.
+     * @param key the key to look up
+     * @return the value that key maps to
+     * @throws NoSuchElementException when key is not stored in this
+     *         collection
+     */
+    public ValueType get(KeyType key) throws NoSuchElementException {
+        Entry<KeyType, ValueType> e = find(table, key, spread(key));
+        if (e == null) {
+            throw new NoSuchElementException("Key is not stored in this collection.");
+        }
+        return e.value;
+    }
+
+    /**
+     * Retrieves the value that key maps to, or defaultValue when key is not
+     * stored in this collection.
+     * @param key the key to look up
+     * @param defaultValue the value to return when key is not found
+     * @return the value that key maps to, or defaultValue
+     * @throws NullPointerException if key is null
+     */
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        Entry<KeyType, ValueType> e = find(table, key, spread(key));
+        return e == null ? defaultValue : e.value;
+    }
+
+    /**
+     * Remove the mapping for a key from this collection.
+     * @param key the key whose mapping to remove
+     * @return the value that the removed key mapped to
+     * @throws NoSuchElementException when key is not stored in this
+     *         collection
+     */
+    public ValueType remove(KeyType key) throws NoSuchElementException {
+        int hash = spread(key);
+        ReentrantLock lock = lockFor(hash);
+        try {
+            AtomicReferenceArray<Entry<KeyType, ValueType>> t = table;
+            int index = hash & (t.length() - 1);
+            Entry<KeyType, ValueType> head = t.get(index);
+            Entry<KeyType, ValueType> target = head;
+            while (target != null && !(target.hash == hash && target.key.equals(key))) {
+                target = target.next;
+            }
+            if (target == null) {
+                throw new NoSuchElementException("Key is not stored in this collection.");
+            }
+            // rebuild the part of the chain in front of target, so that
+            // readers already walking the old chain are not disturbed
+            Entry<KeyType, ValueType> newHead = target.next;
+            for (Entry<KeyType, ValueType> e = head; e != target; e = e.next) {
+                newHead = new Entry<>(e.key, e.hash, e.value, newHead);
+            }
+            t.set(index, newHead);
+            size.decrement();
+            return target.value;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all key,value pairs from this collection.
+     */
+    public void clear() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+        try {
+            AtomicReferenceArray<Entry<KeyType, ValueType>> t = table;
+            for (int i = 0; i < t.length(); i++) {
+                t.set(i, null);
+            }
+            size.reset();
+        } finally {
+            for (ReentrantLock lock : locks) {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Retrieves the number of keys stored in this collection. While other
+     * threads are writing, this is only an estimate.
+     * @return the number of keys stored in this collection
+     */
+    public int getSize() {
+        return (int) size.sum();
+    }
+
+    /**
+     * Retrieves this collection's capacity.
+     * @return the size of the underlying array for this collection
+     */
+    public int getCapacity() {
+        return table.length();
+    }
+
+    /**
+     * Retrieves a list of all keys in this hashtable. Keys added or removed
+     * by other threads while the list is being built may or may not appear.
+     * @return a list containing all keys in the hashtable
+     */
+    public List<KeyType> getKeys() {
+        List<KeyType> keyList = new ArrayList<>();
+        forEachKey(keyList::add);
+        return keyList;
+    }
+
+    /**
+     * Passes every key in this hashtable to action without locking. Keys
+     * added or removed by other threads during the walk may or may not be
+     * visited, but no key is visited twice.
+     * @param action the visitor to call with each key
+     */
+    public void forEachKey(Consumer<? super KeyType> action) {
+        AtomicReferenceArray<Entry<KeyType, ValueType>> t = table;
+        for (int i = 0; i < t.length(); i++) {
+            for (Entry<KeyType, ValueType> e = t.get(i); e != null; e = e.next) {
+                action.accept(e.key);
+            }
+        }
+    }
+
+    /**
+     * Retrieves a live view of this hashtable's keys. Each iterator walks the
+     * table that was current when it was created without locking, and unlike
+     * the other MapADTs, other threads may modify the map while it is in use.
+     * @return an iterable view of the keys in this hashtable
+     */
+    public Iterable<KeyType> keys() {
+        return () -> new Iterator<KeyType>() {
+            private final AtomicReferenceArray<Entry<KeyType, ValueType>> t = table;
+            private int bucket = -1;
+            private Entry<KeyType, ValueType> next = null;
+
+            public boolean hasNext() {
+                while (next == null && bucket + 1 < t.length()) {
+                    bucket++;
+                    next = t.get(bucket);
+                }
+                return next != null;
+            }
+
+            public KeyType next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more keys in this collection.");
+                }
+                KeyType key = next.key;
+                next = next.next;
+                return key;
+            }
+        };
+    }
+
+
+    // TESTERS
+    /**
+     * Test the single threaded behavior matches the other MapADTs
+     */
+    @Test
+    public void testSingleThreaded() {
+        ConcurrentHashtableMap<String, Integer> map = new ConcurrentHashtableMap<>(8);
+        assertEquals(16, map.getCapacity());
+        for (int i = 0; i < 100; i++) {
+            map.put("key" + i, i);
+        }
+        assertEquals(100, map.getSize());
+        assertEquals(42, map.get("key42"));
+        assertThrows(IllegalArgumentException.class, () -> map.put("key42", 0));
+        assertEquals(42, map.remove("key42"));
+        assertThrows(NoSuchElementException.class, () -> map.get("key42"));
+        assertEquals(-1, map.getOrDefault("key42", -1));
+        assertEquals(7, map.computeIfAbsent("key42", k -> 7));
+        assertTrue(map.getCapacity() >= 128);
+
+        map.clear();
+        assertEquals(0, map.getSize());
+        assertTrue(!map.containsKey("key1"));
+    }
+
+    /**
+     * Runs writer threads that insert and remove disjoint key ranges while
+     * reader threads continuously look up a set of keys that is never
+     * removed. Readers must always find those keys, even in the middle of
+     * resizes, and the final contents must match what the writers did.
+     */
+    @Test
+    public void testConcurrentStress() throws InterruptedException {
+        ConcurrentHashtableMap<Integer, Integer> map = new ConcurrentHashtableMap<>();
+        int stable = 1000;
+        int perWriter = 20_000;
+        int writers = 4;
+        int readers = 4;
+        for (int i = 0; i < stable; i++) {
+            map.put(-i - 1, i);
+        }
+
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            int base = w * perWriter;
+            threads.add(new Thread(() -> {
+                try {
+                    startSignal.await();
+                    for (int i = base; i < base + perWriter; i++) {
+                        map.put(i, i);
+                    }
+                    // remove every other key this writer added
+                    for (int i = base; i < base + perWriter; i += 2) {
+                        assertEquals(i, map.remove(i));
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+        for (int r = 0; r < readers; r++) {
+            threads.add(new Thread(() -> {
+                try {
+                    startSignal.await();
+                    for (int round = 0; round < 200; round++) {
+                        for (int i = 0; i < stable; i++) {
+                            assertEquals(i, map.get(-i - 1));
+                        }
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        startSignal.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty(), "worker failed: " + failures);
+        assertEquals(stable + writers * perWriter / 2, map.getSize());
+        assertEquals(map.getSize(), map.getKeys().size());
+        for (int i = 0; i < writers * perWriter; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(i));
+        }
+    }
+
+    /**
+     * Checks that racing computeIfAbsent calls agree on a single value per key
+     */
+    @Test
+    public void testConcurrentComputeIfAbsent() throws InterruptedException {
+        ConcurrentHashtableMap<Integer, Object> map = new ConcurrentHashtableMap<>();
+        int keys = 10_000;
+        Object[][] seen = new Object[4][keys];
+        Thread[] threads = new Thread[seen.length];
+        for (int t = 0; t < threads.length; t++) {
+            Object[] mine = seen[t];
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < keys; i++) {
+                    mine[i] = map.computeIfAbsent(i, k -> new Object());
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(keys, map.getSize());
+        for (int i = 0; i < keys; i++) {
+            for (int t = 1; t < seen.length; t++) {
+                assertSame(seen[0][i], seen[t][i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures how the throughput of ConcurrentHashtableMap scales with the
+ * number of threads sharing it. Each thread runs a read-mostly mix (90%
+ * lookups, 5% inserts, 5% removals) against one shared map for a fixed
+ * amount of time, similar to route queries hitting a shared node map while
+ * it is occasionally updated.
+ *
+ * Run with: java ConcurrentMapBenchmark [maxThreads] [secondsPerRun]
+ */
+public class ConcurrentMapBenchmark {
+
+    private static final int KEYS = 1_000_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2.0;
+
+        Integer[] keys = new Integer[2 * KEYS];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = i;
+        }
+
+        // warm up with a short run on all threads
+        run(keys, maxThreads, 0.5);
+
+        System.out.printf("%8s %14s %10s%n", "threads", "ops/s", "speedup");
+        double single = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            double throughput = run(keys, threads, seconds);
+            if (threads == 1) {
+                single = throughput;
+            }
+            System.out.printf("%8d %14.0f %10.2f%n", threads, throughput, throughput / single);
+            if (threads < maxThreads && threads * 2 > maxThreads) {
+                threads = maxThreads / 2;
+            }
+        }
+    }
+
+    /**
+     * Runs the workload on a freshly filled map with the provided number of
+     * threads.
+     * @return the total number of operations per second across all threads
+     */
+    private static double run(Integer[] keys, int threads, double seconds)
+            throws InterruptedException {
+        ConcurrentHashtableMap<Integer, Integer> map = new ConcurrentHashtableMap<>();
+        // the first half of the keys start out present
+        for (int i = 0; i < KEYS; i++) {
+            map.put(keys[i], i);
+        }
+
+        LongAdder operations = new LongAdder();
+        CountDownLatch startSignal = new CountDownLatch(1);
+        long duration = (long) (seconds * 1_000_000_000L);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            Thread worker = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                long count = 0;
+                try {
+                    startSignal.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long end = System.nanoTime() + duration;
+                while (System.nanoTime() < end) {
+                    // check the clock once per batch of operations
+                    for (int i = 0; i < 256; i++) {
+                        Integer key = keys[random.nextInt(keys.length)];
+                        int choice = random.nextInt(20);
+                        if (choice == 0) {
+                            map.putIfAbsent(key, 0);
+                        } else if (choice == 1) {
+                            if (map.containsKey(key)) {
+                                try {
+                                    map.remove(key);
+                                } catch (NoSuchElementException e) {
+                                    // another thread removed it first
+                                }
+                            }
+                        } else {
+                            map.getOrDefault(key, null);
+                        }
+                    }
+                    count += 256;
+                }
+                operations.add(count);
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        long start = System.nanoTime();
+        startSignal.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return operations.sum() * 1e9 / (System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,610 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A contraction hierarchy answers shortest path queries on a graph that
+ * doesn't change, by doing most of the work ahead of time. Nodes are ranked
+ * from least to most important, and contracted (set aside) in that order.
+ * Contracting a node adds a shortcut edge between each pair of its remaining
+ * neighbors whose shortest path runs through it, so paths between the nodes
+ * that remain keep their costs.
+ *
+ * Afterwards, every shortest path can be found by searching forward from
+ * the start and backward from the end, only ever following edges toward
+ * higher ranked nodes. Those searches meet at the path's highest ranked node
+ * after settling a tiny part of the graph. Each shortcut remembers the two
+ * edges it replaces, so found paths are unpacked into the original nodes.
+ *
+ * A hierarchy never changes once built, so any number of threads can query
+ * it at the same time.
+ */
+public class ContractionHierarchy<NodeType> {
+
+    // witness searches give up after settling this many nodes, and then add
+    // a shortcut that may not be needed, which costs space but not correctness
+    private static final int WITNESS_SETTLE_LIMIT = 200;
+
+    private final CompactGraph<NodeType> graph;
+    // every original and shortcut edge, by edge id; the children of an
+    // original edge are -1, and a shortcut's are the two edges it replaces
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private double[] edgeWeight;
+    private int[] edgeChild1;
+    private int[] edgeChild2;
+    private int edgeCount = 0;
+    private int shortcutCount = 0;
+    // the position of each node in the contraction order
+    private final int[] rank;
+    // the ids of the edges leaving each node toward higher ranked nodes, and
+    // entering each node from higher ranked nodes, in CSR form
+    private int[] upOffsets;
+    private int[] upEdges;
+    private int[] downOffsets;
+    private int[] downEdges;
+
+    /**
+     * Builds a contraction hierarchy over a compact graph, which it keeps
+     * for looking up nodes.
+     *
+     * @param graph the graph to answer queries about
+     */
+    public ContractionHierarchy(CompactGraph<NodeType> graph) {
+        this.graph = graph;
+        int n = graph.getNodeCount();
+        int capacity = Math.max(16, graph.getEdgeCount() * 2);
+        edgeFrom = new int[capacity];
+        edgeTo = new int[capacity];
+        edgeWeight = new double[capacity];
+        edgeChild1 = new int[capacity];
+        edgeChild2 = new int[capacity];
+        rank = new int[n];
+        new Builder().contractAll();
+        buildSearchGraphs();
+    }
+
+    /**
+     * Retrieves the number of shortcut edges added while contracting.
+     *
+     * @return the number of shortcuts
+     */
+    public int getShortcutCount() {
+        return shortcutCount;
+    }
+
+    /**
+     * Retrieves the compact graph this hierarchy was built over.
+     *
+     * @return the original graph
+     */
+    public CompactGraph<NodeType> getGraph() {
+        return graph;
+    }
+
+    private int addEdge(int from, int to, double weight, int child1, int child2) {
+        if (edgeCount == edgeFrom.length) {
+            int length = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, length);
+            edgeTo = Arrays.copyOf(edgeTo, length);
+            edgeWeight = Arrays.copyOf(edgeWeight, length);
+            edgeChild1 = Arrays.copyOf(edgeChild1, length);
+            edgeChild2 = Arrays.copyOf(edgeChild2, length);
+        }
+        edgeFrom[edgeCount] = from;
+        edgeTo[edgeCount] = to;
+        edgeWeight[edgeCount] = weight;
+        edgeChild1[edgeCount] = child1;
+        edgeChild2[edgeCount] = child2;
+        return edgeCount++;
+    }
+
+    /**
+     * The state needed only while contracting: each node's edges, which
+     * nodes are contracted, and reusable witness search bookkeeping.
+     */
+    private class Builder {
+        private final int n = rank.length;
+        private final int[][] out = new int[n][];
+        private final int[] outCount = new int[n];
+        private final int[][] in = new int[n][];
+        private final int[] inCount = new int[n];
+        private final boolean[] contracted = new boolean[n];
+        private final int[] contractedNeighbors = new int[n];
+        // one more than the highest level of any contracted neighbor
+        private final int[] level = new int[n];
+
+        // witness search state, reset through the list of touched nodes
+        private final double[] witnessCost = new double[n];
+        private final int[] touched = new int[n];
+        private int touchedCount = 0;
+        private final IndexedMinHeap witnessQueue = new IndexedMinHeap(n);
+
+        // shortcuts found by the last call to findShortcuts
+        private int[] shortcutFrom = new int[16];
+        private int[] shortcutTo = new int[16];
+        private double[] shortcutWeight = new double[16];
+        private int[] shortcutIn = new int[16];
+        private int[] shortcutOut = new int[16];
+        private int shortcuts = 0;
+
+        Builder() {
+            Arrays.fill(witnessCost, Double.POSITIVE_INFINITY);
+            for (int v = 0; v < n; v++) {
+                out[v] = new int[4];
+                in[v] = new int[4];
+            }
+            // copy the original edges, keeping only the cheapest between two nodes
+            for (int from = 0; from < n; from++) {
+                for (int e = graph.offsets[from]; e < graph.offsets[from + 1]; e++) {
+                    int to = graph.targets[e];
+                    if (to != from) {
+                        addOrLower(from, to, graph.weights[e], -1, -1);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds an edge from one node to another, or lowers the weight of the
+         * existing one when the new edge is cheaper.
+         *
+         * @return true if a new edge was added
+         */
+        private boolean addOrLower(int from, int to, double weight, int child1, int child2) {
+            for (int i = 0; i < outCount[from]; i++) {
+                int e = out[from][i];
+                if (edgeTo[e] == to) {
+                    if (weight < edgeWeight[e]) {
+                        edgeWeight[e] = weight;
+                        edgeChild1[e] = child1;
+                        edgeChild2[e] = child2;
+                    }
+                    return false;
+                }
+            }
+            int e = addEdge(from, to, weight, child1, child2);
+            if (outCount[from] == out[from].length) {
+                out[from] = Arrays.copyOf(out[from], outCount[from] * 2);
+            }
+            out[from][outCount[from]++] = e;
+            if (inCount[to] == in[to].length) {
+                in[to] = Arrays.copyOf(in[to], inCount[to] * 2);
+            }
+            in[to][inCount[to]++] = e;
+            return true;
+        }
+
+        /**
+         * Contracts every node, choosing next the node whose contraction adds
+         * the fewest shortcuts relative to the edges it removes. Penalties for
+         * neighbors already contracted, and for sitting above contracted
+         * nodes, keep the order spread evenly across the graph and the
+         * hierarchy shallow. Priorities only go stale when a neighbor is
+         * contracted, so each is recomputed lazily when it reaches the top.
+         */
+        void contractAll() {
+            IndexedMinHeap order = new IndexedMinHeap(n);
+            for (int v = 0; v < n; v++) {
+                order.addOrDecrease(v, priority(v));
+            }
+            int next = 0;
+            while (!order.isEmpty()) {
+                int v = order.removeMin();
+                double updated = priority(v);
+                if (!order.isEmpty() && updated > order.peekPriority()) {
+                    order.addOrDecrease(v, updated);
+                    continue;
+                }
+                // priority(v) just found the shortcuts that contracting v needs
+                for (int i = 0; i < shortcuts; i++) {
+                    if (addOrLower(shortcutFrom[i], shortcutTo[i], shortcutWeight[i],
+                            shortcutIn[i], shortcutOut[i])) {
+                        shortcutCount++;
+                    }
+                }
+                contracted[v] = true;
+                rank[v] = next++;
+                // v's edges leave the remaining graph, so later contractions
+                // don't scan past them
+                for (int i = 0; i < outCount[v]; i++) {
+                    int x = edgeTo[out[v][i]];
+                    contractedNeighbors[x]++;
+                    level[x] = Math.max(level[x], level[v] + 1);
+                    inCount[x] = removeEdge(in[x], inCount[x], out[v][i]);
+                }
+                for (int i = 0; i < inCount[v]; i++) {
+                    int u = edgeFrom[in[v][i]];
+                    contractedNeighbors[u]++;
+                    level[u] = Math.max(level[u], level[v] + 1);
+                    outCount[u] = removeEdge(out[u], outCount[u], in[v][i]);
+                }
+            }
+        }
+
+        /**
+         * Removes edge from the first count ids of edges, by moving the last
+         * one into its place.
+         *
+         * @return the new count
+         */
+        private int removeEdge(int[] edges, int count, int edge) {
+            for (int i = 0; i < count; i++) {
+                if (edges[i] == edge) {
+                    edges[i] = edges[count - 1];
+                    return count - 1;
+                }
+            }
+            return count;
+        }
+
+        private double priority(int v) {
+            findShortcuts(v);
+            int removed = 0;
+            for (int i = 0; i < outCount[v]; i++) {
+                if (!contracted[edgeTo[out[v][i]]]) {
+                    removed++;
+                }
+            }
+            for (int i = 0; i < inCount[v]; i++) {
+                if (!contracted[edgeFrom[in[v][i]]]) {
+                    removed++;
+                }
+            }
+            return 3 * (shortcuts - removed) + contractedNeighbors[v] + level[v];
+        }
+
+        /**
+         * Finds the shortcuts that contracting v needs: for each remaining
+         * u -> v -> x, one from u to x unless a witness path from u to x that
+         * avoids v is at least as cheap.
+         */
+        private void findShortcuts(int v) {
+            shortcuts = 0;
+            double maxOut = 0;
+            for (int j = 0; j < outCount[v]; j++) {
+                int e = out[v][j];
+                if (!contracted[edgeTo[e]]) {
+                    maxOut = Math.max(maxOut, edgeWeight[e]);
+                }
+            }
+            for (int i = 0; i < inCount[v]; i++) {
+                int inEdge = in[v][i];
+                int u = edgeFrom[inEdge];
+                if (contracted[u]) {
+                    continue;
+                }
+                witnessSearch(u, v, edgeWeight[inEdge] + maxOut);
+                for (int j = 0; j < outCount[v]; j++) {
+                    int outEdge = out[v][j];
+                    int x = edgeTo[outEdge];
+                    double viaV = edgeWeight[inEdge] + edgeWeight[outEdge];
+                    if (x != u && !contracted[x] && witnessCost[x] > viaV) {
+                        addShortcut(u, x, viaV, inEdge, outEdge);
+                    }
+                }
+                resetWitnessSearch();
+            }
+        }
+
+        private void addShortcut(int from, int to, double weight, int inEdge, int outEdge) {
+            if (shortcuts == shortcutFrom.length) {
+                int length = shortcuts * 2;
+                shortcutFrom = Arrays.copyOf(shortcutFrom, length);
+                shortcutTo = Arrays.copyOf(shortcutTo, length);
+                shortcutWeight = Arrays.copyOf(shortcutWeight, length);
+                shortcutIn = Arrays.copyOf(shortcutIn, length);
+                shortcutOut = Arrays.copyOf(shortcutOut, length);
+            }
+            shortcutFrom[shortcuts] = from;
+            shortcutTo[shortcuts] = to;
+            shortcutWeight[shortcuts] = weight;
+            shortcutIn[shortcuts] = inEdge;
+            shortcutOut[shortcuts] = outEdge;
+            shortcuts++;
+        }
+
+        /**
+         * Runs a limited Dijkstra search from source over the remaining nodes
+         * other than skip, leaving the costs it finds in witnessCost.
+         */
+        private void witnessSearch(int source, int skip, double maxCost) {
+            witnessCost[source] = 0;
+            touched[touchedCount++] = source;
+            witnessQueue.addOrDecrease(source, 0);
+            int settled = 0;
+            while (!witnessQueue.isEmpty() && witnessQueue.peekPriority() <= maxCost
+                    && settled++ < WITNESS_SETTLE_LIMIT) {
+                int current = witnessQueue.removeMin();
+                for (int i = 0; i < outCount[current]; i++) {
+                    int e = out[current][i];
+                    int next = edgeTo[e];
+                    if (next == skip || contracted[next]) {
+                        continue;
+                    }
+                    double nextCost = witnessCost[current] + edgeWeight[e];
+                    if (nextCost < witnessCost[next]) {
+                        if (witnessCost[next] == Double.POSITIVE_INFINITY) {
+                            touched[touchedCount++] = next;
+                        }
+                        witnessCost[next] = nextCost;
+                        witnessQueue.addOrDecrease(next, nextCost);
+                    }
+                }
+            }
+        }
+
+        private void resetWitnessSearch() {
+            for (int i = 0; i < touchedCount; i++) {
+                witnessCost[touched[i]] = Double.POSITIVE_INFINITY;
+            }
+            touchedCount = 0;
+            witnessQueue.clear();
+        }
+    }
+
+    /**
+     * Sorts every edge into the upward graph searched from starts, or the
+     * downward graph searched backward from ends, by the ranks of its nodes.
+     */
+    private void buildSearchGraphs() {
+        int n = rank.length;
+        upOffsets = new int[n + 1];
+        downOffsets = new int[n + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            if (rank[edgeTo[e]] > rank[edgeFrom[e]]) {
+                upOffsets[edgeFrom[e] + 1]++;
+            } else {
+                downOffsets[edgeTo[e] + 1]++;
+            }
+        }
+        for (int v = 0; v < n; v++) {
+            upOffsets[v + 1] += upOffsets[v];
+            downOffsets[v + 1] += downOffsets[v];
+        }
+        upEdges = new int[upOffsets[n]];
+        downEdges = new int[downOffsets[n]];
+        int[] upNext = Arrays.copyOf(upOffsets, n);
+        int[] downNext = Arrays.copyOf(downOffsets, n);
+        for (int e = 0; e < edgeCount; e++) {
+            if (rank[edgeTo[e]] > rank[edgeFrom[e]]) {
+                upEdges[upNext[edgeFrom[e]]++] = e;
+            } else {
+                downEdges[downNext[edgeTo[e]]++] = e;
+            }
+        }
+    }
+
+    /**
+     * Returns the nodes along the shortest path from start to end, together
+     * with the cost of each hop and the cumulative cost to each node.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the nodes and costs along this shortest path
+     * @throws NoSuchElementException if either the start or end node cannot
+     *         be found in the graph, or if there is no directed path from the
+     *         start node to the end node
+     */
+    public ShortestPath<NodeType> shortestPath(NodeType start, NodeType end) {
+        int s = graph.indexOf(start);
+        int t = graph.indexOf(end);
+        if (s == -1 || t == -1) {
+            throw new NoSuchElementException("Either start or end data do not correspond to a graph node.");
+        }
+
+        // both searches only touch a few nodes, so they keep sparse bookkeeping
+        IntDoubleMap forwardCost = new IntDoubleMap();
+        IntDoubleMap backwardCost = new IntDoubleMap();
+        IntIntMap forwardEdge = new IntIntMap();
+        IntIntMap backwardEdge = new IntIntMap();
+        PairHeap forwardQueue = new PairHeap();
+        PairHeap backwardQueue = new PairHeap();
+        forwardCost.put(s, 0);
+        backwardCost.put(t, 0);
+        forwardQueue.add(0, s);
+        backwardQueue.add(0, t);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meeting = -1;
+        while (true) {
+            boolean forwardOpen = !forwardQueue.isEmpty() && forwardQueue.peekCost() < best;
+            boolean backwardOpen = !backwardQueue.isEmpty() && backwardQueue.peekCost() < best;
+            if (!forwardOpen && !backwardOpen) {
+                break;
+            }
+            boolean forward = forwardOpen
+                    && (!backwardOpen || forwardQueue.peekCost() <= backwardQueue.peekCost());
+            PairHeap queue = forward ? forwardQueue : backwardQueue;
+            IntDoubleMap cost = forward ? forwardCost : backwardCost;
+            IntDoubleMap otherCost = forward ? backwardCost : forwardCost;
+            IntIntMap via = forward ? forwardEdge : backwardEdge;
+
+            int current = queue.peekNode();
+            double currentCost = queue.peekCost();
+            queue.remove();
+            if (currentCost > cost.get(current, Double.POSITIVE_INFINITY)) {
+                continue; // a stale copy of a node that was queued again
+            }
+            double joined = currentCost + otherCost.get(current, Double.POSITIVE_INFINITY);
+            if (joined < best) {
+                best = joined;
+                meeting = current;
+            }
+
+            // stall on demand: when an edge from a higher ranked node this
+            // search already reached gives a cheaper cost than current's, no
+            // shortest path runs up through current, so it isn't expanded
+            int[] offsets = forward ? downOffsets : upOffsets;
+            int[] edges = forward ? downEdges : upEdges;
+            boolean stalled = false;
+            for (int i = offsets[current]; i < offsets[current + 1] && !stalled; i++) {
+                int e = edges[i];
+                int higher = forward ? edgeFrom[e] : edgeTo[e];
+                stalled = cost.get(higher, Double.POSITIVE_INFINITY) + edgeWeight[e] < currentCost;
+            }
+            if (stalled) {
+                continue;
+            }
+
+            offsets = forward ? upOffsets : downOffsets;
+            edges = forward ? upEdges : downEdges;
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int e = edges[i];
+                int next = forward ? edgeTo[e] : edgeFrom[e];
+                double nextCost = currentCost + edgeWeight[e];
+                if (nextCost < cost.get(next, Double.POSITIVE_INFINITY)) {
+                    cost.put(next, nextCost);
+                    via.put(next, e);
+                    queue.add(nextCost, next);
+                }
+            }
+        }
+        if (meeting == -1) {
+            throw new NoSuchElementException("No path from start to end is found");
+        }
+
+        // collect the path's edges in order: up from the start to the
+        // meeting node, then from the meeting node down to the end
+        List<Integer> pathEdges = new ArrayList<>();
+        for (int v = meeting; v != s; v = edgeFrom[forwardEdge.get(v, -1)]) {
+            pathEdges.add(forwardEdge.get(v, -1));
+        }
+        Collections.reverse(pathEdges);
+        for (int v = meeting; v != t; v = edgeTo[backwardEdge.get(v, -1)]) {
+            pathEdges.add(backwardEdge.get(v, -1));
+        }
+        return unpack(s, pathEdges);
+    }
+
+    /**
+     * Replaces every shortcut along a path with the original edges it stands
+     * for, and returns the path through the original nodes.
+     */
+    private ShortestPath<NodeType> unpack(int start, List<Integer> pathEdges) {
+        List<NodeType> nodes = new ArrayList<>();
+        nodes.add(graph.dataAt(start));
+        double[] hops = new double[16];
+        int hopCount = 0;
+        int[] stack = new int[16];
+        for (int pathEdge : pathEdges) {
+            int top = 0;
+            stack[top++] = pathEdge;
+            while (top > 0) {
+                int e = stack[--top];
+                if (edgeChild1[e] == -1) {
+                    if (hopCount == hops.length) {
+                        hops = Arrays.copyOf(hops, hopCount * 2);
+                    }
+                    hops[hopCount++] = edgeWeight[e];
+                    nodes.add(graph.dataAt(edgeTo[e]));
+                } else {
+                    if (top + 2 > stack.length) {
+                        stack = Arrays.copyOf(stack, stack.length * 2);
+                    }
+                    // push the second half first, so the first half comes out first
+                    stack[top++] = edgeChild2[e];
+                    stack[top++] = edgeChild1[e];
+                }
+            }
+        }
+        return new ShortestPath<>(nodes, Arrays.copyOf(hops, hopCount));
+    }
+
+    /**
+     * Returns the list of data values from nodes along the shortest path
+     * from the node with the provided start value through the node with the
+     * provided end value.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return list of data item from node along this shortest path
+     * @throws NoSuchElementException if either the start or end node cannot
+     *         be found in the graph, or if there is no directed path from the
+     *         start node to the end node
+     */
+    public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+        return new ArrayList<>(shortestPath(start, end).getNodes());
+    }
+
+    /**
+     * Returns the cost of the path (sum over edge weights) of the shortest
+     * path from the node containing the start data to the node containing the
+     * end data.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException if either the start or end node cannot
+     *         be found in the graph, or if there is no directed path from the
+     *         start node to the end node
+     */
+    public double shortestPathCost(NodeType start, NodeType end) {
+        return shortestPath(start, end).getTotalCost();
+    }
+
+    /**
+     * A binary min heap of (cost, node) pairs stored in two parallel arrays.
+     * A node can be in the heap several times with different costs; the
+     * search skips the stale copies when they are removed. Unlike an
+     * IndexedMinHeap, its size depends only on how many nodes are queued,
+     * not on the size of the graph.
+     */
+    private static class PairHeap {
+        private double[] costs = new double[16];
+        private int[] nodes = new int[16];
+        private int size = 0;
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int peekNode() {
+            return nodes[0];
+        }
+
+        public double peekCost() {
+            return costs[0];
+        }
+
+        public void add(double cost, int node) {
+            if (size == costs.length) {
+                costs = Arrays.copyOf(costs, size * 2);
+                nodes = Arrays.copyOf(nodes, size * 2);
+            }
+            // sift the new pair up from the end
+            int i = size++;
+            while (i > 0 && costs[(i - 1) / 2] > cost) {
+                costs[i] = costs[(i - 1) / 2];
+                nodes[i] = nodes[(i - 1) / 2];
+                i = (i - 1) / 2;
+            }
+            costs[i] = cost;
+            nodes[i] = node;
+        }
+
+        public void remove() {
+            size--;
+            double cost = costs[size];
+            int node = nodes[size];
+            // sift the last pair down from the root
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && costs[child + 1] < costs[child]) {
+                    child++;
+                }
+                if (costs[child] >= cost) {
+                    break;
+                }
+                costs[i] = costs[child];
+                nodes[i] = nodes[child];
+                i = child;
+            }
+            costs[i] = cost;
+            nodes[i] = node;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Measures how long a contraction hierarchy takes to build, and how fast it
+ * answers shortest path queries compared to DijkstraGraph's own searches, on
+ * generated road networks of growing size. Plain grids, whose roads are all
+ * alike, have no hierarchy to exploit and need far more shortcuts.
+ *
+ * Run with: java ContractionHierarchyBenchmark [maxNodes]
+ * Sizes go from 10 thousand nodes up to maxNodes, 1 million by default,
+ * which needs a larger heap, e.g. -Xmx6g.
+ */
+public class ContractionHierarchyBenchmark {
+
+    // keeps the JIT from discarding queries whose results are never used
+    private static double sink = 0;
+
+    public static void main(String[] args) {
+        int maxNodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        for (int nodes = 10_000; nodes <= maxNodes; nodes *= 10) {
+            int side = (int) Math.round(Math.sqrt(nodes));
+            DijkstraGraph<Integer, Double> graph = DijkstraGraphBenchmark.roadGraph(side, side, 1);
+            System.out.printf("road grid %dx%d: %d nodes, %d edges%n",
+                    side, side, graph.getNodeCount(), graph.getEdgeCount());
+
+            double dijkstra = microsPerQuery(graph, side * side, 20);
+            long start = System.nanoTime();
+            ContractionHierarchy<Integer> hierarchy = graph.contract();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  contracted in %.1f s, adding %d shortcuts%n",
+                    seconds, hierarchy.getShortcutCount());
+            double contracted = microsPerQuery(graph, side * side, 2000);
+            System.out.printf("  dijkstra %10.1f us/query%n", dijkstra);
+            System.out.printf("  contracted %8.1f us/query%n", contracted);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Runs shortestPathData between random pairs of the nodes 0 to
+     * nodeCount-1, and returns the average time per query, after a warm up.
+     */
+    private static double microsPerQuery(DijkstraGraph<Integer, Double> graph, int nodeCount,
+            int queries) {
+        Random random = new Random(5);
+        for (int i = 0; i < queries / 4 + 1; i++) {
+            query(graph, nodeCount, random);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            query(graph, nodeCount, random);
+        }
+        return (System.nanoTime() - start) / 1000.0 / queries;
+    }
+
+    private static void query(DijkstraGraph<Integer, Double> graph, int nodeCount, Random random) {
+        try {
+            sink += graph.shortestPathData(random.nextInt(nodeCount), random.nextInt(nodeCount)).size();
+        } catch (NoSuchElementException e) {
+            // every road grid node can reach every other, so this doesn't happen
+        }
+    }
+}
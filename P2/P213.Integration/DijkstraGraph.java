@@ -6,11 +6,17 @@
 // Lecturer: Gary Dahl
 // Notes to Grader: <optional extra notes>
 
+import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * This class extends the BaseGraph data structure with additional methods for
@@ -54,11 +60,317 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
         }
     }
 
+    // a compact copy of this graph that searches run over while frozenAt
+    // still matches modCount, or null when the graph hasn't been frozen
+    protected CompactGraph<NodeType> frozen = null;
+    protected int frozenAt = 0;
+    // a contraction hierarchy that point to point searches use while
+    // contractedAt still matches modCount, or null when there isn't one
+    protected ContractionHierarchy<NodeType> contracted = null;
+    protected int contractedAt = 0;
+
+    /**
+     * What a search found out about each node id: the cost of the best known
+     * path to it from the search's start, and the id of the node before it
+     * on that path. The path to any node can be read backward through
+     * predecessors.
+     */
+    protected interface SearchResult {
+        /**
+         * @return the best known cost to the node with this id, or infinity
+         *         if the search didn't reach it
+         */
+        double cost(int id);
+
+        /**
+         * @return the id of the node before the node with this id on its
+         *         best known path, or -1 for the start and unreached nodes
+         */
+        int predecessor(int id);
+    }
+
+    /**
+     * The result of searching from one source node until every node it can
+     * reach is settled: the cost of the shortest path to each node id, and
+     * the predecessor of each node id on that path. Any path from the source
+     * can be read from a tree without searching again.
+     */
+    protected static class ShortestPathTree implements SearchResult {
+        private final double[] cost;
+        private final int[] predecessor;
+
+        public ShortestPathTree(double[] cost, int[] predecessor) {
+            this.cost = cost;
+            this.predecessor = predecessor;
+        }
+
+        public double cost(int id) {
+            return cost[id];
+        }
+
+        public int predecessor(int id) {
+            return predecessor[id];
+        }
+    }
+
+    /**
+     * The working state of a search over the linked nodes and edges: the
+     * best known cost to and predecessor of each node id, and the priority
+     * queue. Each thread reuses its own contexts from one search to the
+     * next, so a search allocates nothing once the arrays have grown to the
+     * graph's size. Rather than refilling the arrays, reset starts a new
+     * epoch, and any entry not stamped with the current epoch counts as
+     * unreached, so resetting takes constant time.
+     *
+     * A context only holds node ids, which searches turn back into nodes
+     * through nodesById, and no reference to the graph. A thread's context
+     * then never keeps the graph or any of its nodes alive, so once a graph
+     * is discarded its contexts are dropped from the threads that used it.
+     */
+    protected static class SearchContext implements SearchResult {
+        private double[] cost = new double[0];
+        private int[] predecessor = new int[0];
+        private int[] stamp = new int[0];
+        private int epoch = 0;
+        public final IndexedMinHeap queue = new IndexedMinHeap();
+        // the number of nodes settled by the search this context last ran
+        public int settledCount = 0;
+
+        /**
+         * Marks every node id below size as unreached, and empties the queue.
+         */
+        public void reset(int size) {
+            if (size > stamp.length) {
+                int length = Math.max(size, stamp.length * 2);
+                cost = new double[length];
+                predecessor = new int[length];
+                stamp = new int[length];
+                epoch = 0;
+            }
+            queue.clear();
+            settledCount = 0;
+            // start over with fresh stamps once the epoch wraps around
+            if (++epoch == 0) {
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+        }
+
+        public double cost(int id) {
+            return stamp[id] == epoch ? cost[id] : Double.POSITIVE_INFINITY;
+        }
+
+        public int predecessor(int id) {
+            return stamp[id] == epoch ? predecessor[id] : -1;
+        }
+
+        /**
+         * Records a new best known path to the node with this id, through
+         * the node with the predecessor id, or -1 for the start node.
+         */
+        public void reach(int id, double cost, int predecessor) {
+            this.stamp[id] = epoch;
+            this.cost[id] = cost;
+            this.predecessor[id] = predecessor;
+        }
+    }
+
+    // each thread's search state, for forward searches and for the backward
+    // half of bidirectional searches
+    protected final ThreadLocal<SearchContext> forwardContext =
+            ThreadLocal.withInitial(SearchContext::new);
+    protected final ThreadLocal<SearchContext> backwardContext =
+            ThreadLocal.withInitial(SearchContext::new);
+
+    // shortest path trees by source node, or null when caching is disabled,
+    // along with the modCount that the cached trees were computed at, which
+    // is only read or written while holding the cache's lock
+    protected volatile LruCache<Node, ShortestPathTree> pathCache = null;
+    protected int pathCacheAt = 0;
+
+    // whether point to point searches expand from both ends at once
+    protected boolean bidirectional = false;
+    // estimates the cost left to the end node of a forward search, or null
+    // when forward searches are plain Dijkstra searches
+    protected Heuristic<NodeType> heuristic = null;
+
     /**
      * Constructor that sets the map that the graph uses.
      */
     public DijkstraGraph() {
-        super(new HashtableMap<>());
+        super(new ProbingHashtableMap<>());
+    }
+
+    /**
+     * Constructor that sets the map that the graph uses, for example a
+     * ConcurrentHashtableMap when one graph's nodes are looked up by several
+     * threads at once.
+     *
+     * @param map the map the graph uses to map a data object to the node
+     *        object it is stored in
+     */
+    public DijkstraGraph(MapADT<NodeType, Node> map) {
+        super(map);
+    }
+
+    /**
+     * Compacts this graph into primitive arrays that shortestPathData and
+     * shortestPathCost search instead of the linked nodes and edges, which
+     * is much faster on large graphs. The graph can still be modified
+     * afterwards, but the first modification drops the compact copy, and
+     * searches go back to the linked representation until freeze is called
+     * again.
+     *
+     * @return the compact copy that searches now run over
+     */
+    public CompactGraph<NodeType> freeze() {
+        if (!isFrozen()) {
+            frozen = compact();
+            frozenAt = modCount;
+        }
+        return frozen;
+    }
+
+    /**
+     * Checks whether searches currently run over a compact copy of this graph.
+     *
+     * @return true if freeze has been called since the last modification
+     */
+    public boolean isFrozen() {
+        return frozen != null && frozenAt == modCount;
+    }
+
+    /**
+     * Builds a contraction hierarchy over this graph, which shortestPathData,
+     * shortestPathCost and shortestPath then use instead of searching, until
+     * the graph is next modified. Building takes far longer than one search,
+     * but each query afterwards only settles a few hundred nodes, which pays
+     * off when queries far outnumber modifications.
+     *
+     * @return the contraction hierarchy that queries now use
+     */
+    public ContractionHierarchy<NodeType> contract() {
+        if (!isContracted()) {
+            contracted = new ContractionHierarchy<>(isFrozen() ? frozen : compact());
+            contractedAt = modCount;
+        }
+        return contracted;
+    }
+
+    /**
+     * Checks whether point to point queries currently use a contraction
+     * hierarchy.
+     *
+     * @return true if contract has been called since the last modification
+     */
+    public boolean isContracted() {
+        return contracted != null && contractedAt == modCount;
+    }
+
+    /**
+     * Enables caching the shortest path trees from the most recently used
+     * source nodes, so that repeated queries from the same start answer
+     * without searching. Any modification to the graph empties the cache.
+     * Each tree holds a cost and a predecessor for every node in the graph.
+     * While the graph is frozen, searches run over its compact copy instead
+     * and don't use the cache. Threads that query the graph at once, while
+     * no thread modifies it, share the cache safely.
+     *
+     * @param capacity the most trees to cache, or 0 to disable caching
+     */
+    public void setPathCacheCapacity(int capacity) {
+        LruCache<Node, ShortestPathTree> cache = capacity > 0 ? new LruCache<>(capacity) : null;
+        if (cache != null) {
+            synchronized (cache) {
+                pathCacheAt = modCount;
+            }
+        }
+        pathCache = cache;
+    }
+
+    /**
+     * Retrieves the cache of shortest path trees, whose hit, miss and
+     * eviction counts show how well its capacity fits the queries being made.
+     *
+     * @return the path cache, or null if caching is disabled
+     */
+    public LruCache<?, ?> getPathCache() {
+        return pathCache;
+    }
+
+    /**
+     * Switches point to point searches between expanding forward from the
+     * start only, and expanding forward from the start and backward from the
+     * end at the same time. Both modes find equally short paths, but a
+     * bidirectional search usually settles far fewer nodes on large graphs.
+     * Cached path trees and a frozen graph's compact copy are still used
+     * before either kind of search.
+     *
+     * @param bidirectional true to search from both ends
+     */
+    public void setBidirectional(boolean bidirectional) {
+        this.bidirectional = bidirectional;
+    }
+
+    /**
+     * Sets the heuristic that forward point to point searches use to explore
+     * toward their end node first, which turns them into A* searches. Paths
+     * stay shortest as long as the heuristic never overestimates. Bidirectional
+     * searches, reachableWithin and cached path trees don't use it.
+     *
+     * @param heuristic the heuristic to use, or null for plain Dijkstra searches
+     */
+    public void setHeuristic(Heuristic<NodeType> heuristic) {
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Retrieves the number of nodes settled by the calling thread's most
+     * recent search over the linked nodes, counting both directions of a
+     * bidirectional search.
+     *
+     * @return the number of nodes the last search settled
+     */
+    public int getLastSettledCount() {
+        return forwardContext.get().settledCount;
+    }
+
+    /**
+     * Retrieves the shortest path tree from source, from the cache or by
+     * searching and caching it.
+     *
+     * @return the tree from source, or null if caching is disabled
+     */
+    private ShortestPathTree cachedTree(Node source) {
+        LruCache<Node, ShortestPathTree> cache = pathCache;
+        if (cache == null) {
+            return null;
+        }
+        ShortestPathTree tree;
+        synchronized (cache) {
+            // trees computed before the latest modification may be wrong
+            if (pathCacheAt != modCount) {
+                cache.clear();
+                pathCacheAt = modCount;
+            }
+            tree = cache.get(source);
+        }
+        if (tree == null) {
+            // search without holding the lock, so that threads missing on
+            // different sources search at the same time
+            SearchContext context = forwardContext.get();
+            settle(source, null, Double.POSITIVE_INFINITY, context, null);
+            // copy the search out of the context, which the next search reuses
+            double[] cost = new double[nextNodeId];
+            int[] predecessor = new int[nextNodeId];
+            for (int id = 0; id < nextNodeId; id++) {
+                cost[id] = context.cost(id);
+                predecessor[id] = context.predecessor(id);
+            }
+            tree = new ShortestPathTree(cost, predecessor);
+            cache.put(source, tree);
+        }
+        return tree;
     }
 
     /**
@@ -77,44 +389,331 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
      *                                correspond to a graph node
      */
     protected SearchNode computeShortestPath(NodeType start, NodeType end) {
-        // throw an exception if the given start or end node doesn't exist
-        if (!containsNode(start) || !containsNode(end)) {
+        Node endNode = requireNode(end);
+        return searchNodeChain(endNode, search(requireNode(start), endNode));
+    }
+
+    /**
+     * Looks up the node containing data.
+     *
+     * @throws NoSuchElementException if data does not correspond to a graph
+     *                                node
+     */
+    private Node requireNode(NodeType data) {
+        Node node = nodes.getOrDefault(data, null);
+        if (node == null) {
             throw new NoSuchElementException("Either start or end data do not correspond to a graph node.");
         }
-    
-        // create a priority queue and a visited set
-        PriorityQueue<SearchNode> priorityQueue = new PriorityQueue<>();
-        MapADT<Node, Integer> visited = new HashtableMap<>();
-    
+        return node;
+    }
+
+    /**
+     * Finds the shortest path from startNode to endNode, with a cached tree,
+     * a bidirectional search or a forward search, depending on the graph's
+     * settings. The result is only valid until this thread's next search.
+     *
+     * @param startNode the starting node for the path
+     * @param endNode   the destination node for the path
+     * @return a result whose predecessors lead from endNode back to startNode
+     * @throws NoSuchElementException when no path from start to end is found
+     */
+    protected SearchResult search(Node startNode, Node endNode) {
+        SearchResult result = cachedTree(startNode);
+        if (result == null) {
+            if (bidirectional) {
+                result = searchBidirectional(startNode, endNode);
+            } else {
+                result = forwardContext.get();
+                settle(startNode, endNode, Double.POSITIVE_INFINITY, (SearchContext) result, null);
+            }
+        }
+        if (result.cost(endNode.id) == Double.POSITIVE_INFINITY) {
+            throw new NoSuchElementException("No path from start to end is found");
+        }
+        return result;
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from startNode. Nodes are settled in order of
+     * increasing cost, until endNode is settled, the cheapest node left in
+     * the priority queue costs more than maxCost, or every node reachable
+     * from startNode has been settled.
+     *
+     * When a heuristic is set and there is an endNode, nodes are instead
+     * settled in order of their cost plus the heuristic's estimate of the
+     * cost left to endNode (A* search), and maxCost must be infinite. A node
+     * whose cost later improves is queued and settled again, so endNode's
+     * cost is still exact when the heuristic never overestimates.
+     *
+     * @param startNode the node to search from
+     * @param endNode   the node to stop at, or null to not stop early
+     * @param maxCost   the largest path cost to settle
+     * @param context   reset, then left holding the best known cost to and
+     *                  predecessor of each node id, where costs are final
+     *                  for settled nodes
+     * @param settled   if not null, the settled nodes are added to it in the
+     *                  order they are settled
+     * @return true if endNode was settled
+     */
+    protected boolean settle(Node startNode, Node endNode, double maxCost, SearchContext context,
+            List<Node> settled) {
+        context.reset(nextNodeId);
+        // each node is queued at most once, keyed by its best known cost
+        IndexedMinHeap queue = context.queue;
+
         // add the starting node to the priority queue
-        priorityQueue.add(new SearchNode(nodes.get(start), 0, null));
+        Heuristic<NodeType> estimate = endNode == null ? null : heuristic;
+        context.reach(startNode.id, 0, -1);
+        queue.addOrDecrease(startNode.id, 0);
 
-        // loop until the priority queue is empty
-        while (!priorityQueue.isEmpty()) {
-            // store the highest priority node
-            SearchNode current = priorityQueue.poll();        
+        // loop until the priority queue is empty, or only holds nodes past maxCost
+        while (!queue.isEmpty() && queue.peekPriority() <= maxCost) {
+            // the lowest cost node in the queue is settled: no shorter path to it exists
+            Node current = nodesById[queue.removeMin()];
+            context.settledCount++;
+            if (settled != null) {
+                settled.add(current);
+            }
 
-            // return the node if it is connected to the end node
-            if (current.node.data.equals(nodes.get(end).data)) {
-                return current;
+            // stop once the end node is settled
+            if (current == endNode) {
+                return true;
             }
 
-            // make sure the node is already visited
-            if (!visited.containsKey(current.node)) {
-                // put it into the visited set
-                visited.put(current.node, 0);
+            // loop through the nodes it points to
+            double currentCost = context.cost(current.id);
+            for (Edge e : current.edgesLeaving) {
+                int next = e.successor.id;
+                double nextCost = currentCost + e.data.doubleValue();
+                // only queue a neighbor when this path to it is shorter than the best known one
+                if (nextCost < context.cost(next)) {
+                    context.reach(next, nextCost, current.id);
+                    queue.addOrDecrease(next, estimate == null ? nextCost
+                            : nextCost + estimate.estimate(e.successor.data, endNode.data));
+                }
+            }
+        }
+        return false;
+    }
 
-                // loop through the nodes it points to
-                for (Edge e : current.node.edgesLeaving) {
-                    // add it to the priority queue
-                    SearchNode neighbor = new SearchNode(e.successor, e.data.doubleValue() + current.cost, current);
-                    priorityQueue.add(neighbor);
+    /**
+     * Searches forward from startNode along leaving edges and backward from
+     * endNode along entering edges, always expanding the side whose cheapest
+     * queued node is cheaper. Whenever an edge joins the two searches, the
+     * path through it is a candidate shortest path. Once the cheapest queued
+     * costs of the two sides add up to at least the best candidate, no
+     * shorter path can be found. The best candidate is then written into the
+     * forward search's result, with costs added up in path order the way a
+     * forward search would.
+     *
+     * @param startNode the starting node for the path
+     * @param endNode   the destination node for the path
+     * @return the forward search's result, whose predecessors lead from
+     *         endNode back to startNode
+     * @throws NoSuchElementException when no path from start to end is found
+     */
+    protected SearchResult searchBidirectional(Node startNode, Node endNode) {
+        // best known costs from the start, and to the end, of each node id,
+        // and the node before each node on its path from the start, or after
+        // it on its path to the end
+        SearchContext forwardSearch = forwardContext.get();
+        SearchContext backwardSearch = backwardContext.get();
+        forwardSearch.reset(nextNodeId);
+        backwardSearch.reset(nextNodeId);
+        forwardSearch.reach(startNode.id, 0, -1);
+        backwardSearch.reach(endNode.id, 0, -1);
+        forwardSearch.queue.addOrDecrease(startNode.id, 0);
+        backwardSearch.queue.addOrDecrease(endNode.id, 0);
+
+        // the cost of the best path found so far, and the node where it joins
+        double best = startNode == endNode ? 0 : Double.POSITIVE_INFINITY;
+        Node meeting = startNode == endNode ? startNode : null;
+
+        while (!forwardSearch.queue.isEmpty() && !backwardSearch.queue.isEmpty()
+                && forwardSearch.queue.peekPriority() + backwardSearch.queue.peekPriority() < best) {
+            boolean forward = forwardSearch.queue.peekPriority() <= backwardSearch.queue.peekPriority();
+            SearchContext search = forward ? forwardSearch : backwardSearch;
+            SearchContext other = forward ? backwardSearch : forwardSearch;
+
+            Node current = nodesById[search.queue.removeMin()];
+            double currentCost = search.cost(current.id);
+            forwardSearch.settledCount++;
+            for (Edge e : forward ? current.edgesLeaving : current.edgesEntering) {
+                Node neighbor = forward ? e.successor : e.predecessor;
+                int next = neighbor.id;
+                double nextCost = currentCost + e.data.doubleValue();
+                if (nextCost < search.cost(next)) {
+                    search.reach(next, nextCost, current.id);
+                    search.queue.addOrDecrease(next, nextCost);
+                }
+                // an edge into the other search's territory completes a path
+                if (nextCost + other.cost(next) < best) {
+                    best = nextCost + other.cost(next);
+                    meeting = neighbor;
                 }
             }
         }
+        if (meeting == null) {
+            throw new NoSuchElementException("No path from start to end is found");
+        }
 
-        // throw an exception if no path is found
-        throw new NoSuchElementException("No path from start to end is found");
+        // the meeting node's forward predecessors already lead to the start,
+        // so extend them along its backward links to the end
+        Node node = meeting;
+        for (Node next = predecessor(backwardSearch, node); next != null;
+                node = next, next = predecessor(backwardSearch, next)) {
+            forwardSearch.reach(next.id, forwardSearch.cost(node.id) + edgeWeight(node, next), node.id);
+        }
+        return forwardSearch;
+    }
+
+    /**
+     * Looks up the node before node on its best known path in result.
+     *
+     * @return that node, or null for the start and unreached nodes
+     */
+    private Node predecessor(SearchResult result, Node node) {
+        int id = result.predecessor(node.id);
+        return id < 0 ? null : nodesById[id];
+    }
+
+    /**
+     * Links together the SearchNodes along the shortest path to end, once a
+     * search has recorded each node's cost and predecessor by node id.
+     */
+    private SearchNode searchNodeChain(Node end, SearchResult result) {
+        List<Node> path = new ArrayList<>();
+        for (Node node = end; node != null; node = predecessor(result, node)) {
+            path.add(node);
+        }
+        SearchNode searchNode = null;
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            searchNode = new SearchNode(node, result.cost(node.id), searchNode);
+        }
+        return searchNode;
+    }
+
+    /**
+     * Returns the nodes along the shortest path from the node with the
+     * provided start value to the node with the provided end value, together
+     * with the cost of each hop and the cumulative cost to each node. This
+     * runs Dijkstra's algorithm once, and reads each hop's cost from the edge
+     * it follows.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the nodes and costs along this shortest path
+     * @throws NoSuchElementException when no path from start to end is found
+     *                                or when either start or end data do not
+     *                                correspond to a graph node
+     */
+    public ShortestPath<NodeType> shortestPath(NodeType start, NodeType end) {
+        if (isContracted()) {
+            return contracted.shortestPath(start, end);
+        }
+        if (isFrozen()) {
+            return frozen.shortestPath(start, end);
+        }
+        Node endNode = requireNode(end);
+        SearchResult result = search(requireNode(start), endNode);
+        int length = 0;
+        for (Node node = endNode; node != null; node = predecessor(result, node)) {
+            length++;
+        }
+
+        // collect the path's data and hop costs from end back to start
+        List<NodeType> data = new ArrayList<>(length);
+        double[] hopCosts = new double[length - 1];
+        int hop = length - 1;
+        for (Node node = endNode; node != null; node = predecessor(result, node)) {
+            data.add(node.data);
+            Node pred = predecessor(result, node);
+            if (pred != null) {
+                hopCosts[--hop] = edgeWeight(pred, node);
+            }
+        }
+        Collections.reverse(data);
+        return new ShortestPath<>(data, hopCosts);
+    }
+
+    /**
+     * Finds the weight of the edge from pred to succ, which must exist.
+     */
+    private double edgeWeight(Node pred, Node succ) {
+        Edge edge = findEdge(pred, succ);
+        if (edge == null) {
+            throw new NoSuchElementException("No edge from " + pred.data + " to " + succ.data);
+        }
+        return edge.data.doubleValue();
+    }
+
+    /**
+     * Returns the data values of every node that can be reached from the node
+     * with the provided start value along a path costing at most maxCost,
+     * including the start value itself, in order of increasing path cost.
+     * This runs Dijkstra's algorithm once from start, and stops as soon as
+     * the cheapest node left in the priority queue costs more than maxCost.
+     *
+     * @param start   the data item in the starting node
+     * @param maxCost the largest path cost to include
+     * @return list of data items from the nodes within maxCost of start
+     * @throws NoSuchElementException if start does not correspond to a graph
+     *                                node
+     */
+    public List<NodeType> reachableWithin(NodeType start, double maxCost) {
+        if (isFrozen()) {
+            return frozen.reachableWithin(start, maxCost);
+        }
+        Node startNode = nodes.getOrDefault(start, null);
+        if (startNode == null) {
+            throw new NoSuchElementException("Start data does not correspond to a graph node.");
+        }
+
+        List<Node> settled = new ArrayList<>();
+        settle(startNode, null, maxCost, forwardContext.get(), settled);
+        List<NodeType> within = new ArrayList<>(settled.size());
+        for (Node node : settled) {
+            within.add(node.data);
+        }
+        return within;
+    }
+
+    /**
+     * Computes the cost of the shortest path from every origin to every
+     * destination, with one search per origin spread across the common
+     * ForkJoinPool.
+     *
+     * @param origins      the data items in the nodes paths start at
+     * @param destinations the data items in the nodes paths end at
+     * @return matrix[i][j] is the cost of the shortest path from origin i to
+     *         destination j, which is infinite when there is no such path
+     * @throws NoSuchElementException if any origin or destination does not
+     *                                correspond to a graph node
+     */
+    public double[][] distanceMatrix(List<NodeType> origins, List<NodeType> destinations) {
+        return distanceMatrix(origins, destinations, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the cost of the shortest path from every origin to every
+     * destination, with one search per origin spread across the threads of
+     * pool. The searches run over a compact copy of the graph, so they never
+     * touch the linked nodes and edges: the frozen copy when there's an up to
+     * date one, or else a copy made for this call.
+     *
+     * @param origins      the data items in the nodes paths start at
+     * @param destinations the data items in the nodes paths end at
+     * @param pool         the threads to run the searches on
+     * @return matrix[i][j] is the cost of the shortest path from origin i to
+     *         destination j, which is infinite when there is no such path
+     * @throws NoSuchElementException if any origin or destination does not
+     *                                correspond to a graph node
+     */
+    public double[][] distanceMatrix(List<NodeType> origins, List<NodeType> destinations,
+            ForkJoinPool pool) {
+        CompactGraph<NodeType> snapshot = isFrozen() ? frozen : compact();
+        return snapshot.distanceMatrix(origins, destinations, pool);
     }
 
     /**
@@ -140,15 +739,23 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
         }
         
         try {
+            // use the contraction hierarchy or compact copy when there's an up to date one
+            if (isContracted()) {
+                return contracted.shortestPathData(start, end);
+            }
+            if (isFrozen()) {
+                return frozen.shortestPathData(start, end);
+            }
+
             // find the shortest path
-            SearchNode searchNode = computeShortestPath(start, end);
-            
-            // add those nodes to the list
-            while (searchNode != null) {
-                nodeList.add(searchNode.node.data);
-                searchNode = searchNode.predecessor;
-            }
-            
+            Node endNode = requireNode(end);
+            SearchResult result = search(requireNode(start), endNode);
+
+            // add its nodes to the list, from end back to start
+            for (Node node = endNode; node != null; node = predecessor(result, node)) {
+                nodeList.add(node.data);
+            }
+
             // reverse and return the list
             Collections.reverse(nodeList);
             return nodeList;
@@ -169,9 +776,438 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
      * @return the cost of the shortest path between these nodes
      */
     public double shortestPathCost(NodeType start, NodeType end) {
-        // get the cost of the shortest path through the searchNode returned by the helper method
-        SearchNode searchNode = computeShortestPath(start, end);
-        return searchNode.cost;
+        if (isContracted()) {
+            return contracted.shortestPathCost(start, end);
+        }
+        if (isFrozen()) {
+            return frozen.shortestPathCost(start, end);
+        }
+        // read the cost of the shortest path from the search's result
+        Node endNode = requireNode(end);
+        return search(requireNode(start), endNode).cost(endNode.id);
+    }
+
+    /**
+     * Builds the graph most of these tests search: nodes A to E, where E has
+     * no edges, and five edges between the others.
+     */
+    static DijkstraGraph<String, Double> sampleGraph() {
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+        for (String name : new String[] {"A", "B", "C", "D", "E"}) {
+            graph.insertNode(name);
+        }
+        graph.insertEdge("A", "B", 1.0);
+        graph.insertEdge("B", "C", 2.0);
+        graph.insertEdge("C", "D", 6.0);
+        graph.insertEdge("B", "D", 5.0);
+        graph.insertEdge("A", "C", 4.0);
+        return graph;
+    }
+
+    /**
+     * Test that a frozen DijkstraGraph searches its compact copy only until
+     * it is next modified
+     */
+    @Test
+    public void testFreezeUntilModified() {
+        DijkstraGraph<String, Double> graph = sampleGraph();
+        CompactGraph<String> compact = graph.freeze();
+        assertTrue(graph.isFrozen());
+        assertSame(compact, graph.freeze());
+        assertEquals(6.0, graph.shortestPathCost("A", "D"));
+        assertEquals(List.of(), graph.shortestPathData("A", "E"));
+
+        graph.insertEdge("A", "D", 2.5);
+        assertTrue(!graph.isFrozen());
+        assertEquals(2.5, graph.shortestPathCost("A", "D"));
+        // the old copy keeps the graph as it was when it was made
+        assertEquals(6.0, compact.shortestPathCost("A", "D"));
+
+        graph.freeze();
+        graph.removeEdge("A", "D");
+        assertTrue(!graph.isFrozen());
+        assertEquals(List.of("A", "B", "D"), graph.shortestPathData("A", "D"));
+    }
+
+    /**
+     * Test that reachableWithin lists exactly the nodes whose shortest path
+     * cost is within the budget, in order of cost
+     */
+    @Test
+    public void testReachableWithin() throws IOException {
+        DijkstraGraph<String, Double> graph = sampleGraph();
+        assertEquals(List.of("A", "B", "C"), graph.reachableWithin("A", 3.0));
+        assertEquals(List.of("A"), graph.reachableWithin("A", 0.5));
+        assertEquals(List.of("E"), graph.reachableWithin("E", 100));
+        assertThrows(NoSuchElementException.class, () -> graph.reachableWithin("F", 1));
+
+        DijkstraGraph<String, Double> campus = new DijkstraGraph<>();
+        new Backend(campus).loadGraphData("campus.dot");
+        String start = "Memorial Union";
+        List<String> expected = new ArrayList<>();
+        for (String node : campus.getAllNodes()) {
+            // some campus locations can't be reached at all
+            if (!campus.shortestPathData(start, node).isEmpty()
+                    && (node.equals(start) || campus.shortestPathCost(start, node) <= 500)) {
+                expected.add(node);
+            }
+        }
+        List<String> linked = campus.reachableWithin(start, 500);
+        assertEquals(expected.size(), linked.size());
+        assertTrue(linked.containsAll(expected));
+        for (int i = 1; i < linked.size(); i++) {
+            assertTrue(campus.shortestPathCost(start, linked.get(i - 1))
+                    <= campus.shortestPathCost(start, linked.get(i)));
+        }
+        campus.freeze();
+        assertEquals(linked, campus.reachableWithin(start, 500));
+    }
+
+    /**
+     * Test that shortestPath reports each hop's edge weight and the running
+     * total, the same way for the linked and compact graphs
+     */
+    @Test
+    public void testShortestPathCosts() {
+        DijkstraGraph<String, Double> graph = sampleGraph();
+        graph.insertEdge("A", "B", 0.1);
+        graph.insertEdge("B", "C", 0.2);
+        for (int round = 0; round < 2; round++) {
+            ShortestPath<String> path = graph.shortestPath("A", "D");
+            assertEquals(List.of("A", "B", "D"), path.getNodes());
+            assertEquals(List.of(0.1, 5.0), path.getHopCosts());
+            assertEquals(List.of(0.0, 0.1, 5.1), path.getCumulativeCosts());
+            assertEquals(graph.shortestPathCost("A", "D"), path.getTotalCost());
+
+            path = graph.shortestPath("A", "C");
+            assertEquals(List.of(0.1, 0.2), path.getHopCosts());
+            assertEquals(0.1 + 0.2, path.getTotalCost());
+
+            assertEquals(List.of("B"), graph.shortestPath("B", "B").getNodes());
+            assertEquals(List.of(), graph.shortestPath("B", "B").getHopCosts());
+            assertThrows(NoSuchElementException.class, () -> graph.shortestPath("D", "A"));
+            assertThrows(NoSuchElementException.class, () -> graph.shortestPath("A", "F"));
+            graph.freeze();
+        }
+    }
+
+    /**
+     * Test that cached shortest path trees answer repeated queries, are
+     * evicted least recently used first, and are dropped when the graph
+     * changes
+     */
+    @Test
+    public void testPathCache() {
+        DijkstraGraph<String, Double> graph = sampleGraph();
+        assertNull(graph.getPathCache());
+        graph.setPathCacheCapacity(2);
+        LruCache<?, ?> cache = graph.getPathCache();
+
+        assertEquals(List.of("A", "B", "C"), graph.shortestPathData("A", "C"));
+        assertEquals(6.0, graph.shortestPathCost("A", "D"));
+        assertEquals(List.of(2.0), graph.shortestPath("B", "C").getHopCosts());
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost("B", "A"));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+
+        // A is the least recently used source when C's tree is cached
+        graph.shortestPathCost("C", "D");
+        assertEquals(1, cache.getEvictions());
+        graph.shortestPathCost("A", "B");
+        assertEquals(4, cache.getMisses());
+
+        // modifying the graph empties the cache before the next query
+        graph.insertEdge("A", "D", 2.0);
+        assertEquals(2.0, graph.shortestPathCost("A", "D"));
+        assertEquals(5, cache.getMisses());
+        assertEquals(1, cache.getSize());
+        graph.removeNode("B");
+        assertEquals(List.of("A", "C"), graph.shortestPathData("A", "C"));
+        assertEquals(4.0, graph.shortestPathCost("A", "C"));
+        assertEquals(6, cache.getMisses());
+        assertEquals(3, cache.getHits());
+
+        graph.setPathCacheCapacity(0);
+        assertNull(graph.getPathCache());
+    }
+
+    /**
+     * Test that threads querying a graph at once share its path cache, and
+     * each see their own settled counts, without corrupting either
+     */
+    @Test
+    public void testPathCacheAcrossThreads() throws InterruptedException {
+        DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+        int size = 40;
+        for (int i = 0; i < size; i++) {
+            graph.insertNode(i);
+        }
+        for (int i = 0; i < size; i++) {
+            graph.insertEdge(i, (i + 1) % size, 1.0);
+            graph.insertEdge(i, (i + 7) % size, 5.0);
+        }
+        double[][] expected = new double[size][size];
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                expected[from][to] = graph.shortestPathCost(from, to);
+            }
+        }
+        // fewer cached trees than sources, so that threads keep evicting
+        graph.setPathCacheCapacity(4);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        Thread[] threads = new Thread[4];
+        int queries = 2_000;
+        for (int t = 0; t < threads.length; t++) {
+            Random random = new Random(t);
+            threads[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < queries; i++) {
+                        int from = random.nextInt(size);
+                        int to = random.nextInt(size);
+                        assertEquals(expected[from][to], graph.shortestPathCost(from, to));
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(List.of(), failures);
+        LruCache<?, ?> cache = graph.getPathCache();
+        assertEquals(threads.length * queries, cache.getHits() + cache.getMisses());
+        assertTrue(cache.getSize() <= 4);
+
+        // a thread's settled count is its own last search's
+        graph.setPathCacheCapacity(0);
+        graph.shortestPathCost(0, 1);
+        int settled = graph.getLastSettledCount();
+        Thread other = new Thread(() -> graph.shortestPathCost(0, size - 1));
+        other.start();
+        other.join();
+        assertEquals(settled, graph.getLastSettledCount());
+    }
+
+    /**
+     * Test that bidirectional searches find the same paths and costs as
+     * forward searches, while settling fewer nodes on a grid
+     */
+    @Test
+    public void testBidirectional() {
+        DijkstraGraph<String, Double> graph = sampleGraph();
+        graph.setBidirectional(true);
+        assertEquals(List.of("A", "B", "C"), graph.shortestPathData("A", "C"));
+        assertEquals(6.0, graph.shortestPathCost("A", "D"));
+        assertEquals(List.of("D"), graph.shortestPath("D", "D").getNodes());
+        assertEquals(List.of(), graph.shortestPathData("A", "E"));
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost("D", "A"));
+
+        DijkstraGraph<Integer, Double> grid = DijkstraGraphBenchmark.gridGraph(40, 40, 5);
+        Random random = new Random(9);
+        long forwardSettled = 0;
+        long bidirectionalSettled = 0;
+        for (int i = 0; i < 30; i++) {
+            int start = random.nextInt(1600);
+            int end = random.nextInt(1600);
+            grid.setBidirectional(false);
+            ShortestPath<Integer> forward = grid.shortestPath(start, end);
+            forwardSettled += grid.getLastSettledCount();
+            grid.setBidirectional(true);
+            ShortestPath<Integer> both = grid.shortestPath(start, end);
+            bidirectionalSettled += grid.getLastSettledCount();
+            assertEquals(forward.getNodes(), both.getNodes());
+            assertEquals(forward.getTotalCost(), both.getTotalCost());
+        }
+        assertTrue(bidirectionalSettled < forwardSettled);
+    }
+
+    /**
+     * Test that A* searches with landmark heuristics find paths exactly as
+     * cheap as Dijkstra's on campus.dot, while settling fewer nodes
+     */
+    @Test
+    public void testLandmarkAStar() throws IOException {
+        DijkstraGraph<String, Double> campus = new DijkstraGraph<>();
+        new Backend(campus).loadGraphData("campus.dot");
+        // cached trees would hide how many nodes each search settles
+        campus.setPathCacheCapacity(0);
+        LandmarkHeuristic<String> landmarks = new LandmarkHeuristic<>(campus.compact(), 4);
+        assertEquals(4, landmarks.getLandmarks().size());
+
+        List<String> locations = campus.getAllNodes();
+        long dijkstraSettled = 0;
+        long aStarSettled = 0;
+        for (int i = 0; i < locations.size(); i += 7) {
+            for (String end : locations) {
+                String start = locations.get(i);
+                assertEquals(0.0, landmarks.estimate(start, start));
+                campus.setHeuristic(null);
+                List<String> path = campus.shortestPathData(start, end);
+                if (path.isEmpty()) {
+                    campus.setHeuristic(landmarks);
+                    assertEquals(List.of(), campus.shortestPathData(start, end));
+                    continue;
+                }
+                double cost = campus.shortestPathCost(start, end);
+                dijkstraSettled += campus.getLastSettledCount();
+                assertTrue(landmarks.estimate(start, end) <= cost + 1e-9);
+
+                campus.setHeuristic(landmarks);
+                assertEquals(cost, campus.shortestPathCost(start, end), 1e-9);
+                aStarSettled += campus.getLastSettledCount();
+            }
+        }
+        assertTrue(aStarSettled < dijkstraSettled);
+    }
+
+    /**
+     * Test that a contraction hierarchy finds the same paths and costs as
+     * Dijkstra's algorithm, and that modifying the graph stops its use
+     */
+    @Test
+    public void testContractionHierarchy() throws IOException {
+        DijkstraGraph<String, Double> graph = sampleGraph();
+        ContractionHierarchy<String> hierarchy = graph.contract();
+        assertTrue(graph.isContracted());
+        assertSame(hierarchy, graph.contract());
+        assertEquals(List.of("A", "B", "C"), graph.shortestPathData("A", "C"));
+        assertEquals(List.of(1.0, 5.0), graph.shortestPath("A", "D").getHopCosts());
+        assertEquals(List.of("C"), graph.shortestPathData("C", "C"));
+        assertEquals(List.of(), graph.shortestPathData("A", "E"));
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost("D", "A"));
+        assertThrows(NoSuchElementException.class, () -> hierarchy.shortestPath("A", "F"));
+        graph.insertEdge("A", "D", 2.0);
+        assertTrue(!graph.isContracted());
+        assertEquals(2.0, graph.shortestPathCost("A", "D"));
+
+        // the campus map has some equally short paths, while the random
+        // weights of the generated graphs make their shortest paths unique
+        DijkstraGraph<String, Double> campus = new DijkstraGraph<>();
+        new Backend(campus).loadGraphData("campus.dot");
+        assertContractedMatches(campus, campus.getAllNodes(), 400, false);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 1600; i++) {
+            ids.add(i);
+        }
+        assertContractedMatches(DijkstraGraphBenchmark.gridGraph(40, 40, 4), ids, 300, true);
+        assertContractedMatches(DijkstraGraphBenchmark.randomGraph(1600, 3, 4), ids, 300, true);
+    }
+
+    /**
+     * Test that a distance matrix holds the same costs as separate searches,
+     * whatever the number of threads computing it
+     */
+    @Test
+    public void testDistanceMatrix() throws IOException {
+        DijkstraGraph<String, Double> graph = sampleGraph();
+        double[][] matrix = graph.distanceMatrix(List.of("A", "D", "A"), List.of("C", "D", "E", "C"));
+        assertArrayEquals(new double[] {3.0, 6.0, Double.POSITIVE_INFINITY, 3.0}, matrix[0]);
+        assertArrayEquals(new double[] {Double.POSITIVE_INFINITY, 0.0,
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY}, matrix[1]);
+        assertArrayEquals(matrix[0], matrix[2]);
+        assertEquals(0, graph.distanceMatrix(List.of(), List.of("A")).length);
+        assertThrows(NoSuchElementException.class, () -> graph.distanceMatrix(List.of("A"), List.of("F")));
+
+        DijkstraGraph<String, Double> campus = new DijkstraGraph<>();
+        new Backend(campus).loadGraphData("campus.dot");
+        List<String> nodes = campus.getAllNodes();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            matrix = campus.distanceMatrix(nodes, nodes, pool);
+        } finally {
+            pool.shutdown();
+        }
+        assertEquals(nodes.size(), matrix.length);
+        for (int i = 0; i < nodes.size(); i++) {
+            for (int j = 0; j < nodes.size(); j++) {
+                // some campus locations can't be reached at all
+                double expected = campus.shortestPathData(nodes.get(i), nodes.get(j)).isEmpty()
+                        ? Double.POSITIVE_INFINITY
+                        : i == j ? 0.0 : campus.shortestPathCost(nodes.get(i), nodes.get(j));
+                assertEquals(expected, matrix[i][j], 1e-9);
+            }
+        }
+        campus.freeze();
+        assertArrayEquals(matrix, campus.distanceMatrix(nodes, nodes));
+    }
+
+    /**
+     * Test that once its search state has grown to the graph's size, a
+     * repeated search over the linked graph allocates next to nothing
+     */
+    @Test
+    public void testSearchReusesContext() {
+        DijkstraGraph<Integer, Double> graph = DijkstraGraphBenchmark.gridGraph(30, 30, 5);
+        Random random = new Random(17);
+        // warm up so that the JIT has compiled the search
+        double total = 0;
+        for (int i = 0; i < 2000; i++) {
+            total += graph.shortestPathCost(random.nextInt(900), random.nextInt(900));
+        }
+        long before = DijkstraGraphBenchmark.allocatedBytes();
+        for (int i = 0; i < 200; i++) {
+            total += graph.shortestPathCost(random.nextInt(900), random.nextInt(900));
+        }
+        long bytesPerQuery = (DijkstraGraphBenchmark.allocatedBytes() - before) / 200;
+        // fresh arrays for 900 nodes would take more than 20 KB per query
+        assertTrue(bytesPerQuery < 256, bytesPerQuery + " bytes/query");
+        assertTrue(total > 0);
+
+        // searches reset their state, so one search can't leak into the next
+        graph.setBidirectional(true);
+        assertEquals(graph.compact().shortestPathCost(0, 899), graph.shortestPathCost(0, 899), 1e-9);
+        graph.setBidirectional(false);
+        assertEquals(graph.compact().shortestPathData(899, 0), graph.shortestPathData(899, 0));
+        assertEquals(graph.compact().shortestPath(3, 456).getHopCosts(),
+                graph.shortestPath(3, 456).getHopCosts());
+    }
+
+    /**
+     * Test that the search state a thread keeps doesn't hold on to a graph
+     * after it is discarded, or to nodes after they are removed
+     */
+    @Test
+    public void testContextsDontPinGraphs() throws InterruptedException {
+        DijkstraGraph<String, Double> graph = sampleGraph();
+        graph.setBidirectional(true);
+        assertEquals(List.of("A", "B", "D"), graph.shortestPathData("A", "D"));
+        graph.setBidirectional(false);
+        assertEquals(List.of("A", "B", "C"), graph.shortestPathData("A", "C"));
+        WeakReference<Object> removed = new WeakReference<>(graph.nodes.get("B"));
+        graph.removeNode("B");
+        assertEquals(List.of("A", "C", "D"), graph.shortestPathData("A", "D"));
+        WeakReference<Object> discarded = new WeakReference<>(graph);
+        graph = null;
+
+        // this thread lives on, along with the contexts it searched with
+        for (int i = 0; i < 50 && (removed.get() != null || discarded.get() != null); i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(removed.get());
+        assertNull(discarded.get());
+    }
+
+    private static <T> void assertContractedMatches(DijkstraGraph<T, Double> graph, List<T> nodes,
+            int queries, boolean uniquePaths) {
+        ContractionHierarchy<T> hierarchy = new ContractionHierarchy<>(graph.compact());
+        Random random = new Random(13);
+        for (int i = 0; i < queries; i++) {
+            T start = nodes.get(random.nextInt(nodes.size()));
+            T end = nodes.get(random.nextInt(nodes.size()));
+            List<T> expected = graph.shortestPathData(start, end);
+            if (expected.isEmpty()) {
+                assertThrows(NoSuchElementException.class, () -> hierarchy.shortestPath(start, end));
+                continue;
+            }
+            ShortestPath<T> path = hierarchy.shortestPath(start, end);
+            if (uniquePaths) {
+                assertEquals(expected, path.getNodes());
+            }
+            assertEquals(graph.shortestPathCost(start, end), path.getTotalCost(), 1e-9);
+        }
     }
 
 
@@ -0,0 +1,261 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Measures the cost of shortest path queries through DijkstraGraph, both on
+ * the campus map and on larger synthetic graphs. Each graph is measured in
+ * its linked form and again after freeze() has compacted it into arrays.
+ *
+ * Run with: java DijkstraGraphBenchmark [syntheticNodes] [denseNodes] [denseDegree] [gridSize]
+ * The default million node graph needs a larger heap, e.g. -Xmx4g.
+ */
+public class DijkstraGraphBenchmark {
+
+    // keeps the JIT from discarding queries whose results are never used
+    private static double sink = 0;
+
+    public static void main(String[] args) throws IOException {
+        int syntheticNodes = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        DijkstraGraph<String, Double> campus = new DijkstraGraph<>();
+        new Backend(campus).loadGraphData("campus.dot");
+        // measure searches, rather than reads from the Backend's path cache
+        campus.setPathCacheCapacity(0);
+        List<String> locations = campus.getAllNodes();
+        System.out.printf("campus.dot: %d nodes, %d edges%n",
+                campus.getNodeCount(), campus.getEdgeCount());
+        reportAllocation("campus.dot", campus, locations.toArray(new String[0]), 20_000);
+        compareSearchModes(campus, locations.toArray(new String[0]), 20_000);
+        campus.freeze();
+        reportAllocation("  compact", campus, locations.toArray(new String[0]), 20_000);
+
+        DijkstraGraph<Integer, Double> synthetic = randomGraph(syntheticNodes, 4, 1);
+        System.out.printf("synthetic: %d nodes, %d edges%n",
+                synthetic.getNodeCount(), synthetic.getEdgeCount());
+        Integer[] ids = integers(syntheticNodes);
+        reportAllocation("synthetic", synthetic, ids, 20);
+        long start = System.nanoTime();
+        synthetic.freeze();
+        System.out.printf("  freeze took %.1f ms%n", (System.nanoTime() - start) / 1e6);
+        reportAllocation("  compact", synthetic, ids, 20);
+        synthetic = null;
+
+        // dense graphs, where E is much larger than V, relax many edges per
+        // node that don't lead to a shorter path
+        int denseNodes = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int denseDegree = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        // every insertEdge first looks for an existing edge between its nodes
+        for (boolean indexEdges : new boolean[] {false, true, false, true}) {
+            start = System.nanoTime();
+            sink += randomGraph(denseNodes, denseDegree, 2, indexEdges).getEdgeCount();
+            System.out.printf("  built %s in %.1f ms%n", indexEdges ? "with edge index   " : "without edge index",
+                    (System.nanoTime() - start) / 1e6);
+        }
+        DijkstraGraph<Integer, Double> dense = randomGraph(denseNodes, denseDegree, 2);
+        System.out.printf("dense: %d nodes, %d edges%n", dense.getNodeCount(), dense.getEdgeCount());
+        reportAllocation("dense", dense, integers(denseNodes), 200);
+        dense.freeze();
+        reportAllocation("  compact", dense, integers(denseNodes), 200);
+        // removing every node is how graphs used to be emptied before reloading
+        start = System.nanoTime();
+        for (int i = 0; i < denseNodes; i++) {
+            dense.removeNode(i);
+        }
+        System.out.printf("  removing every node took %.1f ms%n", (System.nanoTime() - start) / 1e6);
+        dense = null;
+
+        // road-like grids, where bidirectional and A* searches settle far
+        // fewer nodes than a search that spreads out evenly from the start
+        int gridSize = args.length > 3 ? Integer.parseInt(args[3]) : 300;
+        DijkstraGraph<Integer, Double> grid = gridGraph(gridSize, gridSize, 3);
+        System.out.printf("grid: %d nodes, %d edges%n", grid.getNodeCount(), grid.getEdgeCount());
+        compareSearchModes(grid, integers(gridSize * gridSize), 50);
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Creates a graph of nodes 0 to nodeCount-1, where each node has edges
+     * to its successor (so that every query has a path) and to degree-1
+     * random other nodes, with random weights between 1 and 100.
+     */
+    public static DijkstraGraph<Integer, Double> randomGraph(int nodeCount, int degree, long seed) {
+        return randomGraph(nodeCount, degree, seed, false);
+    }
+
+    /**
+     * Creates the same graph as randomGraph(nodeCount, degree, seed), with
+     * its edge index turned on before any edge is inserted when indexEdges
+     * is true.
+     */
+    public static DijkstraGraph<Integer, Double> randomGraph(int nodeCount, int degree, long seed,
+            boolean indexEdges) {
+        Random random = new Random(seed);
+        DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+        graph.setEdgeIndexed(indexEdges);
+        for (int i = 0; i < nodeCount; i++) {
+            graph.insertNode(i);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            graph.insertEdge(i, (i + 1) % nodeCount, 1 + 99 * random.nextDouble());
+            for (int d = 1; d < degree; d++) {
+                graph.insertEdge(i, random.nextInt(nodeCount), 1 + 99 * random.nextDouble());
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Creates a width by height grid of nodes numbered row by row, where each
+     * node has edges to and from its horizontal and vertical neighbors with
+     * random weights between 1 and 2.
+     */
+    public static DijkstraGraph<Integer, Double> gridGraph(int width, int height, long seed) {
+        Random random = new Random(seed);
+        DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+        for (int i = 0; i < width * height; i++) {
+            graph.insertNode(i);
+        }
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int node = row * width + col;
+                if (col + 1 < width) {
+                    graph.insertEdge(node, node + 1, 1 + random.nextDouble());
+                    graph.insertEdge(node + 1, node, 1 + random.nextDouble());
+                }
+                if (row + 1 < height) {
+                    graph.insertEdge(node, node + width, 1 + random.nextDouble());
+                    graph.insertEdge(node + width, node, 1 + random.nextDouble());
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Creates a width by height grid like gridGraph's, but shaped like a road
+     * network: every 10th row and column is an arterial road that is three
+     * times faster to travel, and every 100th is a highway that is nine times
+     * faster. Weights vary randomly by up to 20% around those speeds.
+     */
+    public static DijkstraGraph<Integer, Double> roadGraph(int width, int height, long seed) {
+        Random random = new Random(seed);
+        DijkstraGraph<Integer, Double> graph = new DijkstraGraph<>();
+        for (int i = 0; i < width * height; i++) {
+            graph.insertNode(i);
+        }
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                int node = row * width + col;
+                if (col + 1 < width) {
+                    double speed = roadSpeed(row);
+                    graph.insertEdge(node, node + 1, (1 + 0.2 * random.nextDouble()) / speed);
+                    graph.insertEdge(node + 1, node, (1 + 0.2 * random.nextDouble()) / speed);
+                }
+                if (row + 1 < height) {
+                    double speed = roadSpeed(col);
+                    graph.insertEdge(node, node + width, (1 + 0.2 * random.nextDouble()) / speed);
+                    graph.insertEdge(node + width, node, (1 + 0.2 * random.nextDouble()) / speed);
+                }
+            }
+        }
+        return graph;
+    }
+
+    private static double roadSpeed(int line) {
+        return line % 100 == 0 ? 9 : line % 10 == 0 ? 3 : 1;
+    }
+
+    /**
+     * Runs random queries in the graph's current search mode, and prints the
+     * average number of nodes each settled and the time they took. Every
+     * call runs the same queries.
+     */
+    private static <T> void reportSettled(String name, DijkstraGraph<T, Double> graph, T[] nodes,
+            int queries) {
+        Random random = new Random(11);
+        long settled = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            query(graph, nodes, random);
+            settled += graph.getLastSettledCount();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-12s %12.0f settled/query %10.1f us/query%n",
+                name, (double) settled / queries, elapsed / 1000.0 / queries);
+    }
+
+    /**
+     * Reports how many nodes plain Dijkstra, bidirectional and A* searches
+     * with landmark heuristics settle for the same queries.
+     */
+    private static <T> void compareSearchModes(DijkstraGraph<T, Double> graph, T[] nodes,
+            int queries) {
+        reportSettled("  forward", graph, nodes, queries);
+        graph.setBidirectional(true);
+        reportSettled("  bidirect", graph, nodes, queries);
+        graph.setBidirectional(false);
+        CompactGraph<T> compact = graph.compact();
+        for (int landmarks : new int[] {4, 16}) {
+            long start = System.nanoTime();
+            graph.setHeuristic(new LandmarkHeuristic<>(compact, landmarks));
+            System.out.printf("  %d landmarks took %.1f ms to set up%n",
+                    landmarks, (System.nanoTime() - start) / 1e6);
+            reportSettled("  A* (ALT)", graph, nodes, queries);
+        }
+        graph.setHeuristic(null);
+    }
+
+    private static Integer[] integers(int count) {
+        Integer[] values = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    /**
+     * Runs shortestPathCost between random pairs of nodes and prints the
+     * average number of bytes allocated and time taken per query.
+     */
+    private static <T> void reportAllocation(String name, DijkstraGraph<T, Double> graph,
+            T[] nodes, int queries) {
+        Random random = new Random(7);
+        // warm up so that the JIT's own allocations aren't counted
+        for (int i = 0; i < Math.min(queries, 1000); i++) {
+            query(graph, nodes, random);
+        }
+
+        long bytesBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            query(graph, nodes, random);
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = allocatedBytes() - bytesBefore;
+        System.out.printf("%-12s %12.0f bytes/query %12.1f us/query%n",
+                name, (double) bytes / queries, elapsed / 1000.0 / queries);
+    }
+
+    private static <T> void query(DijkstraGraph<T, Double> graph, T[] nodes, Random random) {
+        T start = nodes[random.nextInt(nodes.length)];
+        T end = nodes[random.nextInt(nodes.length)];
+        try {
+            sink += graph.shortestPathCost(start, end);
+        } catch (NoSuchElementException e) {
+            // some campus locations can't reach each other
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far.
+     */
+    public static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Measures how the time to compute a many-to-many distance matrix scales
+ * with the number of threads searching, on a generated road network. Each
+ * matrix row is one search, so rows should finish about threads times
+ * faster, up to the number of cores.
+ *
+ * Run with: java DistanceMatrixBenchmark [size] [gridSide] [maxThreads]
+ * The matrix is size by size, 1000 by default, between random nodes of a
+ * gridSide by gridSide road grid, 300 by default. Thread counts double from
+ * 1 up to maxThreads, which defaults to the number of cores.
+ */
+public class DistanceMatrixBenchmark {
+
+    // keeps the JIT from discarding matrices whose results are never used
+    private static double sink = 0;
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int side = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+
+        DijkstraGraph<Integer, Double> graph = DijkstraGraphBenchmark.roadGraph(side, side, 1);
+        graph.freeze();
+        Random random = new Random(9);
+        List<Integer> origins = new ArrayList<>();
+        List<Integer> destinations = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            origins.add(random.nextInt(side * side));
+            destinations.add(random.nextInt(side * side));
+        }
+        System.out.printf("%dx%d matrix on a %dx%d road grid, %d cores%n",
+                size, size, side, side, Runtime.getRuntime().availableProcessors());
+
+        // warm up on a slice of the matrix
+        sink += graph.distanceMatrix(origins.subList(0, Math.min(size, 50)), destinations)[0][0];
+        double single = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long start = System.nanoTime();
+                double[][] matrix = graph.distanceMatrix(origins, destinations, pool);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                sink += matrix[size - 1][size - 1];
+                if (threads == 1) {
+                    single = seconds;
+                }
+                System.out.printf("  %3d threads %8.2f s  speedup %5.2fx%n",
+                        threads, seconds, single / seconds);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+}
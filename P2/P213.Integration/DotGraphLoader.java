@@ -0,0 +1,865 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reads the edges of a DOT file by scanning its bytes in large blocks read
+ * from a FileChannel, instead of decoding it into a String per line. The first line is
+ * the header, and every line after it up to the closing brace holds one
+ * edge, in the form
+ *
+ *     "pred" -> "succ" [seconds=weight];
+ *
+ * Each distinct node name is decoded into a String once and reused for all
+ * of its edges, and weights with up to 18 significant digits are parsed
+ * straight from the bytes. So apart from the graph itself, loading creates
+ * garbage in proportion to the number of distinct names, not edges.
+ *
+ * A large file can also be loaded on several threads, which each parse
+ * their own chunk of its lines before the chunks are merged in order.
+ */
+public class DotGraphLoader {
+
+    /**
+     * Receives each edge as it is read.
+     */
+    @FunctionalInterface
+    public interface EdgeConsumer {
+        void accept(String pred, String succ, double weight);
+    }
+
+    // the number of bytes read from the file at once, which grows if a
+    // single line is longer
+    private static final int BLOCK = 1 << 20;
+    // the smallest chunk that a file is split into when loaded in parallel
+    private static final long MIN_CHUNK = 1 << 22;
+
+    // the powers of ten that doubles hold exactly, and the powers of five
+    // up to the same exponent, which all fit in 52 bits
+    private static final double[] POWERS_OF_TEN = new double[23];
+    private static final long[] POWERS_OF_FIVE = new long[23];
+    static {
+        POWERS_OF_TEN[0] = 1;
+        POWERS_OF_FIVE[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+            POWERS_OF_FIVE[i] = POWERS_OF_FIVE[i - 1] * 5;
+        }
+    }
+
+    /**
+     * Inserts every edge in a DOT file, along with the nodes at its ends,
+     * into graph, in the order they appear in the file.
+     *
+     * @param filename the path to a dot file to read graph data from
+     * @param graph    the graph to insert the nodes and edges into
+     * @throws IOException              if the file is empty or can't be read
+     * @throws IllegalArgumentException if a line isn't an edge in the
+     *                                  expected form
+     */
+    public static void load(String filename, GraphADT<String, Double> graph) throws IOException {
+        read(filename, (pred, succ, weight) -> {
+            graph.insertNode(pred);
+            graph.insertNode(succ);
+            graph.insertEdge(pred, succ, weight);
+        });
+    }
+
+    /**
+     * Passes every edge in a DOT file to consumer, in the order they appear
+     * in the file. Edges between the same nodes get the same String objects.
+     *
+     * @param filename the path to a dot file to read graph data from
+     * @param consumer receives each edge
+     * @throws IOException              if the file is empty or can't be read
+     * @throws IllegalArgumentException if a line isn't an edge in the
+     *                                  expected form
+     */
+    public static void read(String filename, EdgeConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                throw new IOException("File is empty");
+            }
+            Parser parser = new Parser(true) {
+                @Override
+                void accept(int pred, int succ, double weight) {
+                    consumer.accept(names.name(pred), names.name(succ), weight);
+                }
+            };
+            parse(channel, 0, size, parser);
+        }
+    }
+
+    /**
+     * Inserts every edge in a DOT file into graph like load(filename, graph)
+     * does, but parses the file on pool's threads. The file is split into
+     * chunks of whole lines, and each chunk is parsed into arrays of edges
+     * between its own numbering of the names it contains. Then the chunks
+     * are merged in order into one EdgeList of all of the names, which,
+     * when graph is a BaseGraph, is inserted with insertEdges, linking edges
+     * on pool's threads too. Other graphs get each edge in order from this
+     * thread. Either way graph ends up the same as after load(filename,
+     * graph), except that it is left unchanged when a line can't be parsed.
+     *
+     * @param filename the path to a dot file to read graph data from
+     * @param graph    the graph to insert the nodes and edges into
+     * @param pool     the threads that parse the file and link its edges
+     * @throws IOException              if the file is empty or can't be read
+     * @throws IllegalArgumentException if a line isn't an edge in the
+     *                                  expected form
+     */
+    public static void load(String filename, GraphADT<String, Double> graph, ForkJoinPool pool)
+            throws IOException {
+        readEdges(filename, pool).insertInto(graph, pool);
+    }
+
+    /**
+     * Reads every edge in a DOT file on pool's threads, the way load(filename,
+     * graph, pool) does, but without putting them into a graph.
+     *
+     * @param filename the path to a dot file to read graph data from
+     * @param pool     the threads that parse the file
+     * @return the nodes in the order they first appear, and the edges in the
+     *         order they appear, up to the closing brace
+     * @throws IOException              if the file is empty or can't be read
+     * @throws IllegalArgumentException if a line isn't an edge in the
+     *                                  expected form
+     */
+    public static EdgeList readEdges(String filename, ForkJoinPool pool) throws IOException {
+        return readEdges(filename, pool, 0);
+    }
+
+    /**
+     * Reads the file in chunks of about chunkBytes bytes, or if chunkBytes
+     * is 0, in about four chunks per thread of pool and no smaller than
+     * MIN_CHUNK, since a chunk's names are merged one by one.
+     */
+    static EdgeList readEdges(String filename, ForkJoinPool pool, long chunkBytes)
+            throws IOException {
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) {
+                throw new IOException("File is empty");
+            }
+            if (chunkBytes <= 0) {
+                chunkBytes = Math.max(MIN_CHUNK, size / (4L * pool.getParallelism()) + 1);
+            }
+            for (long start = 0; start < size; ) {
+                long end = lineStart(channel, Math.min(size, start + chunkBytes), size);
+                chunks.add(new Chunk(channel, start, end));
+                start = end;
+            }
+            runAll(pool, chunks);
+        }
+
+        // keep the chunks up to the one holding the closing brace, and report
+        // the first line that failed with its line number in the whole file
+        int lines = 0;
+        int kept = 0;
+        int edges = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.failedLine != null) {
+                throw new IllegalArgumentException(
+                        failureMessage(lines + chunk.lineNumber, chunk.failedLine));
+            }
+            lines += chunk.lineNumber;
+            edges += chunk.count;
+            kept++;
+            if (chunk.done) {
+                break;
+            }
+        }
+
+        // number the names in the order they first appear in the file, which
+        // is the order each chunk numbered its own names in
+        Map<String, Integer> indexes = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        List<Callable<Object>> copies = new ArrayList<>();
+        int[] preds = new int[edges];
+        int[] succs = new int[edges];
+        Double[] weights = new Double[edges];
+        for (int k = 0, offset = 0; k < kept; k++) {
+            Chunk chunk = chunks.get(k);
+            int[] renumber = new int[chunk.names.size()];
+            for (int local = 0; local < renumber.length; local++) {
+                String name = chunk.names.name(local);
+                Integer index = indexes.putIfAbsent(name, names.size());
+                if (index == null) {
+                    index = names.size();
+                    names.add(name);
+                }
+                renumber[local] = index;
+            }
+            int from = offset;
+            copies.add(() -> {
+                for (int i = 0; i < chunk.count; i++) {
+                    preds[from + i] = renumber[chunk.preds[i]];
+                    succs[from + i] = renumber[chunk.succs[i]];
+                    weights[from + i] = chunk.weights[i];
+                }
+                return null;
+            });
+            offset += chunk.count;
+        }
+        runAll(pool, copies);
+        return new EdgeList(names, preds, succs, weights);
+    }
+
+    /**
+     * Runs every task on pool and waits for them all, passing on the first
+     * exception that one of them threw.
+     */
+    private static <T> void runAll(ForkJoinPool pool, List<? extends Callable<T>> tasks)
+            throws IOException {
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Finds where the line containing the byte before position ends.
+     *
+     * @return the position just after that line's newline, or size if it
+     *         has none
+     */
+    private static long lineStart(FileChannel channel, long position, long size)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (long from = position - 1; from < size; ) {
+            buffer.clear();
+            int read = channel.read(buffer, from);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return from + i + 1;
+                }
+            }
+            from += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses the lines of a file from position start up to end, which are
+     * the start of a line and the end of one or of the file, reading them in
+     * blocks. Reads at a position don't move the channel's own position, so
+     * different threads can parse different ranges of one channel.
+     */
+    private static void parse(FileChannel channel, long start, long end, Parser parser)
+            throws IOException {
+        byte[] block = new byte[(int) Math.min(BLOCK, Math.max(1, end - start))];
+        // the bytes of an incomplete line left over from the last block are
+        // moved to the front of the block, and filled counts the bytes read
+        // into it but not yet parsed
+        int filled = 0;
+        long position = start;
+        boolean last = false;
+        while (!last && !parser.done) {
+            if (filled == block.length) {
+                block = Arrays.copyOf(block, block.length * 2);
+            }
+            int wanted = (int) Math.min(block.length - filled, end - position);
+            int read = channel.read(ByteBuffer.wrap(block, filled, wanted), position);
+            if (read > 0) {
+                position += read;
+                filled += read;
+            }
+            last = read < 0 || position == end;
+            int consumed = parser.parseLines(block, 0, filled, last);
+            System.arraycopy(block, consumed, block, 0, filled - consumed);
+            filled -= consumed;
+        }
+    }
+
+    /**
+     * Parses lines of a DOT file from blocks of its bytes, keeping track of
+     * whether the header and closing brace have been read, and numbers the
+     * distinct names in the edges it passes on. Each line is parsed in one
+     * pass from its start to its newline.
+     */
+    abstract static class Parser {
+        final NameTable names = new NameTable();
+        boolean headerRead;
+        boolean done = false;
+        int lineNumber = 0;
+        // the text of the line that failed to parse, if one did
+        String failedLine = null;
+
+        /**
+         * @param header true if the first line parsed is the file's header
+         */
+        Parser(boolean header) {
+            this.headerRead = !header;
+        }
+
+        /**
+         * Receives each edge, with the numbers that names gave its nodes.
+         */
+        abstract void accept(int pred, int succ, double weight);
+
+        /**
+         * Parses the complete lines from position start up to end of buffer.
+         *
+         * @param last true if end is the end of the file, so that a line
+         *             without a newline at the end is still complete
+         * @return the number of bytes consumed, which stops short of end at
+         *         the start of an incomplete last line, or after the closing
+         *         brace
+         */
+        int parseLines(byte[] buffer, int start, int end, boolean last) {
+            int limit = end;
+            if (!last) {
+                while (limit > start && buffer[limit - 1] != '\n') {
+                    limit--;
+                }
+            }
+            int position = start;
+            while (position < limit && !done) {
+                lineNumber++;
+                position = parseLine(buffer, position, limit);
+            }
+            return position - start;
+        }
+
+        /**
+         * Parses the line starting at position start, which ends before limit.
+         *
+         * @return the position just after the line's newline
+         */
+        private int parseLine(byte[] buffer, int start, int limit) {
+            if (!headerRead) {
+                headerRead = true;
+                return skipLine(buffer, start, limit);
+            }
+            int i = start;
+            while (i < limit && isSpace(buffer[i])) {
+                i++;
+            }
+            if (i < limit && buffer[i] == '}') {
+                done = true;
+                return skipLine(buffer, i, limit);
+            }
+
+            // find the two quoted names, hashing each one as it is scanned
+            int predStart = expect(buffer, (byte) '"', i, start, limit) + 1;
+            int predHash = 0;
+            for (i = predStart; i < limit && buffer[i] != '"' && buffer[i] != '\n'; i++) {
+                predHash = 31 * predHash + buffer[i];
+            }
+            int predEnd = expect(buffer, (byte) '"', i, start, limit);
+            int succStart = expect(buffer, (byte) '"', predEnd + 1, start, limit) + 1;
+            int succHash = 0;
+            for (i = succStart; i < limit && buffer[i] != '"' && buffer[i] != '\n'; i++) {
+                succHash = 31 * succHash + buffer[i];
+            }
+            int succEnd = expect(buffer, (byte) '"', i, start, limit);
+
+            // then the weight between = and ]
+            int weightStart = expect(buffer, (byte) '=', succEnd + 1, start, limit) + 1;
+            int weightEnd = expect(buffer, (byte) ']', weightStart, start, limit);
+            double weight;
+            try {
+                weight = parseWeight(buffer, weightStart, weightEnd);
+            } catch (NumberFormatException e) {
+                throw failure(buffer, start, limit);
+            }
+            accept(names.intern(buffer, predStart, predEnd, predHash),
+                    names.intern(buffer, succStart, succEnd, succHash), weight);
+            return skipLine(buffer, weightEnd, limit);
+        }
+
+        /**
+         * @return the position of the first target byte from start, or of the
+         *         newline or limit that ends the line if there isn't one
+         */
+        private static int skipTo(byte[] buffer, byte target, int start, int limit) {
+            int i = start;
+            while (i < limit && buffer[i] != target && buffer[i] != '\n') {
+                i++;
+            }
+            return i;
+        }
+
+        /**
+         * Finds the first target byte from position from, on the line that
+         * starts at position start.
+         *
+         * @throws IllegalArgumentException if the line has no target byte
+         *                                  from position from on
+         */
+        private int expect(byte[] buffer, byte target, int from, int start, int limit) {
+            int i = skipTo(buffer, target, from, limit);
+            if (i == limit || buffer[i] != target) {
+                throw failure(buffer, start, limit);
+            }
+            return i;
+        }
+
+        /**
+         * @return the position just after the newline that ends the line
+         *         containing start, or limit if the line has no newline
+         */
+        private static int skipLine(byte[] buffer, int start, int limit) {
+            int i = skipTo(buffer, (byte) '\n', start, limit);
+            return i < limit ? i + 1 : limit;
+        }
+
+        private IllegalArgumentException failure(byte[] buffer, int start, int limit) {
+            int end = skipTo(buffer, (byte) '\n', start, limit);
+            while (end > start && isSpace(buffer[end - 1])) {
+                end--;
+            }
+            failedLine = new String(bytes(buffer, start, end), StandardCharsets.UTF_8);
+            return new IllegalArgumentException(failureMessage(lineNumber, failedLine));
+        }
+    }
+
+    private static String failureMessage(int lineNumber, String line) {
+        return "Failed to parse line " + lineNumber + ": " + line;
+    }
+
+    /**
+     * A range of a DOT file's lines, which parses itself into arrays of the
+     * edges in it, numbering their nodes by the order their names first
+     * appear in the range. A line that fails to parse ends the chunk, and is
+     * kept in failedLine to report once the chunks before it are counted.
+     */
+    private static class Chunk extends Parser implements Callable<Chunk> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        int[] preds = new int[64];
+        int[] succs = new int[64];
+        double[] weights = new double[64];
+        int count = 0;
+
+        Chunk(FileChannel channel, long start, long end) {
+            super(start == 0);
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        void accept(int pred, int succ, double weight) {
+            if (count == preds.length) {
+                preds = Arrays.copyOf(preds, count * 2);
+                succs = Arrays.copyOf(succs, count * 2);
+                weights = Arrays.copyOf(weights, count * 2);
+            }
+            preds[count] = pred;
+            succs[count] = succ;
+            weights[count] = weight;
+            count++;
+        }
+
+        @Override
+        public Chunk call() throws IOException {
+            try {
+                parse(channel, start, end, this);
+            } catch (IllegalArgumentException e) {
+                if (failedLine == null) {
+                    throw e;
+                }
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Parses the decimal number between positions start and end of buffer.
+     * Numbers without an exponent, and with at most 18 significant digits
+     * and 22 digits after the point, are parsed into an exact integer and a
+     * power of ten to divide it by, and correctly rounded without building a
+     * String. Other numbers go to Double.parseDouble.
+     *
+     * @throws NumberFormatException if the bytes are not a number
+     */
+    static double parseWeight(byte[] buffer, int start, int end) {
+        while (start < end && isSpace(buffer[start])) {
+            start++;
+        }
+        while (end > start && isSpace(buffer[end - 1])) {
+            end--;
+        }
+        int i = start;
+        boolean negative = i < end && buffer[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = buffer[i];
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && fractionDigits == -1) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+            if (digits > 18) {
+                break;
+            }
+        }
+        boolean anyDigits = i > start + (negative ? 1 : 0) + (fractionDigits >= 0 ? 1 : 0);
+        if (i == end && anyDigits && fractionDigits <= 22) {
+            int scale = Math.max(fractionDigits, 0);
+            // both operands are exact doubles when the mantissa fits in 53
+            // bits, so one division rounds correctly
+            double value = mantissa < 1L << 53 ? mantissa / POWERS_OF_TEN[scale]
+                    : divide(mantissa, scale);
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(new String(bytes(buffer, start, end), StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Divides a positive long by 10^scale, rounding the quotient to the
+     * nearest double (ties to even). Since 10^scale is 5^scale * 2^scale,
+     * this divides by 5^scale with long division, carrying on into binary
+     * places until the quotient has 56 or more bits, and then scales by
+     * 2^-scale. Every bit past the first 54 only matters as to whether it
+     * is zero, so it is folded into a sticky flag along with the remainder.
+     */
+    private static double divide(long dividend, int scale) {
+        long divisor = POWERS_OF_FIVE[scale];
+        int places = Math.max(0, 56 - (Long.numberOfLeadingZeros(divisor) - Long.numberOfLeadingZeros(dividend)));
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        // remainder < divisor, so shifting it this far can't overflow
+        int step = Long.numberOfLeadingZeros(divisor) - 1;
+        for (int left = places; left > 0; left -= step) {
+            int bits = Math.min(step, left);
+            remainder <<= bits;
+            quotient = (quotient << bits) | (remainder / divisor);
+            remainder %= divisor;
+        }
+
+        // keep 53 bits and a rounding bit
+        int extra = 64 - Long.numberOfLeadingZeros(quotient) - 54;
+        boolean sticky = remainder != 0 || (quotient & ((1L << extra) - 1)) != 0;
+        quotient >>>= extra;
+        long significand = quotient >>> 1;
+        if ((quotient & 1) != 0 && (sticky || (significand & 1) != 0)) {
+            significand++;
+        }
+        return Math.scalb((double) significand, extra + 1 - places - scale);
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static byte[] bytes(byte[] buffer, int start, int end) {
+        return Arrays.copyOfRange(buffer, start, end);
+    }
+
+    /**
+     * Numbers each distinct node name read so far, in the order they first
+     * appear, and keeps the String decoded from its bytes, so that a name is
+     * decoded once however many edges it has.
+     */
+    static class NameTable {
+        private int[] hashes = new int[64];
+        private byte[][] keys = new byte[64][];
+        // the number of the name in each slot
+        private int[] numbers = new int[64];
+        private String[] names = new String[32];
+        private int size = 0;
+
+        /**
+         * Finds the number of the name between positions start and end of
+         * buffer, decoding and adding it if it hasn't been seen before.
+         *
+         * @param hash 31 * hash + b over each byte b of the name, from 0
+         */
+        int intern(byte[] buffer, int start, int end, int hash) {
+            int mask = keys.length - 1;
+            int slot = home(hash, mask);
+            while (keys[slot] != null) {
+                if (hashes[slot] == hash && matches(keys[slot], buffer, start, end)) {
+                    return numbers[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] key = bytes(buffer, start, end);
+            if (size == names.length) {
+                names = Arrays.copyOf(names, size * 2);
+            }
+            names[size] = new String(key, StandardCharsets.UTF_8);
+            hashes[slot] = hash;
+            keys[slot] = key;
+            numbers[slot] = size;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return size - 1;
+        }
+
+        /**
+         * @return the name that intern numbered number
+         */
+        String name(int number) {
+            return names[number];
+        }
+
+        /**
+         * @return the number of distinct names
+         */
+        int size() {
+            return size;
+        }
+
+        /**
+         * Mixes the bits of hash, since names that differ only in their last
+         * character have consecutive hashes that would fill a run of slots.
+         */
+        private static int home(int hash, int mask) {
+            int h = hash * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        private static boolean matches(byte[] key, byte[] buffer, int start, int end) {
+            if (key.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buffer[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void resize() {
+            int[] oldHashes = hashes;
+            byte[][] oldKeys = keys;
+            int[] oldNumbers = numbers;
+            hashes = new int[oldKeys.length * 2];
+            keys = new byte[oldKeys.length * 2][];
+            numbers = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    int slot = home(oldHashes[i], mask);
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    hashes[slot] = oldHashes[i];
+                    keys[slot] = oldKeys[i];
+                    numbers[slot] = oldNumbers[i];
+                }
+            }
+        }
+    }
+
+
+    // TESTERS
+    /**
+     * Test that every campus edge is read with the same names and weight as
+     * a regular expression and Double.parseDouble find on its line
+     */
+    @Test
+    public void testReadMatchesText() throws IOException {
+        Pattern edge = Pattern.compile("\"(.*?)\" -> \"(.*?)\" \\[seconds=(.*?)\\];");
+        List<String> expected = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get("campus.dot"))) {
+            Matcher matcher = edge.matcher(line);
+            if (matcher.find()) {
+                expected.add(matcher.group(1) + "|" + matcher.group(2) + "|"
+                        + Double.parseDouble(matcher.group(3)));
+            }
+        }
+        List<String> actual = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        read("campus.dot", (pred, succ, weight) -> {
+            actual.add(pred + "|" + succ + "|" + weight);
+            names.add(pred);
+        });
+        assertEquals(800, expected.size());
+        assertEquals(expected, actual);
+        // every edge from the same location shares one String
+        assertSame(names.get(0), names.get(1));
+    }
+
+    /**
+     * Test the forms of line and weight the parser accepts, and that it
+     * rejects empty files and lines that aren't edges
+     */
+    @Test
+    public void testFormatsAndErrors() throws IOException {
+        Path file = Files.createTempFile("loader", ".dot");
+        try {
+            Files.write(file, ("digraph test {\r\n\t\"a\" -> \"b\" [seconds=1e3];\r\n"
+                    + "  \"b\" -> \"a\"[seconds= 0.1 ];\r\n\"a\" -> \"c\" [seconds=7]; \r\n"
+                    + "\"c\" -> \"\u00e9\" [seconds=.25];\r\n  }\r\n\"ignored\" -> \"x\" [seconds=1];")
+                    .getBytes(StandardCharsets.UTF_8));
+            List<String> edges = new ArrayList<>();
+            read(file.toString(), (pred, succ, weight) -> edges.add(pred + succ + weight));
+            assertEquals(List.of("ab1000.0", "ba0.1", "ac7.0", "c\u00e90.25"), edges);
+
+            DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+            load(file.toString(), graph);
+            assertEquals(4, graph.getNodeCount());
+            assertEquals(7.25, graph.shortestPathCost("a", "\u00e9"));
+
+            // a missing closing brace and final newline are fine
+            Files.write(file, "digraph test {\n\"a\" -> \"b\" [seconds=2.5];".getBytes(StandardCharsets.UTF_8));
+            edges.clear();
+            read(file.toString(), (pred, succ, weight) -> edges.add(pred + succ + weight));
+            assertEquals(List.of("ab2.5"), edges);
+
+            Files.write(file, "digraph test {\n\"a\" -> \"b\" [seconds=2.5.1];\n}".getBytes(StandardCharsets.UTF_8));
+            assertThrows(IllegalArgumentException.class, () -> read(file.toString(), (p, s, w) -> { }));
+            Files.write(file, "digraph test {\n\"a\" -> b [seconds=1];\n}".getBytes(StandardCharsets.UTF_8));
+            assertThrows(IllegalArgumentException.class, () -> read(file.toString(), (p, s, w) -> { }));
+            Files.write(file, ("digraph test {\n\"a\" -> \"b\" [seconds=abc];\n}").getBytes(StandardCharsets.UTF_8));
+            assertThrows(IllegalArgumentException.class, () -> read(file.toString(), (p, s, w) -> { }));
+            Files.write(file, new byte[0]);
+            assertThrows(IOException.class, () -> read(file.toString(), (p, s, w) -> { }));
+        } finally {
+            Files.delete(file);
+        }
+        assertThrows(IOException.class, () -> read("illinois.dot", (p, s, w) -> { }));
+    }
+
+    /**
+     * Test that loading in chunks on several threads builds the same graph as
+     * loading line by line, down to the order of every edge list, however
+     * the file is split, and reports the same failures
+     */
+    @Test
+    public void testParallelLoad() throws IOException {
+        Path file = Files.createTempFile("loader", ".dot");
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            // 3000 edges between 60 nodes repeat many pairs, whose last
+            // weight has to win
+            DotLoaderBenchmark.writeGraph(file, 3000, 60, 4);
+            for (String filename : List.of(file.toString(), "campus.dot")) {
+                DijkstraGraph<String, Double> expected = new DijkstraGraph<>();
+                load(filename, expected);
+                for (long chunkBytes : new long[] {1, 100, 4096, 0}) {
+                    DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+                    readEdges(filename, pool, chunkBytes).insertInto(graph, pool);
+                    assertEquals(describe(expected), describe(graph));
+                    assertEquals(expected.getEdgeCount(), graph.getEdgeCount());
+                }
+            }
+
+            // lines after the closing brace are ignored even in later chunks,
+            // and a failure is numbered by its line in the whole file
+            Files.write(file, "digraph test {\n\"a\" -> \"b\" [seconds=1];\n}\nnot an edge\n"
+                    .getBytes(StandardCharsets.UTF_8));
+            DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+            readEdges(file.toString(), pool, 1).insertInto(graph, pool);
+            assertEquals(1, graph.getEdgeCount());
+            Files.write(file, "digraph test {\n\"a\" -> \"b\" [seconds=1];\n\"b\" -> \"c\" [seconds=x];\n}"
+                    .getBytes(StandardCharsets.UTF_8));
+            IllegalArgumentException expected = assertThrows(IllegalArgumentException.class,
+                    () -> load(file.toString(), new DijkstraGraph<>()));
+            IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class,
+                    () -> readEdges(file.toString(), pool, 1));
+            assertEquals(expected.getMessage(), thrown.getMessage());
+            assertEquals(1, graph.getEdgeCount());
+            Files.write(file, new byte[0]);
+            assertThrows(IOException.class, () -> load(file.toString(), graph, pool));
+        } finally {
+            pool.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Lists every node of graph with its id and both of its edge lists, in
+     * their order.
+     */
+    private static String describe(DijkstraGraph<String, Double> graph) {
+        StringBuilder text = new StringBuilder();
+        for (String name : graph.getAllNodes()) {
+            var node = graph.nodes.get(name);
+            text.append(name).append('#').append(node.id).append(':');
+            for (var edge : node.edgesLeaving) {
+                text.append(' ').append(edge.successor.data).append('=').append(edge.data);
+            }
+            text.append(" |");
+            for (var edge : node.edgesEntering) {
+                text.append(' ').append(edge.predecessor.data);
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Test that weights parsed straight from bytes are the same doubles that
+     * Double.parseDouble finds, including 16 to 18 digit weights that need
+     * rounding and halfway cases that round to even
+     */
+    @Test
+    public void testParseWeight() {
+        List<String> weights = new ArrayList<>(List.of("0", "0.0", "7", "1.5", "-2.25", "156.49999999999997",
+                "9007199254740993", "9007199254740995", "900719925474099.35", "0.1", ".5", "5.",
+                "123456789012345678", "0.000000000000000000001", "99999999999999999.9", "1e3", "12345678901234567890"));
+        Random random = new Random(11);
+        for (int i = 0; i < 200_000; i++) {
+            // a random significand of 1 to 18 digits, with the point anywhere
+            String digits = Long.toString(random.nextLong() >>> 1);
+            digits = digits.substring(0, 1 + random.nextInt(Math.min(18, digits.length())));
+            int point = random.nextInt(digits.length() + 1);
+            weights.add(digits.substring(0, point) + "." + digits.substring(point));
+        }
+        for (String weight : weights) {
+            byte[] bytes = weight.getBytes(StandardCharsets.US_ASCII);
+            assertEquals(Double.parseDouble(weight), parseWeight(bytes, 0, bytes.length), 0.0, weight);
+        }
+        assertThrows(NumberFormatException.class, () -> parseWeight(new byte[] {'.'}, 0, 1));
+        assertThrows(NumberFormatException.class, () -> parseWeight(new byte[] {'-'}, 0, 1));
+    }
+}
@@ -0,0 +1,156 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares reading a large generated DOT file with DotGraphLoader against
+ * the line by line reader that Backend used before it, both on their own
+ * and while inserting into a DijkstraGraph. Reading the file's raw bytes
+ * sets the pace that a loader running at disk bandwidth would keep. Then
+ * DotGraphLoader loads the graph in parallel with thread counts doubling
+ * from 1 up to maxThreads.
+ *
+ * Run with: java DotLoaderBenchmark [edges] [nodes] [maxThreads]
+ * The file has 5 million edges between 100 thousand locations by default,
+ * and maxThreads defaults to the number of cores.
+ * Loading the graph as well as reading needs a larger heap, e.g. -Xmx4g.
+ */
+public class DotLoaderBenchmark {
+
+    // keeps the JIT from discarding reads whose results are never used
+    private static double sink = 0;
+
+    public static void main(String[] args) throws IOException {
+        int edges = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int nodes = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+        Path file = Files.createTempFile("benchmark", ".dot");
+        try {
+            writeGraph(file, edges, nodes, 1);
+            double megabytes = Files.size(file) / 1e6;
+            System.out.printf("%d edges between %d nodes: %.0f MB%n", edges, nodes, megabytes);
+
+            for (int round = 0; round < 2; round++) {
+                long start = System.nanoTime();
+                long bytes = DijkstraGraphBenchmark.allocatedBytes();
+                readBytes(file);
+                report("raw bytes", start, bytes, megabytes);
+
+                start = System.nanoTime();
+                bytes = DijkstraGraphBenchmark.allocatedBytes();
+                readLines(file.toString(), null);
+                report("line reader", start, bytes, megabytes);
+
+                start = System.nanoTime();
+                bytes = DijkstraGraphBenchmark.allocatedBytes();
+                DotGraphLoader.read(file.toString(), (pred, succ, weight) -> sink += weight);
+                report("DotGraphLoader", start, bytes, megabytes);
+            }
+
+            DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+            long start = System.nanoTime();
+            readLines(file.toString(), graph);
+            report("line reader into graph", start, -1, megabytes);
+            graph = new DijkstraGraph<>();
+            start = System.nanoTime();
+            DotGraphLoader.load(file.toString(), graph);
+            report("DotGraphLoader into graph", start, -1, megabytes);
+            sink += graph.getEdgeCount();
+
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    graph = new DijkstraGraph<>();
+                    start = System.nanoTime();
+                    DotGraphLoader.load(file.toString(), graph, pool);
+                    report("parallel, " + threads + " threads", start, -1, megabytes);
+                    sink += graph.getEdgeCount();
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Writes a DOT file of random edges between locations named "Location 0"
+     * up to "Location nodes-1", with weights written the way campus.dot's
+     * are, some short and some with 17 significant digits.
+     */
+    public static void writeGraph(Path file, int edges, int nodes, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("digraph benchmark {\n");
+            for (int i = 0; i < edges; i++) {
+                double weight = Math.round(random.nextDouble() * 3000) / 10.0;
+                if (random.nextBoolean()) {
+                    weight = weight * 1.1 - 0.3;
+                }
+                writer.write("\t\"Location " + random.nextInt(nodes) + "\" -> \"Location "
+                        + random.nextInt(nodes) + "\" [seconds=" + weight + "];\n");
+            }
+            writer.write("}\n");
+        }
+    }
+
+    private static void report(String name, long start, long bytesBefore, double megabytes) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        String garbage = bytesBefore < 0 ? ""
+                : String.format("%8.0f MB allocated", (DijkstraGraphBenchmark.allocatedBytes() - bytesBefore) / 1e6);
+        System.out.printf("  %-26s %7.2f s %8.0f MB/s%s%n", name, seconds, megabytes / seconds, garbage);
+    }
+
+    private static void readBytes(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                sink += buffer.get(0);
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * Reads the file the way Backend.loadGraphData used to, inserting each
+     * edge into graph unless it is null.
+     */
+    private static void readLines(String filename, DijkstraGraph<String, Double> graph)
+            throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            reader.readLine();
+            String line;
+            while ((line = reader.readLine()) != null && !line.equals("}")) {
+                int firstQuoteStart = line.indexOf("\"");
+                int firstQuoteEnd = line.indexOf("\"", firstQuoteStart + 1);
+                int secondQuoteStart = line.indexOf("\"", firstQuoteEnd + 1);
+                int secondQuoteEnd = line.indexOf("\"", secondQuoteStart + 1);
+                String pred = line.substring(firstQuoteStart + 1, firstQuoteEnd);
+                String succ = line.substring(secondQuoteStart + 1, secondQuoteEnd);
+                int weightStart = line.indexOf("=", secondQuoteEnd) + 1;
+                int weightEnd = line.indexOf("]", weightStart);
+                Double weight = Double.parseDouble(line.substring(weightStart, weightEnd).trim());
+                if (graph != null) {
+                    graph.insertNode(pred);
+                    graph.insertNode(succ);
+                    graph.insertEdge(pred, succ, weight);
+                } else {
+                    sink += weight;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The nodes and edges read from a graph file, before they are put into a
+ * graph. Nodes are numbered by their place in names, and edge i goes from
+ * names.get(preds[i]) to names.get(succs[i]) with weight weights[i]. Reading
+ * a file into an EdgeList first means that a graph can be filled in bulk,
+ * or brought up to date with the file, without being touched until the
+ * whole file has been read.
+ */
+public class EdgeList {
+
+    public final List<String> names;
+    public final int[] preds;
+    public final int[] succs;
+    public final Double[] weights;
+
+    /**
+     * @param names   the distinct name of every node
+     * @param preds   the index in names of each edge's predecessor
+     * @param succs   the index in names of each edge's successor
+     * @param weights the weight of each edge
+     */
+    public EdgeList(List<String> names, int[] preds, int[] succs, Double[] weights) {
+        this.names = names;
+        this.preds = preds;
+        this.succs = succs;
+        this.weights = weights;
+    }
+
+    /**
+     * Inserts every node and then every edge into graph, in order, with
+     * insertEdges when graph is a BaseGraph, and otherwise one at a time.
+     *
+     * @param graph the graph to insert the nodes and edges into
+     * @param pool  the threads that link the edges of a BaseGraph
+     */
+    public void insertInto(GraphADT<String, Double> graph, ForkJoinPool pool) {
+        if (graph instanceof BaseGraph) {
+            @SuppressWarnings("unchecked")
+            BaseGraph<String, Double> base = (BaseGraph<String, Double>) graph;
+            base.insertEdges(names, preds, succs, weights, pool);
+            return;
+        }
+        for (String name : names) {
+            graph.insertNode(name);
+        }
+        for (int i = 0; i < preds.length; i++) {
+            graph.insertEdge(names.get(preds[i]), names.get(succs[i]), weights[i]);
+        }
+    }
+
+    /**
+     * Makes graph hold exactly these nodes and edges. A BaseGraph only has
+     * the nodes, edges and weights that differ changed, with replaceEdges,
+     * and any other graph is cleared and filled again.
+     *
+     * @param graph the graph to bring up to date
+     * @param pool  the threads that fill a graph that isn't a BaseGraph
+     */
+    public void replaceIn(GraphADT<String, Double> graph, ForkJoinPool pool) {
+        if (graph instanceof BaseGraph) {
+            @SuppressWarnings("unchecked")
+            BaseGraph<String, Double> base = (BaseGraph<String, Double>) graph;
+            base.replaceEdges(names, preds, succs, weights);
+            return;
+        }
+        graph.clear();
+        insertInto(graph, pool);
+    }
+}
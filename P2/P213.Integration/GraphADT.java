@@ -32,6 +32,12 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    */
   public boolean removeNode(NodeType data);
 
+  /**
+   * Remove every node and edge from the graph at once, which is much faster 
+   * than removing each node in turn.
+   */
+  public void clear();
+
   /**
    * Check whether the graph contains a node with the provided data.
    *
@@ -137,5 +143,35 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
    *         start node to the end node
    */
   public double shortestPathCost(NodeType start, NodeType end);
+
+  /**
+   * Returns the nodes along the shortest path from the node with the
+   * provided start value to the node with the provided end value, together
+   * with the cost of each hop and the cumulative cost to each node, all
+   * found by a single search.
+   *
+   * @param start the data item in the starting node for the path
+   * @param end the data item in the destination node for the path
+   * @return the nodes and costs along this shortest path
+   * @throws NoSuchElementException if either the start or end node cannot
+   *         be found in the graph, or if there is no directed path from the
+   *         start node to the end node
+   */
+  public ShortestPath<NodeType> shortestPath(NodeType start, NodeType end);
+
+  /**
+   * Returns the data values of every node that can be reached from the node
+   * with the provided start value along a path costing at most maxCost,
+   * including the start value itself. Values are listed in order of
+   * increasing shortest path cost, and are all found by a single search that
+   * stops once the cheapest unexplored path costs more than maxCost.
+   *
+   * @param start the data item in the starting node
+   * @param maxCost the largest path cost to include
+   * @return list of data items from the nodes within maxCost of start
+   * @throws NoSuchElementException if the start node cannot be found in the
+   *         graph
+   */
+  public List<NodeType> reachableWithin(NodeType start, double maxCost);
     
 }
@@ -0,0 +1,383 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Saves a graph with String nodes in a binary file that holds its CSR
+ * arrays as they are laid out in a CompactGraph, so that a large graph can
+ * be loaded again without parsing any text. Opening a snapshot maps the
+ * file and copies each array out of it in bulk, and only the node names
+ * are decoded one at a time.
+ *
+ * All values are little endian. The file holds a fixed size header, then
+ * each array in turn:
+ *
+ *   header:     magic, version, node count, edge count, name bytes, CRC32
+ *   weights:    a double per edge
+ *   offsets:    node count + 1 ints, as in CompactGraph
+ *   targets:    an int per edge
+ *   nameStarts: node count + 1 ints, where node i's name is at nameStarts[i]
+ *               up to nameStarts[i+1] in the names
+ *   names:      every node's name encoded in UTF-8, one after another
+ *
+ * The CRC32 covers everything after the header, so a file that was cut
+ * short or damaged is rejected rather than loaded. A single mapped buffer
+ * is limited to 2GB, so a snapshot can hold roughly 150 million edges.
+ */
+public class GraphSnapshot {
+
+    private static final int MAGIC = 0x504E5347; // "GSNP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+
+    // header field offsets
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int NODES_AT = 8;
+    private static final int EDGES_AT = 12;
+    private static final int NAME_BYTES_AT = 16;
+    private static final int CHECKSUM_AT = 20;
+
+    /**
+     * Writes graph to a snapshot file, replacing any file that already exists
+     * at that path.
+     *
+     * @param graph the graph to save
+     * @param file  the file to write
+     * @throws IOException              if the file can't be written
+     * @throws IllegalArgumentException if the graph is too large for one file
+     */
+    public static void write(CompactGraph<String> graph, Path file) throws IOException {
+        int nodes = graph.getNodeCount();
+        int edges = graph.getEdgeCount();
+        byte[][] encoded = new byte[nodes][];
+        int[] nameStarts = new int[nodes + 1];
+        long nameBytes = 0;
+        for (int i = 0; i < nodes; i++) {
+            encoded[i] = graph.dataAt(i).getBytes(StandardCharsets.UTF_8);
+            nameBytes += encoded[i].length;
+            if (nameBytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Graph is too large for a single snapshot.");
+            }
+            nameStarts[i + 1] = (int) nameBytes;
+        }
+        long size = fileSize(nodes, edges, nameBytes);
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Graph is too large for a single snapshot.");
+        }
+
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        mapped.putInt(MAGIC_AT, MAGIC);
+        mapped.putInt(VERSION_AT, VERSION);
+        mapped.putInt(NODES_AT, nodes);
+        mapped.putInt(EDGES_AT, edges);
+        mapped.putInt(NAME_BYTES_AT, (int) nameBytes);
+        mapped.position(HEADER_SIZE);
+        mapped.asDoubleBuffer().put(graph.weights);
+        mapped.position(mapped.position() + edges * 8);
+        mapped.asIntBuffer().put(graph.offsets);
+        mapped.position(mapped.position() + (nodes + 1) * 4);
+        mapped.asIntBuffer().put(graph.targets);
+        mapped.position(mapped.position() + edges * 4);
+        mapped.asIntBuffer().put(nameStarts);
+        mapped.position(mapped.position() + (nodes + 1) * 4);
+        for (byte[] name : encoded) {
+            mapped.put(name);
+        }
+        mapped.putInt(CHECKSUM_AT, checksum(mapped));
+        mapped.force();
+    }
+
+    /**
+     * Maps a snapshot written by write() and copies it into a CompactGraph.
+     *
+     * @param file the snapshot file
+     * @return the graph, with its nodes numbered as they were when written
+     * @throws IOException if the file can't be read, isn't a snapshot, or
+     *                     doesn't match its checksum
+     */
+    public static CompactGraph<String> open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is not a GraphSnapshot: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        mapped.order(ByteOrder.LITTLE_ENDIAN);
+        if (mapped.getInt(MAGIC_AT) != MAGIC || mapped.getInt(VERSION_AT) != VERSION) {
+            throw new IOException("File is not a GraphSnapshot: " + file);
+        }
+        int nodes = mapped.getInt(NODES_AT);
+        int edges = mapped.getInt(EDGES_AT);
+        int nameBytes = mapped.getInt(NAME_BYTES_AT);
+        if (nodes < 0 || edges < 0 || nameBytes < 0
+                || fileSize(nodes, edges, nameBytes) != mapped.capacity()) {
+            throw new IOException("Corrupt GraphSnapshot header: " + file);
+        }
+        if (checksum(mapped) != mapped.getInt(CHECKSUM_AT)) {
+            throw new IOException("GraphSnapshot doesn't match its checksum: " + file);
+        }
+
+        double[] weights = new double[edges];
+        int[] offsets = new int[nodes + 1];
+        int[] targets = new int[edges];
+        int[] nameStarts = new int[nodes + 1];
+        byte[] names = new byte[nameBytes];
+        mapped.position(HEADER_SIZE);
+        mapped.asDoubleBuffer().get(weights);
+        mapped.position(mapped.position() + edges * 8);
+        mapped.asIntBuffer().get(offsets);
+        mapped.position(mapped.position() + (nodes + 1) * 4);
+        mapped.asIntBuffer().get(targets);
+        mapped.position(mapped.position() + edges * 4);
+        mapped.asIntBuffer().get(nameStarts);
+        mapped.position(mapped.position() + (nodes + 1) * 4);
+        mapped.get(names);
+
+        Object[] nodeData = new Object[nodes];
+        for (int i = 0; i < nodes; i++) {
+            if (nameStarts[i] < 0 || nameStarts[i] > nameStarts[i + 1]
+                    || nameStarts[i + 1] > nameBytes) {
+                throw new IOException("Corrupt GraphSnapshot names: " + file);
+            }
+            nodeData[i] = new String(names, nameStarts[i], nameStarts[i + 1] - nameStarts[i],
+                    StandardCharsets.UTF_8);
+        }
+        for (int i = 0; i < nodes; i++) {
+            if (offsets[i] < 0 || offsets[i] > offsets[i + 1]) {
+                throw new IOException("Corrupt GraphSnapshot offsets: " + file);
+            }
+        }
+        for (int target : targets) {
+            if (target < 0 || target >= nodes) {
+                throw new IOException("Corrupt GraphSnapshot targets: " + file);
+            }
+        }
+        try {
+            return new CompactGraph<>(nodeData, offsets, targets, weights);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt GraphSnapshot offsets: " + file);
+        }
+    }
+
+    /**
+     * Inserts every node and edge of a snapshot into graph, with insertEdges
+     * when graph is a BaseGraph, and otherwise one edge at a time. Each
+     * node's leaving edges are inserted in the order they were written.
+     *
+     * @param filename the path to a snapshot file
+     * @param graph    the graph to insert the nodes and edges into
+     * @param pool     the threads that link the edges of a BaseGraph
+     * @throws IOException if the file can't be read, isn't a snapshot, or
+     *                     doesn't match its checksum
+     */
+    public static void load(String filename, GraphADT<String, Double> graph, ForkJoinPool pool)
+            throws IOException {
+        readEdges(filename).insertInto(graph, pool);
+    }
+
+    /**
+     * Reads every node and edge of a snapshot, without putting them into a
+     * graph.
+     *
+     * @param filename the path to a snapshot file
+     * @return the nodes in the order they were written, and each node's
+     *         leaving edges in turn
+     * @throws IOException if the file can't be read, isn't a snapshot, or
+     *                     doesn't match its checksum
+     */
+    public static EdgeList readEdges(String filename) throws IOException {
+        CompactGraph<String> snapshot = open(Paths.get(filename));
+        List<String> names = new ArrayList<>(snapshot.getNodeCount());
+        for (int i = 0; i < snapshot.getNodeCount(); i++) {
+            names.add(snapshot.dataAt(i));
+        }
+        int[] preds = new int[snapshot.getEdgeCount()];
+        Double[] weights = new Double[preds.length];
+        for (int i = 0; i < names.size(); i++) {
+            for (int e = snapshot.offsets[i]; e < snapshot.offsets[i + 1]; e++) {
+                preds[e] = i;
+                weights[e] = snapshot.weights[e];
+            }
+        }
+        return new EdgeList(names, preds, snapshot.targets, weights);
+    }
+
+    /**
+     * Checks whether a file starts like a snapshot, without reading the rest
+     * of it.
+     *
+     * @param filename the path to the file to check
+     * @return true if the file starts with a snapshot's magic number
+     * @throws IOException if the file can't be read
+     */
+    public static boolean isSnapshot(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (start.hasRemaining() && channel.read(start) > 0) {
+                // keep reading until the magic number is in
+            }
+            return !start.hasRemaining() && start.getInt(0) == MAGIC;
+        }
+    }
+
+    private static long fileSize(int nodes, int edges, long nameBytes) {
+        return HEADER_SIZE + 12L * edges + 8L * (nodes + 1) + nameBytes;
+    }
+
+    /**
+     * Computes the CRC32 of everything in buffer after the header.
+     */
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(HEADER_SIZE).limit(buffer.capacity()));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Converts a DOT file into a snapshot.
+     *
+     * Run with: java GraphSnapshot input.dot output.snapshot
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java GraphSnapshot input.dot output.snapshot");
+            return;
+        }
+        DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+        DotGraphLoader.load(args[0], graph, ForkJoinPool.commonPool());
+        write(graph.compact(), Paths.get(args[1]));
+        System.out.printf("wrote %d nodes and %d edges to %s%n",
+                graph.getNodeCount(), graph.getEdgeCount(), args[1]);
+    }
+
+
+    // TESTERS
+    /**
+     * Lists every node of graph with each of its leaving edges, in order, so
+     * that graphs whose nodes were inserted in different orders compare
+     * equal when they hold the same edge lists.
+     */
+    private static List<String> describe(DijkstraGraph<String, Double> graph) {
+        List<String> lines = new ArrayList<>();
+        for (String name : graph.getAllNodes()) {
+            StringBuilder line = new StringBuilder(name).append(':');
+            for (var edge : graph.nodes.get(name).edgesLeaving) {
+                line.append(' ').append(edge.successor.data).append('=').append(edge.data);
+            }
+            lines.add(line.toString());
+        }
+        lines.sort(null);
+        return lines;
+    }
+
+    /**
+     * Test that a graph read from a DOT file and saved as a snapshot opens
+     * with the same CSR arrays, and loads back into a DijkstraGraph with the
+     * same nodes, edge lists and shortest paths
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path dot = Files.createTempFile("graph", ".dot");
+        Path file = Files.createTempFile("graph", ".snapshot");
+        try {
+            DotLoaderBenchmark.writeGraph(dot, 5000, 300, 8);
+            for (String filename : List.of("campus.dot", dot.toString())) {
+                DijkstraGraph<String, Double> expected = new DijkstraGraph<>();
+                DotGraphLoader.load(filename, expected);
+                CompactGraph<String> compact = expected.compact();
+                write(compact, file);
+                assertTrue(isSnapshot(file.toString()));
+                assertTrue(!isSnapshot(filename));
+
+                CompactGraph<String> opened = open(file);
+                assertArrayEquals(compact.nodeData, opened.nodeData);
+                assertArrayEquals(compact.offsets, opened.offsets);
+                assertArrayEquals(compact.targets, opened.targets);
+                assertArrayEquals(compact.weights, opened.weights);
+
+                DijkstraGraph<String, Double> loaded = new DijkstraGraph<>();
+                load(file.toString(), loaded, ForkJoinPool.commonPool());
+                assertEquals(expected.getNodeCount(), loaded.getNodeCount());
+                assertEquals(expected.getEdgeCount(), loaded.getEdgeCount());
+                assertEquals(describe(expected), describe(loaded));
+                String start = compact.dataAt(0);
+                String end = compact.dataAt(compact.getNodeCount() - 1);
+                assertEquals(expected.shortestPathCost(start, end), opened.shortestPathCost(start, end));
+            }
+
+            // an empty graph, and names that aren't ASCII
+            write(new CompactGraph<>(new Object[0], new int[1], new int[0], new double[0]), file);
+            assertEquals(0, open(file).getNodeCount());
+            write(new CompactGraph<>(new Object[] {"caf\u00e9", ""}, new int[] {0, 1, 1},
+                    new int[] {1}, new double[] {2.5}), file);
+            assertEquals(2.5, open(file).shortestPathCost("caf\u00e9", ""));
+        } finally {
+            Files.delete(dot);
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Test that files that aren't whole snapshots are rejected, and that
+     * Backend loads a snapshot just like the DOT file it was made from
+     */
+    @Test
+    public void testRejectsDamageAndLoadsInBackend() throws IOException {
+        Path file = Files.createTempFile("campus", ".snapshot");
+        try {
+            DijkstraGraph<String, Double> campus = new DijkstraGraph<>();
+            DotGraphLoader.load("campus.dot", campus);
+            write(campus.compact(), file);
+            byte[] bytes = Files.readAllBytes(file);
+
+            Backend backend = new Backend(new DijkstraGraph<>());
+            backend.loadGraphData(file.toString());
+            assertEquals(campus.getNodeCount(), backend.getListOfAllLocations().size());
+            assertEquals(campus.shortestPathData("Union South", "Atmospheric, Oceanic and Space Sciences"),
+                    backend.findLocationsOnShortestPath("Union South", "Atmospheric, Oceanic and Space Sciences"));
+
+            // one flipped bit anywhere after the header fails the checksum
+            byte[] damaged = bytes.clone();
+            damaged[bytes.length / 2] ^= 1;
+            Files.write(file, damaged);
+            IOException thrown = assertThrows(IOException.class, () -> open(file));
+            assertTrue(thrown.getMessage().contains("checksum"));
+            IOException backendError = assertThrows(IOException.class,
+                    () -> new Backend(new DijkstraGraph<>()).loadGraphData(file.toString()));
+            assertEquals("Error reading file.", backendError.getMessage());
+            Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+            assertThrows(IOException.class, () -> open(file));
+            damaged = bytes.clone();
+            damaged[VERSION_AT] = 2;
+            Files.write(file, damaged);
+            assertThrows(IOException.class, () -> open(file));
+            Files.write(file, Arrays.copyOf(bytes, 3));
+            assertTrue(!isSnapshot(file.toString()));
+            assertThrows(IOException.class, () -> open(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
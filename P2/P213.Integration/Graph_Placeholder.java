@@ -36,6 +36,12 @@ public class Graph_Placeholder implements GraphADT<String, Double> {
       return false;
   }
 
+  public void clear() {
+    // like removeNode, never removes the three nodes the placeholder starts with
+    while(path.size() > 3)
+      path.remove(path.size() - 1);
+  }
+
   public boolean containsNode(String data) {
     return path.contains(data);
   }
@@ -94,4 +100,25 @@ public class Graph_Placeholder implements GraphADT<String, Double> {
     }
     return sum;
   }
+
+  public ShortestPath<String> shortestPath(String start, String end) {
+    List<String> list = shortestPathData(start, end);
+    if(list.isEmpty()) throw new NoSuchElementException();
+    double[] hops = new double[list.size()-1];
+    for(int i=1;i<list.size();i++)
+      hops[i-1] = getEdge(list.get(i-1), list.get(i));
+    return new ShortestPath<>(list, hops);
+  }
+
+  public List<String> reachableWithin(String start, double maxCost) {
+    if(!path.contains(start)) throw new NoSuchElementException();
+    ArrayList<String> list = new ArrayList<>();
+    double sum = 0;
+    for(int i=path.indexOf(start);i<path.size();i++) {
+      if(!path.get(i).equals(start)) sum += i;
+      if(sum > maxCost) break;
+      list.add(path.get(i));
+    }
+    return list;
+  }
 }
\ No newline at end of file
@@ -1,5 +1,10 @@
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.NoSuchElementException;
 import java.util.LinkedList;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -9,8 +14,19 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
     
+    // number of old buckets moved into the new table by each operation while
+    // an incremental resize is in progress
+    private static final int MIGRATION_STEP = 4;
+
     protected LinkedList<Pair>[] table = null;
     private int size;
+
+    // when incrementalResize is enabled, a resize keeps the previous table in
+    // oldTable and moves its buckets over a few at a time; buckets below
+    // migrationIndex have already been moved (oldTable is null otherwise)
+    private final boolean incrementalResize;
+    protected LinkedList<Pair>[] oldTable = null;
+    private int migrationIndex;
     
     /**
      * Inner class to store key-value pairs
@@ -18,15 +34,30 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
     protected class Pair {
         public KeyType key;
         public ValueType value;
+        // key's hash code, kept so that a resize doesn't hash the key again
+        public final int hash;
         
         public Pair(KeyType key, ValueType value) {
+            this(key, value, key.hashCode());
+        }
+
+        public Pair(KeyType key, ValueType value, int hash) {
             this.key = key;
             this.value = value;
+            this.hash = hash;
         }
     }
 
+    /**
+     * Creates a hashtable with the provided capacity.
+     * @param capacity the number of buckets in the table
+     * @param incrementalResize true to spread the rehashing work of each
+     *        resize across the operations that follow it, instead of rehashing
+     *        every pair at once when the load factor is reached
+     */
     @SuppressWarnings("unchecked")
-    public HashtableMap(int capacity) {
+    public HashtableMap(int capacity, boolean incrementalResize) {
+        this.incrementalResize = incrementalResize;
         table = (LinkedList<Pair>[]) new LinkedList[capacity];
         for (int i = 0; i < capacity; i++) {
             table[i] = new LinkedList<>();
@@ -34,13 +65,12 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
         size = 0;
     }
 
-    @SuppressWarnings("unchecked")
+    public HashtableMap(int capacity) {
+        this(capacity, false);
+    }
+
     public HashtableMap() {
-        table = (LinkedList<Pair>[]) new LinkedList[64];
-        for (int i = 0; i < 64; i++) {
-            table[i] = new LinkedList<>();
-        }
-        size = 0;
+        this(64, false);
     }
 
     /**
@@ -48,6 +78,18 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      */
     @SuppressWarnings("unchecked")
     private void resize() {
+        if (incrementalResize) {
+            // finish any earlier resize, then start moving buckets into a
+            // new table whose buckets are created lazily as pairs arrive
+            while (oldTable != null) {
+                migrateBuckets(oldTable.length);
+            }
+            oldTable = table;
+            table = (LinkedList<Pair>[]) new LinkedList[oldTable.length * 2];
+            migrationIndex = 0;
+            return;
+        }
+
         // store old table and create new one
         LinkedList<Pair>[] oldTable = table;
         table = (LinkedList<Pair>[]) new LinkedList[oldTable.length * 2];
@@ -63,8 +105,7 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
             LinkedList<Pair> bucket = oldTable[i];
             if (bucket != null) {
                 for (Pair pair : bucket) {
-                    int newIndex = Math.abs(pair.key.hashCode()) % table.length;
-                    table[newIndex].add(pair);
+                    table[indexFor(pair.hash, table.length)].add(pair);
                     size++;
                 }
             }
@@ -72,28 +113,117 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
     }
 
     /**
-     * Adds a new key,value pair/mapping to this collection. It is ok that the value is null.
-     * @param key the key of the key,value pair
-     * @param value the value that key maps to
-     * @throws IllegalArgumentException if key already maps to a value
-     * @throws NullPointerException if key is null
+     * Moves up to count buckets from oldTable into table, and drops oldTable
+     * once every bucket has been moved. Does nothing when no incremental
+     * resize is in progress.
      */
-    public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+    private void migrateBuckets(int count) {
+        if (oldTable == null) {
+            return;
+        }
+        int stop = Math.min(migrationIndex + count, oldTable.length);
+        for (; migrationIndex < stop; migrationIndex++) {
+            LinkedList<Pair> bucket = oldTable[migrationIndex];
+            if (bucket == null) {
+                continue;
+            }
+            if (table[migrationIndex] == null) {
+                // the doubled table splits this bucket between the same index
+                // and the one oldTable.length above it, so the old list stays
+                // on as the new bucket and only the pairs that move are copied
+                Iterator<Pair> pairs = bucket.iterator();
+                while (pairs.hasNext()) {
+                    Pair pair = pairs.next();
+                    int index = indexFor(pair.hash, table.length);
+                    if (index != migrationIndex) {
+                        pairs.remove();
+                        bucketAt(index).add(pair);
+                    }
+                }
+                table[migrationIndex] = bucket;
+            } else {
+                for (Pair pair : bucket) {
+                    bucketAt(indexFor(pair.hash, table.length)).add(pair);
+                }
+            }
+            oldTable[migrationIndex] = null;
+        }
+        if (migrationIndex == oldTable.length) {
+            oldTable = null;
+        }
+    }
+
+    /**
+     * Returns the bucket at index in table, creating it if this is the first
+     * pair to land there since an incremental resize started.
+     */
+    private LinkedList<Pair> bucketAt(int index) {
+        if (table[index] == null) {
+            table[index] = new LinkedList<>();
+        }
+        return table[index];
+    }
+
+    /**
+     * Computes key's hash code, which every operation does once and then
+     * passes along, so that each key is only hashed once per operation.
+     */
+    private static int hash(Object key) {
         // check for null keys
         if (key == null) {
             throw new NullPointerException("Key cannot be null.");
         }
+        return key.hashCode();
+    }
 
-        // check for pre-existing keys
-        if (containsKey(key)) {
-            throw new IllegalArgumentException("Key already maps to a value.");
+    /**
+     * Computes the index of the bucket that a key with the provided hash
+     * code belongs in, for a table with the provided number of buckets.
+     */
+    private static int indexFor(int hash, int length) {
+        // take the abs after the mod so that Integer.MIN_VALUE can't go negative
+        return Math.abs(hash % length);
+    }
+
+    /**
+     * Finds the pair holding key within a single bucket.
+     * @return that pair, or null when key is not in this bucket
+     */
+    private Pair findPair(LinkedList<Pair> bucket, KeyType key) {
+        if (bucket == null) {
+            return null;
+        }
+        for (Pair p : bucket) {
+            if (p.key.equals(key)) {
+                return p;
+            }
         }
+        return null;
+    }
 
-        // generate index
-        int index = Math.abs(key.hashCode()) % table.length;
+    /**
+     * Finds the pair holding key, first advancing any incremental resize that
+     * is in progress and then checking the bucket in table and, when it still
+     * exists, the bucket in oldTable that key could be in.
+     * @param hash key's hash code
+     * @return that pair, or null when key is not stored in this collection
+     */
+    private Pair lookup(KeyType key, int hash) {
+        migrateBuckets(MIGRATION_STEP);
+        Pair p = findPair(table[indexFor(hash, table.length)], key);
+        if (p == null && oldTable != null) {
+            p = findPair(oldTable[indexFor(hash, oldTable.length)], key);
+        }
+        return p;
+    }
 
+    /**
+     * Adds a new pair to the bucket key belongs in, resizing when needed.
+     * @param hash key's hash code, as already computed by lookup
+     */
+    private void addPair(KeyType key, int hash, ValueType value) {
         // add into table and update size
-        table[index].add(new Pair(key, value));
+        bucketAt(indexFor(hash, table.length)).add(new Pair(key, value, hash));
         size++;
 
         // check for the need to resize
@@ -103,6 +233,75 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
         }
     }
 
+    /**
+     * Adds a new key,value pair/mapping to this collection. It is ok that the value is null.
+     * @param key the key of the key,value pair
+     * @param value the value that key maps to
+     * @throws IllegalArgumentException if key already maps to a value
+     * @throws NullPointerException if key is null
+     */
+    public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+        // check for pre-existing keys with a single scan before adding
+        int hash = hash(key);
+        if (lookup(key, hash) != null) {
+            throw new IllegalArgumentException("Key already maps to a value.");
+        }
+        addPair(key, hash, value);
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection only if key does
+     * not already map to a value.
+     * @param key the key of the key,value pair
+     * @param value the value that key maps to
+     * @return true if the pair was added, or false if key already maps to a
+     *         value (which is left unchanged)
+     * @throws NullPointerException if key is null
+     */
+    public boolean putIfAbsent(KeyType key, ValueType value) {
+        int hash = hash(key);
+        if (lookup(key, hash) != null) {
+            return false;
+        }
+        addPair(key, hash, value);
+        return true;
+    }
+
+    /**
+     * Retrieves the value that key maps to, or defaultValue when key is not
+     * stored in this collection.
+     * @param key the key to look up
+     * @param defaultValue the value to return when key is not found
+     * @return the value that key maps to, or defaultValue
+     * @throws NullPointerException if key is null
+     */
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        Pair p = lookup(key, hash(key));
+        return p == null ? defaultValue : p.value;
+    }
+
+    /**
+     * Retrieves the value that key maps to. When key is not stored in this
+     * collection, the mappingFunction is first used to compute a value that
+     * key is then mapped to.
+     * @param key the key to look up
+     * @param mappingFunction computes the value for a key that is not found,
+     *        and must not modify this collection
+     * @return the existing or newly computed value that key maps to
+     * @throws NullPointerException if key is null
+     */
+    public ValueType computeIfAbsent(KeyType key,
+            Function<? super KeyType, ? extends ValueType> mappingFunction) {
+        int hash = hash(key);
+        Pair p = lookup(key, hash);
+        if (p != null) {
+            return p.value;
+        }
+        ValueType value = mappingFunction.apply(key);
+        addPair(key, hash, value);
+        return value;
+    }
+
     /**
      * Checks whether a key maps to a value in this collection.
      * @param key the key to check
@@ -110,42 +309,81 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      *         key doesn't map to a value
      */
     public boolean containsKey(KeyType key) {
-        // check for null keys
-        if (key == null) {
-            throw new NullPointerException("Key cannot be null.");
-        }
+        return lookup(key, hash(key)) != null;
+    }
 
-        // generate index
-        int index = Math.abs(key.hashCode()) % table.length;
+    /**
+     * Retrieves a list of all keys in this hashtable
+     * @return a LinkedList containing all keys in the hashtable
+     */
+    public LinkedList<KeyType> getKeys() {
+        LinkedList<KeyType> keyList = new LinkedList<>();
+        forEachKey(keyList::add);
+        return keyList;
+    }
 
-        // loop through table and check each linked lists' key
-        for (int i = 0; i < table[index].size(); i++) {
-            Pair p = table[index].get(i);
-            if (p.key.equals(key)) {
-                return true;
+    /**
+     * Passes every key in this hashtable to action, including keys still in
+     * the old table while an incremental resize is in progress.
+     * @param action the visitor to call with each key
+     */
+    public void forEachKey(Consumer<? super KeyType> action) {
+        forEachKey(table, action);
+        if (oldTable != null) {
+            forEachKey(oldTable, action);
+        }
+    }
+
+    private void forEachKey(LinkedList<Pair>[] buckets, Consumer<? super KeyType> action) {
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != null) {
+                for (Pair p : buckets[i]) {
+                    action.accept(p.key);
+                }
             }
         }
+    }
 
-        // otherwise the key does not map to a value
-        return false;
+    /**
+     * Retrieves a live view of this hashtable's keys, which walks the buckets
+     * directly instead of copying them into a list.
+     * @return an iterable view of the keys in this hashtable
+     */
+    public Iterable<KeyType> keys() {
+        return KeyIterator::new;
     }
 
     /**
-     * Retrieves a list of all keys in this hashtable
-     * @return a LinkedList containing all keys in the hashtable
+     * Walks the pairs of table, and then of oldTable if an incremental
+     * resize is in progress, one bucket at a time.
      */
-    public LinkedList<KeyType> getKeys() {
-        LinkedList<KeyType> keyList = new LinkedList<>();
-        
-        // iterate through all buckets in the table
-        for (int i = 0; i < table.length; i++) {
-            // add each key to the result list
-            for (Pair p : table[i]) {
-                keyList.add(p.key);
+    private class KeyIterator implements Iterator<KeyType> {
+        private LinkedList<Pair>[] buckets = table;
+        private int bucketIndex = -1;
+        private Iterator<Pair> pairs = null;
+
+        public boolean hasNext() {
+            while (pairs == null || !pairs.hasNext()) {
+                bucketIndex++;
+                if (bucketIndex == buckets.length) {
+                    // move on to the old table once, if there is one
+                    if (buckets == oldTable || oldTable == null) {
+                        return false;
+                    }
+                    buckets = oldTable;
+                    bucketIndex = 0;
+                }
+                pairs = buckets[bucketIndex] == null ? null : buckets[bucketIndex].iterator();
             }
+            return true;
+        }
+
+        public KeyType next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("No more keys in this collection.");
+            }
+            return pairs.next().key;
         }
-        
-        return keyList;
     }
 
     /**
@@ -156,23 +394,11 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      *         collection
      */
     public ValueType get(KeyType key) throws NoSuchElementException {
-        // check for null keys
-        if (key == null) {
-            throw new NullPointerException("Key cannot be null.");
+        Pair p = lookup(key, hash(key));
+        if (p == null) {
+            throw new NoSuchElementException("Key is not stored in this collection.");
         }
-
-        // generate index
-        int index = Math.abs(key.hashCode()) % table.length;
-        
-        // loop through table and check each linked lists' key
-        for (int i = 0; i < table[index].size(); i++) {
-            Pair p = table[index].get(i);
-            if (p.key.equals(key)) {
-                return p.value;
-            }
-        }
-
-        throw new NoSuchElementException("Key is not stored in this collection.");
+        return p.value;
     }
 
     /**
@@ -183,36 +409,44 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
      *         collection
      */
     public ValueType remove(KeyType key) throws NoSuchElementException {
-        // check for null keys
-        if (key == null) {
-            throw new NullPointerException("Key cannot be null.");
-        }
+        int hash = hash(key);
+        migrateBuckets(MIGRATION_STEP);
 
-        // generate index
-        int index = Math.abs(key.hashCode()) % table.length;
+        // the pair is in the new table's bucket, or in the old table's bucket
+        // if an incremental resize hasn't reached that bucket yet
+        LinkedList<Pair> bucket = table[indexFor(hash, table.length)];
+        if (findPair(bucket, key) == null && oldTable != null) {
+            bucket = oldTable[indexFor(hash, oldTable.length)];
+        }
 
-        // loop through table and check each linked lists' key
-        for (int i = 0; i < table[index].size(); i++) {
-            Pair p = table[index].get(i);
-            if (p.key.equals(key)) {
-                table[index].remove(i);
-                size--;
-                return p.value;
+        // loop through the bucket and unlink the matching pair in place
+        if (bucket != null) {
+            Iterator<Pair> pairs = bucket.iterator();
+            while (pairs.hasNext()) {
+                Pair p = pairs.next();
+                if (p.key.equals(key)) {
+                    pairs.remove();
+                    size--;
+                    return p.value;
+                }
             }
         }
 
-        throw new NoSuchElementException("Key is not stored in this collections.");
+        throw new NoSuchElementException("Key is not stored in this collection.");
     }
 
     /**
      * Removes all key,value pairs from this collection.
      */
     public void clear() {
+        oldTable = null;
         for (int i = 0; i < table.length; i++) {
-            table[i].clear();
+            if (table[i] != null) {
+                table[i].clear();
+            }
         }
         size = 0;
-
+        
     }
 
     /**
@@ -312,6 +546,123 @@ public class HashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueTy
         assertEquals("one", map.get(1));
     }
 
+    /**
+     * Test putIfAbsent(), getOrDefault() and computeIfAbsent()
+     */
+    @Test
+    public void testSingleProbeOperations() {
+        HashtableMap<String, Integer> map = new HashtableMap<>(8);
+        assertTrue(map.putIfAbsent("one", 1));
+        assertTrue(!map.putIfAbsent("one", 100));
+        assertEquals(1, map.get("one"));
+
+        assertEquals(1, map.getOrDefault("one", -1));
+        assertEquals(-1, map.getOrDefault("two", -1));
+
+        assertEquals(2, map.computeIfAbsent("two", k -> 2));
+        assertEquals(2, map.computeIfAbsent("two", k -> 200));
+        assertEquals(2, map.getSize());
+    }
+
+    /**
+     * Test that every operation sees all pairs while an incremental resize
+     * is only partly done
+     */
+    @Test
+    public void testIncrementalResize() {
+        HashtableMap<Integer, Integer> map = new HashtableMap<>(8, true);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+            // every key added so far is still reachable, wherever it lives
+            assertEquals(i / 2, map.get(i / 2));
+        }
+        assertEquals(1000, map.getSize());
+        assertEquals(1000, map.getKeys().size());
+        int viewed = 0;
+        for (Integer key : map.keys()) {
+            viewed++;
+        }
+        assertEquals(1000, viewed);
+        assertThrows(IllegalArgumentException.class, () -> map.put(999, 0));
+
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals(i, map.remove(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 1, map.containsKey(i));
+        }
+        assertEquals(500, map.getSize());
+    }
+
+    /**
+     * Test that an incremental resize finishes within the operations that
+     * follow it, and that no pair is lost or duplicated while it is only
+     * partly done, including pairs with negative hash codes and pairs added,
+     * removed or cleared mid-resize
+     */
+    @Test
+    public void testIncrementalResizeMigration() {
+        HashtableMap<Integer, Integer> map = new HashtableMap<>(64, true);
+        Set<Integer> expected = new HashSet<>();
+        int next = 0;
+        // fill until a resize starts
+        while (map.oldTable == null) {
+            int key = next % 2 == 0 ? next : -next;
+            map.put(key, key);
+            expected.add(key);
+            next++;
+        }
+        int oldLength = map.oldTable.length;
+        assertEquals(2 * oldLength, map.table.length);
+        map.put(Integer.MIN_VALUE, 0);
+        expected.add(Integer.MIN_VALUE);
+
+        // every operation moves MIGRATION_STEP buckets, so the resize is done
+        // after oldLength / MIGRATION_STEP of them, whatever they do
+        int operations = 1;
+        while (map.oldTable != null) {
+            if (operations % 3 == 0) {
+                // take out odd negative keys put in before the resize started
+                Integer key = -(2 * operations + 1);
+                assertEquals(key, map.remove(key));
+                expected.remove(key);
+            } else if (operations % 3 == 1) {
+                map.put(1000 + operations, operations);
+                expected.add(1000 + operations);
+            } else {
+                assertEquals(0, map.get(0));
+            }
+            operations++;
+            // getKeys walks both tables without moving any buckets
+            assertEquals(expected.size(), map.getSize());
+            assertEquals(expected.size(), map.getKeys().size());
+            assertEquals(expected, new HashSet<>(map.getKeys()));
+        }
+        assertEquals(oldLength / MIGRATION_STEP, operations);
+        for (Integer key : expected) {
+            assertTrue(map.containsKey(key));
+        }
+        // and every pair ended up in the bucket its hash code picks
+        for (int i = 0; i < map.table.length; i++) {
+            if (map.table[i] != null) {
+                for (HashtableMap<Integer, Integer>.Pair pair : map.table[i]) {
+                    assertEquals(i, indexFor(pair.hash, map.table.length));
+                }
+            }
+        }
+
+        // clearing mid-resize drops the old table along with the new one
+        while (map.oldTable == null) {
+            map.put(next, next);
+            next++;
+        }
+        map.clear();
+        assertEquals(0, map.getSize());
+        assertEquals(0, map.getKeys().size());
+        map.put(1, 1);
+        assertEquals(1, map.get(1));
+    }
+
     @Test
     public void debugging() {
         HashtableMap<Integer, String> map = new HashtableMap<>();
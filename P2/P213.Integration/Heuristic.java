@@ -0,0 +1,20 @@
+/**
+ * Estimates the cost of the shortest path between two nodes of a graph, so
+ * that a search can explore toward its destination first (A* search).
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+@FunctionalInterface
+public interface Heuristic<NodeType> {
+
+  /**
+   * Estimates the cost of the shortest path from one node to another. To
+   * keep searches exact, the estimate must never be more than the real cost
+   * (it must be admissible), and must be 0.0 when from and to are the same.
+   *
+   * @param from the data item in the node the path starts at
+   * @param to the data item in the node the path ends at
+   * @return a lower bound on the cost of the shortest path from from to to
+   */
+  public double estimate(NodeType from, NodeType to);
+}
@@ -0,0 +1,244 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A binary min heap of int ids, each with a double priority, that supports
+ * decreasing the priority of an id already in the heap. A position table
+ * records where each id sits in the heap, so every id is in the heap at most
+ * once. This is the priority queue for Dijkstra's algorithm over dense node
+ * ids: a shorter path to a queued node moves that node up instead of adding
+ * a second copy of it.
+ */
+public class IndexedMinHeap {
+
+    private int[] heap;          // ids, ordered as a binary heap
+    private double[] priorities; // priority of each id, indexed by id
+    private int[] positions;     // index of each id within heap, or -1
+    private int size;
+
+    /**
+     * Creates a heap for the ids 0 to capacity-1. Larger ids can be added
+     * later, and grow the heap's tables.
+     * @param capacity one more than the largest id expected
+     */
+    public IndexedMinHeap(int capacity) {
+        capacity = Math.max(1, capacity);
+        heap = new int[capacity];
+        priorities = new double[capacity];
+        positions = new int[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    public IndexedMinHeap() {
+        this(16);
+    }
+
+    /**
+     * Checks whether id is currently in the heap.
+     * @param id the id to check
+     * @return true if id is in the heap, and false otherwise
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < positions.length && positions[id] != -1;
+    }
+
+    /**
+     * Adds id with the provided priority, or lowers the priority of id if it
+     * is already in the heap with a higher one.
+     * @param id the non-negative id to add
+     * @param priority the priority of id
+     * @return true if id was added or its priority lowered, and false if it
+     *         was already in the heap with a priority at most this one
+     * @throws IllegalArgumentException if id is negative
+     */
+    public boolean addOrDecrease(int id, double priority) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Ids must not be negative.");
+        }
+        if (id >= positions.length) {
+            int length = Math.max(id + 1, positions.length * 2);
+            priorities = Arrays.copyOf(priorities, length);
+            int oldLength = positions.length;
+            positions = Arrays.copyOf(positions, length);
+            Arrays.fill(positions, oldLength, length, -1);
+        }
+        int position = positions[id];
+        if (position == -1) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            position = size++;
+        } else if (priority >= priorities[id]) {
+            return false;
+        }
+        priorities[id] = priority;
+        siftUp(id, position);
+        return true;
+    }
+
+    /**
+     * Retrieves the priority of an id in the heap.
+     * @param id an id in the heap
+     * @return the priority of id
+     * @throws NoSuchElementException if id is not in the heap
+     */
+    public double getPriority(int id) {
+        if (!contains(id)) {
+            throw new NoSuchElementException("Id " + id + " is not in the heap.");
+        }
+        return priorities[id];
+    }
+
+    /**
+     * Retrieves the lowest priority in the heap.
+     * @return the priority of the id that removeMin would return
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public double peekPriority() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty.");
+        }
+        return priorities[heap[0]];
+    }
+
+    /**
+     * Removes the id with the lowest priority from the heap.
+     * @return the id that had the lowest priority
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int removeMin() {
+        if (size == 0) {
+            throw new NoSuchElementException("The heap is empty.");
+        }
+        int min = heap[0];
+        positions[min] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(heap[size], 0);
+        }
+        return min;
+    }
+
+    /**
+     * Moves id up from position until its parent's priority is no higher.
+     */
+    private void siftUp(int id, int position) {
+        double priority = priorities[id];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (priorities[heap[parent]] <= priority) {
+                break;
+            }
+            heap[position] = heap[parent];
+            positions[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    /**
+     * Moves id down from position until neither child has a lower priority.
+     */
+    private void siftDown(int id, int position) {
+        double priority = priorities[id];
+        while (2 * position + 1 < size) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && priorities[heap[child + 1]] < priorities[heap[child]]) {
+                child++;
+            }
+            if (priorities[heap[child]] >= priority) {
+                break;
+            }
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    /**
+     * Removes all ids from the heap, keeping its capacity.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Checks whether the heap is empty.
+     * @return true if no ids are in the heap, and false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Retrieves the number of ids in the heap.
+     * @return the number of ids in the heap
+     */
+    public int getSize() {
+        return size;
+    }
+
+
+    // TESTERS
+    /**
+     * Test that ids come out in priority order, including after decreases
+     */
+    @Test
+    public void testRemoveMinOrder() {
+        IndexedMinHeap heap = new IndexedMinHeap(4);
+        double[] priorities = {5.0, 3.0, 8.0, 1.0, 9.0, 7.0, 2.0, 6.0};
+        for (int id = 0; id < priorities.length; id++) {
+            assertTrue(heap.addOrDecrease(id, priorities[id]));
+        }
+        assertEquals(8, heap.getSize());
+        assertTrue(heap.addOrDecrease(4, 0.5));
+        assertTrue(!heap.addOrDecrease(2, 8.5));
+        assertEquals(8.0, heap.getPriority(2));
+        assertTrue(heap.addOrDecrease(2, 4.0));
+        assertEquals(8, heap.getSize());
+
+        int[] expected = {4, 3, 6, 1, 2, 0, 7, 5};
+        for (int id : expected) {
+            assertEquals(heap.getPriority(id), heap.peekPriority());
+            assertEquals(id, heap.removeMin());
+            assertTrue(!heap.contains(id));
+        }
+        assertTrue(heap.isEmpty());
+        assertThrows(NoSuchElementException.class, () -> heap.removeMin());
+    }
+
+    /**
+     * Test growing past the initial capacity and reusing a cleared heap
+     */
+    @Test
+    public void testGrowAndClear() {
+        IndexedMinHeap heap = new IndexedMinHeap(2);
+        for (int id = 999; id >= 0; id--) {
+            heap.addOrDecrease(id * 3, id);
+        }
+        assertEquals(1000, heap.getSize());
+        assertTrue(heap.contains(2997));
+        assertTrue(!heap.contains(2998));
+        assertTrue(!heap.contains(-1));
+        for (int id = 0; id < 500; id++) {
+            assertEquals(id * 3, heap.removeMin());
+        }
+
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertTrue(!heap.contains(1500));
+        heap.addOrDecrease(1500, 2.0);
+        heap.addOrDecrease(7, 1.0);
+        assertEquals(7, heap.removeMin());
+        assertEquals(1500, heap.removeMin());
+        assertThrows(IllegalArgumentException.class, () -> heap.addOrDecrease(-1, 0));
+    }
+}
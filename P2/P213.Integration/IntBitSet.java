@@ -0,0 +1,128 @@
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A set of non-negative ints stored as one bit per possible value. This is
+ * meant for dense ids such as graph node ids, where marking a node as visited
+ * should not allocate anything.
+ */
+public class IntBitSet {
+
+    private long[] words;
+    private int size;
+
+    /**
+     * Creates a set that can hold the values 0 to capacity-1 without growing.
+     * @param capacity the number of values the set starts out able to hold
+     */
+    public IntBitSet(int capacity) {
+        words = new long[Math.max(1, (capacity + 63) >>> 6)];
+    }
+
+    public IntBitSet() {
+        this(64);
+    }
+
+    /**
+     * Adds value to this set.
+     * @param value the value to add
+     * @return true if value was added, or false if it was already in the set
+     * @throws IllegalArgumentException if value is negative
+     */
+    public boolean add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must not be negative.");
+        }
+        int word = value >>> 6;
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+        long bit = 1L << value;
+        if ((words[word] & bit) != 0) {
+            return false;
+        }
+        words[word] |= bit;
+        size++;
+        return true;
+    }
+
+    /**
+     * Checks whether value is in this set.
+     * @param value the value to check
+     * @return true if value is in the set, and false otherwise
+     */
+    public boolean contains(int value) {
+        int word = value >>> 6;
+        return value >= 0 && word < words.length && (words[word] & (1L << value)) != 0;
+    }
+
+    /**
+     * Removes value from this set.
+     * @param value the value to remove
+     * @return true if value was removed, or false if it was not in the set
+     */
+    public boolean remove(int value) {
+        if (!contains(value)) {
+            return false;
+        }
+        words[value >>> 6] &= ~(1L << value);
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes all values from this set, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(words, 0);
+        size = 0;
+    }
+
+    /**
+     * Retrieves the number of values in this set.
+     * @return the number of values in this set
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieves the number of values this set can hold without growing.
+     * @return one more than the largest value that fits in the current words
+     */
+    public int getCapacity() {
+        return words.length * 64;
+    }
+
+
+    // TESTERS
+    /**
+     * Test add(), contains(), remove() and growing past the initial capacity
+     */
+    @Test
+    public void testAddContainsRemove() {
+        IntBitSet set = new IntBitSet(10);
+        assertTrue(set.add(3));
+        assertTrue(!set.add(3));
+        assertTrue(set.add(63));
+        assertTrue(set.add(64));
+        assertTrue(set.add(1000));
+        assertEquals(4, set.getSize());
+        assertTrue(set.contains(1000));
+        assertTrue(!set.contains(999));
+        assertTrue(!set.contains(-1));
+        assertTrue(!set.contains(100_000));
+
+        assertTrue(set.remove(63));
+        assertTrue(!set.remove(63));
+        assertTrue(!set.contains(63));
+        assertTrue(set.contains(64));
+        assertEquals(3, set.getSize());
+        assertThrows(IllegalArgumentException.class, () -> set.add(-5));
+
+        set.clear();
+        assertEquals(0, set.getSize());
+        assertTrue(!set.contains(3));
+    }
+}
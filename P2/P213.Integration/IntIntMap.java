@@ -0,0 +1,197 @@
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A hashtable that maps int keys to int values without boxing either one.
+ * This is the int valued counterpart of IntDoubleMap, meant for bookkeeping
+ * such as the predecessor id of each node during a graph search.
+ *
+ * Unlike MapADT, put() replaces the value of a key that is already present.
+ */
+public class IntIntMap {
+
+    private static final double LOAD_FACTOR = 0.7;
+
+    private int[] keys;
+    private int[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates a map that can hold at least capacity keys before resizing.
+     * @param capacity the expected number of keys
+     */
+    public IntIntMap(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(2, (int) (capacity / LOAD_FACTOR) + 1) - 1) << 1;
+        allocate(slots);
+    }
+
+    public IntIntMap() {
+        this(16);
+    }
+
+    private void allocate(int slots) {
+        keys = new int[slots];
+        values = new int[slots];
+        used = new boolean[slots];
+        mask = slots - 1;
+    }
+
+    /**
+     * Mixes the bits of key so that nearby ids don't fill a single run of slots.
+     */
+    private int home(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Probes for key.
+     * @return the slot holding key, or the complement (~) of the empty slot
+     *         where it would be inserted
+     */
+    private int findSlot(int key) {
+        int slot = home(key);
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    /**
+     * Maps key to value, replacing any value key already maps to.
+     * @param key the key to map
+     * @param value the value that key maps to
+     */
+    public void put(int key, int value) {
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        slot = ~slot;
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        if (++size > LOAD_FACTOR * keys.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Retrieves the value key maps to, or defaultValue if key is not present.
+     * @param key the key to look up
+     * @param defaultValue the value to return when key is not found
+     * @return the value that key maps to, or defaultValue
+     */
+    public int get(int key, int defaultValue) {
+        int slot = findSlot(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    /**
+     * Checks whether a key maps to a value in this collection.
+     * @param key the key to check
+     * @return true if the key maps to a value, and false otherwise
+     */
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Removes the mapping for key, shifting later entries of its probe run
+     * back so that lookups never need tombstones.
+     * @param key the key whose mapping to remove
+     * @return true if key was removed, or false if it was not present
+     */
+    public boolean remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return false;
+        }
+        int next = (slot + 1) & mask;
+        while (used[next]) {
+            int nextHome = home(keys[next]);
+            // move the entry back unless its home lies between the gap and it
+            if (((next - nextHome) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        used[slot] = false;
+        size--;
+        return true;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = ~findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    /**
+     * Removes all key,value pairs from this collection, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Retrieves the number of keys stored in this collection.
+     * @return the number of keys stored in this collection
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieves this collection's capacity.
+     * @return the size of the underlying arrays for this collection
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+
+    // TESTERS
+    /**
+     * Test put(), get(), remove() and resizing
+     */
+    @Test
+    public void testPutGetRemove() {
+        IntIntMap map = new IntIntMap(2);
+        for (int i = 0; i < 5000; i++) {
+            map.put(i * 7919, i);
+        }
+        assertEquals(5000, map.getSize());
+        assertEquals(1234, map.get(1234 * 7919, -1));
+        assertEquals(-1, map.get(-7919, -1));
+
+        map.put(0, 42);
+        assertEquals(42, map.get(0, -1));
+        for (int i = 0; i < 5000; i += 3) {
+            assertTrue(map.remove(i * 7919));
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(i % 3 != 0, map.containsKey(i * 7919));
+        }
+        assertEquals(3333, map.getSize());
+    }
+}
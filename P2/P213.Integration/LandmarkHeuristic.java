@@ -0,0 +1,111 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A heuristic that bounds path costs with the triangle inequality around a
+ * few landmark nodes (the ALT technique), so that no coordinates are needed.
+ * For every landmark L, the cost of the shortest path from v to t is at
+ * least cost(L,t) - cost(L,v) and at least cost(v,L) - cost(t,L), and the
+ * largest of these bounds is the estimate.
+ *
+ * The costs to and from each landmark are computed once, when the heuristic
+ * is created, so the estimates describe the graph as it was then. Adding
+ * edges or lowering weights afterwards can make the estimates too high.
+ */
+public class LandmarkHeuristic<NodeType> implements Heuristic<NodeType> {
+
+    private final CompactGraph<NodeType> graph;
+    private final List<NodeType> landmarks = new ArrayList<>();
+    // costs from, and to, each landmark, indexed [landmark][node index]
+    private final double[][] fromLandmark;
+    private final double[][] toLandmark;
+
+    /**
+     * Chooses landmarks spread across graph and computes the costs of the
+     * shortest paths from and to each of them. The first landmark is the
+     * first node, and each next one is the node farthest from all landmarks
+     * chosen so far, since landmarks beyond a destination give the tightest
+     * bounds.
+     *
+     * @param graph         the graph whose path costs to estimate
+     * @param landmarkCount the number of landmarks, where more give tighter
+     *                      estimates but use more memory and setup time
+     * @throws IllegalArgumentException if landmarkCount is not positive, or
+     *                                  the graph has no nodes
+     */
+    public LandmarkHeuristic(CompactGraph<NodeType> graph, int landmarkCount) {
+        if (landmarkCount <= 0 || graph.getNodeCount() == 0) {
+            throw new IllegalArgumentException("Landmarks need a positive count and a non-empty graph.");
+        }
+        landmarkCount = Math.min(landmarkCount, graph.getNodeCount());
+        this.graph = graph;
+        this.fromLandmark = new double[landmarkCount][];
+        this.toLandmark = new double[landmarkCount][];
+        CompactGraph<NodeType> reversed = graph.reverse();
+
+        // the cost from the nearest chosen landmark to each node
+        double[] nearest = new double[graph.getNodeCount()];
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int landmark = 0;
+        for (int i = 0; i < landmarkCount; i++) {
+            landmarks.add(graph.dataAt(landmark));
+            fromLandmark[i] = graph.costsFrom(landmark);
+            toLandmark[i] = reversed.costsFrom(landmark);
+            nearest[landmark] = 0;
+
+            // choose the node farthest from every landmark so far, where
+            // nodes that no landmark reaches count as the farthest
+            int farthest = -1;
+            for (int v = 0; v < nearest.length; v++) {
+                nearest[v] = Math.min(nearest[v], fromLandmark[i][v]);
+                if (nearest[v] > 0 && (farthest == -1 || nearest[v] > nearest[farthest])) {
+                    farthest = v;
+                }
+            }
+            if (farthest == -1) {
+                break;
+            }
+            landmark = farthest;
+        }
+    }
+
+    /**
+     * Retrieves the data of the landmark nodes, in the order they were chosen.
+     *
+     * @return the landmarks' node data
+     */
+    public List<NodeType> getLandmarks() {
+        return landmarks;
+    }
+
+    /**
+     * Estimates the cost of the shortest path from one node to another with
+     * the landmark bounds. Landmarks that can't reach or be reached from
+     * either node give no bound.
+     *
+     * @param from the data item in the node the path starts at
+     * @param to   the data item in the node the path ends at
+     * @return a lower bound on the cost of the shortest path, which is 0.0
+     *         when either node is not in the graph
+     */
+    public double estimate(NodeType from, NodeType to) {
+        int v = graph.indexOf(from);
+        int t = graph.indexOf(to);
+        if (v == -1 || t == -1) {
+            return 0;
+        }
+        double bound = 0;
+        for (int i = 0; i < landmarks.size(); i++) {
+            double forward = fromLandmark[i][t] - fromLandmark[i][v];
+            if (forward > bound && forward != Double.POSITIVE_INFINITY) {
+                bound = forward;
+            }
+            double backward = toLandmark[i][v] - toLandmark[i][t];
+            if (backward > bound && backward != Double.POSITIVE_INFINITY) {
+                bound = backward;
+            }
+        }
+        return bound;
+    }
+}
@@ -0,0 +1,215 @@
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A hashtable that maps long keys to object values without boxing the keys.
+ * A long key can pack two int ids, such as the predecessor and successor
+ * ids of an edge, so pairs can be looked up without allocating a key object.
+ * Values can't be null, which lets an empty slot be marked by a null value.
+ *
+ * Unlike MapADT, put() replaces the value of a key that is already present.
+ */
+public class LongObjectMap<ValueType> {
+
+    private static final double LOAD_FACTOR = 0.7;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates a map that can hold at least capacity keys before resizing.
+     * @param capacity the expected number of keys
+     */
+    public LongObjectMap(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(2, (int) (capacity / LOAD_FACTOR) + 1) - 1) << 1;
+        allocate(slots);
+    }
+
+    public LongObjectMap() {
+        this(16);
+    }
+
+    /**
+     * Packs two ints into one long key, with first in the high half.
+     * @param first the int for the high 32 bits
+     * @param second the int for the low 32 bits
+     * @return the combined key
+     */
+    public static long pair(int first, int second) {
+        return ((long) first << 32) | (second & 0xFFFFFFFFL);
+    }
+
+    private void allocate(int slots) {
+        keys = new long[slots];
+        values = new Object[slots];
+        mask = slots - 1;
+    }
+
+    /**
+     * Mixes the bits of key so that keys differing in either half spread out.
+     */
+    private int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Probes for key.
+     * @return the slot holding key, or the complement (~) of the empty slot
+     *         where it would be inserted
+     */
+    private int findSlot(long key) {
+        int slot = home(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    /**
+     * Maps key to value, replacing any value key already maps to.
+     * @param key the key to map
+     * @param value the non-null value that key maps to
+     * @throws NullPointerException if value is null
+     */
+    public void put(long key, ValueType value) {
+        if (value == null) {
+            throw new NullPointerException("Values can't be null.");
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+        slot = ~slot;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > LOAD_FACTOR * keys.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Retrieves the value key maps to.
+     * @param key the key to look up
+     * @return the value that key maps to, or null if key is not present
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType get(long key) {
+        int slot = findSlot(key);
+        return slot >= 0 ? (ValueType) values[slot] : null;
+    }
+
+    /**
+     * Checks whether a key maps to a value in this collection.
+     * @param key the key to check
+     * @return true if the key maps to a value, and false otherwise
+     */
+    public boolean containsKey(long key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Removes the mapping for key, shifting later entries of its probe run
+     * back so that lookups never need tombstones.
+     * @param key the key whose mapping to remove
+     * @return true if key was removed, or false if it was not present
+     */
+    public boolean remove(long key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return false;
+        }
+        int next = (slot + 1) & mask;
+        while (values[next] != null) {
+            int nextHome = home(keys[next]);
+            // move the entry back unless its home lies between the gap and it
+            if (((next - nextHome) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[slot] = null;
+        size--;
+        return true;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) {
+                int slot = ~findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Removes all key,value pairs from this collection, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Retrieves the number of keys stored in this collection.
+     * @return the number of keys stored in this collection
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieves this collection's capacity.
+     * @return the size of the underlying arrays for this collection
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+
+    // TESTERS
+    /**
+     * Test put(), get(), remove() and resizing with paired int keys
+     */
+    @Test
+    public void testPutGetRemove() {
+        LongObjectMap<String> map = new LongObjectMap<>(2);
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 50; j++) {
+                map.put(pair(i, j), i + "," + j);
+            }
+        }
+        assertEquals(5000, map.getSize());
+        assertEquals("12,34", map.get(pair(12, 34)));
+        assertEquals(null, map.get(pair(34, 50)));
+        assertEquals(null, map.get(pair(-1, 0)));
+        assertTrue(pair(0, -1) != pair(-1, 0));
+
+        map.put(pair(0, 0), "origin");
+        assertEquals("origin", map.get(pair(0, 0)));
+        for (int i = 0; i < 100; i += 3) {
+            for (int j = 0; j < 50; j++) {
+                assertTrue(map.remove(pair(i, j)));
+            }
+        }
+        assertTrue(!map.remove(pair(0, 0)));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 3 != 0, map.containsKey(pair(i, 7)));
+        }
+        assertEquals(3300, map.getSize());
+        assertThrows(NullPointerException.class, () -> map.put(1L, null));
+    }
+}
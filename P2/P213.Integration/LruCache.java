@@ -0,0 +1,179 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A cache that holds at most a fixed number of values, evicting the least
+ * recently used one to make room for a new one. It counts its hits, misses
+ * and evictions so that its capacity can be sized from how it is really
+ * used. Those counts survive clear(), which only drops the cached values.
+ * Every method is synchronized on the cache, so threads can share one, and
+ * a caller can hold the cache's lock to make several calls as one step.
+ */
+public class LruCache<K, V> {
+
+    private final int capacity;
+    private final LinkedHashMap<K, V> entries;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Creates a cache that holds at most capacity values.
+     * @param capacity the most values the cache holds at once
+     * @throws IllegalArgumentException if capacity is not positive
+     */
+    public LruCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        this.capacity = capacity;
+        // access order puts the least recently used entry first
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                if (size() > LruCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public LruCache() {
+        this(16);
+    }
+
+    /**
+     * Retrieves the value cached for key, marking it as the most recently used.
+     * @param key the key to look up
+     * @return the cached value, or null if key is not cached
+     */
+    public synchronized V get(K key) {
+        V value = entries.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Caches value for key, evicting the least recently used value if the
+     * cache is full.
+     * @param key the key to cache value under
+     * @param value the non-null value to cache
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * Removes every cached value, leaving the counts as they are.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Retrieves the number of values currently cached.
+     * @return the number of values currently cached
+     */
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    /**
+     * Retrieves the most values the cache holds at once.
+     * @return this cache's capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Retrieves the number of calls to get that found a cached value.
+     * @return the number of hits so far
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Retrieves the number of calls to get that found no cached value.
+     * @return the number of misses so far
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Retrieves the number of values evicted to make room for others.
+     * @return the number of evictions so far
+     */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+
+    // TESTERS
+    /**
+     * Test that the least recently used value is evicted, and that hits,
+     * misses and evictions are counted
+     */
+    @Test
+    public void testEvictionAndCounts() {
+        LruCache<String, Integer> cache = new LruCache<>(2);
+        assertNull(cache.get("a"));
+        cache.put("a", 1);
+        cache.put("b", 2);
+        assertEquals(1, cache.get("a"));
+        // b is now the least recently used, so it makes room for c
+        cache.put("c", 3);
+        assertEquals(2, cache.getSize());
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.get("a"));
+        assertEquals(3, cache.get("c"));
+
+        assertEquals(3, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertNull(cache.get("a"));
+        assertEquals(3, cache.getMisses());
+        assertEquals(1, cache.getEvictions());
+        assertThrows(IllegalArgumentException.class, () -> new LruCache<String, Integer>(0));
+    }
+
+    /**
+     * Test that threads sharing a cache keep its counts and capacity right
+     */
+    @Test
+    public void testSharedAcrossThreads() throws InterruptedException {
+        LruCache<Integer, Integer> cache = new LruCache<>(8);
+        Thread[] threads = new Thread[4];
+        int calls = 20_000;
+        for (int t = 0; t < threads.length; t++) {
+            int seed = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < calls; i++) {
+                    int key = (i * 31 + seed) % 50;
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length * calls, cache.getHits() + cache.getMisses());
+        assertEquals(8, cache.getSize());
+    }
+}
@@ -1,4 +1,7 @@
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * This abstract data type represents a collection that maps keys to values,
@@ -15,6 +18,41 @@ public interface MapADT<KeyType, ValueType> {
      */
     public void put(KeyType key, ValueType value) throws IllegalArgumentException;
 
+    /**
+     * Adds a new key,value pair/mapping to this collection only if key does
+     * not already map to a value. This looks the key up once, unlike calling
+     * containsKey followed by put.
+     * @param key the key of the key,value pair
+     * @param value the value that key maps to
+     * @return true if the pair was added, or false if key already maps to a
+     *         value (which is left unchanged)
+     * @throws NullPointerException if key is null
+     */
+    public boolean putIfAbsent(KeyType key, ValueType value);
+
+    /**
+     * Retrieves the value that key maps to, or defaultValue when key is not
+     * stored in this collection.
+     * @param key the key to look up
+     * @param defaultValue the value to return when key is not found
+     * @return the value that key maps to, or defaultValue
+     * @throws NullPointerException if key is null
+     */
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue);
+
+    /**
+     * Retrieves the value that key maps to. When key is not stored in this
+     * collection, the mappingFunction is first used to compute a value that
+     * key is then mapped to.
+     * @param key the key to look up
+     * @param mappingFunction computes the value for a key that is not found,
+     *        and must not modify this collection
+     * @return the existing or newly computed value that key maps to
+     * @throws NullPointerException if key is null
+     */
+    public ValueType computeIfAbsent(KeyType key,
+            Function<? super KeyType, ? extends ValueType> mappingFunction);
+
     /**
      * Checks whether a key maps to a value in this collection.
      * @param key the key to check
@@ -57,4 +95,27 @@ public interface MapADT<KeyType, ValueType> {
      * @return the size of te underlying array for this collection
      */
     public int getCapacity();
+
+    /**
+     * Retrieves this collection's keys.
+     * @return a list of keys in the underlying array for this collection
+     */
+    public List<KeyType> getKeys();
+
+    /**
+     * Retrieves a live view of this collection's keys. Iterating over it
+     * walks the underlying table directly instead of copying the keys into a
+     * new list, and the view reflects later changes to the collection. The
+     * collection must not be modified while one of the view's iterators is
+     * in use.
+     * @return an iterable view of the keys in this collection
+     */
+    public Iterable<KeyType> keys();
+
+    /**
+     * Passes every key in this collection to action, without allocating a
+     * list of keys. The action must not modify this collection.
+     * @param action the visitor to call with each key
+     */
+    public void forEachKey(Consumer<? super KeyType> action);
 }
\ No newline at end of file
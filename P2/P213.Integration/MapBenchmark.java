@@ -0,0 +1,116 @@
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Compares the throughput of the MapADT implementations in this project.
+ * Each map is filled with the same pre-boxed random Integer keys so that the
+ * timings measure the tables themselves rather than boxing or key generation.
+ *
+ * Run with: java MapBenchmark [size ...]
+ * Larger sizes need a bigger heap, e.g. java -Xmx8g MapBenchmark 10000000
+ */
+public class MapBenchmark {
+
+    private static final int[] DEFAULT_SIZES = {10_000, 100_000, 1_000_000, 10_000_000};
+
+    // keeps the JIT from discarding lookups whose results are never used
+    private static long sink = 0;
+
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        // warm up both implementations before any timed run
+        for (int i = 0; i < 3; i++) {
+            run("warmup", HashtableMap::new, 100_000, false);
+            run("warmup", ProbingHashtableMap::new, 100_000, false);
+        }
+
+        System.out.printf("%-20s %10s %12s %12s %12s%n",
+                "map", "keys", "put Mops/s", "get Mops/s", "contains Mops/s");
+        for (int size : sizes) {
+            run("HashtableMap", HashtableMap::new, size, true);
+            run("ProbingHashtableMap", ProbingHashtableMap::new, size, true);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Times put, get and containsKey (half hits, half misses) on a fresh map.
+     */
+    private static void run(String name, Supplier<MapADT<Integer, Integer>> factory,
+            int size, boolean print) {
+        Integer[] present = randomKeys(size, 1);
+        Integer[] absent = randomKeys(size, 2);
+        MapADT<Integer, Integer> map = factory.get();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            map.put(present[i], i);
+        }
+        long putTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            sink += map.get(present[i]);
+        }
+        long getTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            if (map.containsKey(present[i])) {
+                sink++;
+            }
+            if (map.containsKey(absent[i])) {
+                sink++;
+            }
+        }
+        long containsTime = System.nanoTime() - start;
+
+        if (print) {
+            System.out.printf("%-20s %10d %12.2f %12.2f %12.2f%n", name, size,
+                    opsPerMicro(size, putTime), opsPerMicro(size, getTime),
+                    opsPerMicro(2 * size, containsTime));
+        }
+    }
+
+    /**
+     * Creates size distinct boxed keys in a random looking order, so that the
+     * timed put loop never has to skip a repeated key. Even seeds and odd
+     * seeds draw from disjoint halves of the int range so that "absent" keys
+     * are never present.
+     */
+    private static Integer[] randomKeys(int size, long seed) {
+        int offset = new Random(seed).nextInt();
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            int key = scramble((offset + i) & Integer.MAX_VALUE);
+            keys[i] = seed % 2 == 0 ? -key - 1 : key;
+        }
+        return keys;
+    }
+
+    /**
+     * Maps each non-negative int to a different one. Multiplying by an odd
+     * number and xoring with a right shift are both invertible on the low 31
+     * bits, so distinct inputs give distinct keys.
+     */
+    private static int scramble(int x) {
+        x = (x * 0x2545F491) & Integer.MAX_VALUE;
+        x ^= x >>> 15;
+        x = (x * 0x6A09E667) & Integer.MAX_VALUE;
+        x ^= x >>> 13;
+        return x;
+    }
+
+    private static double opsPerMicro(int ops, long nanos) {
+        return ops * 1000.0 / nanos;
+    }
+}
@@ -0,0 +1,680 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A hashtable implementation of the MapADT interface for String keys and
+ * Long values whose contents live outside of the Java heap, either in a
+ * direct ByteBuffer or in a memory-mapped file. Because the garbage
+ * collector never has to trace its entries, a very large table doesn't
+ * lengthen GC pauses, and a table that was built once can be mapped again
+ * at startup with open() instead of being rebuilt.
+ *
+ * The buffer holds a fixed size header, then an array of slots that are
+ * probed linearly, and then an arena of UTF-8 encoded keys:
+ *
+ *   header: magic, version, slot count, size, arena bytes used
+ *   slot:   value, key offset + 1 (0 when empty), key length, hash, flags
+ *   arena:  key bytes, appended in insertion order
+ *
+ * Removed keys leave their bytes in the arena until the next resize, which
+ * copies only live keys into the new buffer. A single buffer is limited to
+ * 2GB, so a table can hold roughly 80 million short keys.
+ */
+public class OffHeapStringLongMap implements MapADT<String, Long>, Closeable {
+
+    private static final int MAGIC = 0x53544C4D; // "STLM"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int SLOT_SIZE = 24;
+    private static final double LOAD_FACTOR = 0.75;
+    // average key length assumed when sizing a new arena
+    private static final int ARENA_BYTES_PER_SLOT = 16;
+
+    // header field offsets
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 4;
+    private static final int SLOTS_AT = 8;
+    private static final int SIZE_AT = 12;
+    private static final int ARENA_USED_AT = 16;
+
+    // slot field offsets
+    private static final int VALUE_AT = 0;
+    private static final int KEY_OFFSET_AT = 8;
+    private static final int KEY_LENGTH_AT = 12;
+    private static final int HASH_AT = 16;
+    private static final int FLAGS_AT = 20;
+    private static final int NULL_VALUE_FLAG = 1;
+
+    private final Path file; // null when the table lives in a direct buffer
+    private ByteBuffer buffer;
+    private int slots;
+    private int mask;
+    private int size;
+    private int arenaStart;
+    private int arenaUsed;
+
+    /**
+     * Creates an empty table in a direct (off-heap) ByteBuffer.
+     * @param capacity the minimum number of slots, rounded up to a power of two
+     */
+    public OffHeapStringLongMap(int capacity) {
+        this.file = null;
+        int slotCount = roundToPowerOfTwo(capacity);
+        attach(allocate(bufferSize(slotCount, slotCount * ARENA_BYTES_PER_SLOT)), slotCount, 0, 0);
+    }
+
+    public OffHeapStringLongMap() {
+        this(64);
+    }
+
+    private OffHeapStringLongMap(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates an empty table backed by a memory-mapped file, replacing any
+     * file that already exists at that path.
+     * @param file the file to store the table in
+     * @param capacity the minimum number of slots, rounded up to a power of two
+     * @return the new table
+     * @throws IOException if the file can't be created or mapped
+     */
+    public static OffHeapStringLongMap create(Path file, int capacity) throws IOException {
+        OffHeapStringLongMap map = new OffHeapStringLongMap(file);
+        int slotCount = roundToPowerOfTwo(capacity);
+        map.attach(map.mapFile(file, bufferSize(slotCount, slotCount * ARENA_BYTES_PER_SLOT)),
+                slotCount, 0, 0);
+        return map;
+    }
+
+    /**
+     * Maps a table that was previously written by create() and its updates.
+     * @param file the file the table is stored in
+     * @return the table, with all of the entries it held when last closed
+     * @throws IOException if the file can't be mapped or doesn't hold a table
+     */
+    public static OffHeapStringLongMap open(Path file) throws IOException {
+        OffHeapStringLongMap map = new OffHeapStringLongMap(file);
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is not an OffHeapStringLongMap: " + file);
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (mapped.getInt(MAGIC_AT) != MAGIC || mapped.getInt(VERSION_AT) != VERSION) {
+            throw new IOException("File is not an OffHeapStringLongMap: " + file);
+        }
+        int slotCount = mapped.getInt(SLOTS_AT);
+        if (Integer.bitCount(slotCount) != 1
+                || HEADER_SIZE + (long) slotCount * SLOT_SIZE > mapped.capacity()) {
+            throw new IOException("Corrupt OffHeapStringLongMap header: " + file);
+        }
+        map.attach(mapped, slotCount, mapped.getInt(SIZE_AT), mapped.getInt(ARENA_USED_AT));
+        return map;
+    }
+
+    private static int roundToPowerOfTwo(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        int rounded = Integer.highestOneBit(capacity);
+        return Math.max(2, rounded < capacity ? rounded << 1 : rounded);
+    }
+
+    private static long bufferSize(int slotCount, long arenaBytes) {
+        long bytes = HEADER_SIZE + (long) slotCount * SLOT_SIZE + arenaBytes;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Table is too large for a single buffer.");
+        }
+        return bytes;
+    }
+
+    /**
+     * Allocates a new zeroed direct buffer for a table that isn't file backed.
+     */
+    private ByteBuffer allocate(long bytes) {
+        return ByteBuffer.allocateDirect((int) bytes);
+    }
+
+    /**
+     * Creates (or truncates) a file of the provided size and maps it.
+     */
+    private MappedByteBuffer mapFile(Path path, long bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+
+    /**
+     * Switches this table over to a buffer, writing its header.
+     */
+    private void attach(ByteBuffer newBuffer, int slotCount, int newSize, int newArenaUsed) {
+        buffer = newBuffer;
+        slots = slotCount;
+        mask = slotCount - 1;
+        size = newSize;
+        arenaStart = HEADER_SIZE + slotCount * SLOT_SIZE;
+        arenaUsed = newArenaUsed;
+        buffer.putInt(MAGIC_AT, MAGIC);
+        buffer.putInt(VERSION_AT, VERSION);
+        buffer.putInt(SLOTS_AT, slots);
+        buffer.putInt(SIZE_AT, size);
+        buffer.putInt(ARENA_USED_AT, arenaUsed);
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slotAt(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private boolean isEmpty(int slot) {
+        return buffer.getInt(slotAt(slot) + KEY_OFFSET_AT) == 0;
+    }
+
+    /**
+     * Compares the key stored in a slot to the encoded bytes of another key.
+     */
+    private boolean keyEquals(int slot, byte[] key) {
+        int at = slotAt(slot);
+        if (buffer.getInt(at + KEY_LENGTH_AT) != key.length) {
+            return false;
+        }
+        int keyAt = arenaStart + buffer.getInt(at + KEY_OFFSET_AT) - 1;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(keyAt + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String keyAt(int slot) {
+        int at = slotAt(slot);
+        byte[] bytes = new byte[buffer.getInt(at + KEY_LENGTH_AT)];
+        buffer.get(arenaStart + buffer.getInt(at + KEY_OFFSET_AT) - 1, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Long valueAt(int slot) {
+        int at = slotAt(slot);
+        if ((buffer.getInt(at + FLAGS_AT) & NULL_VALUE_FLAG) != 0) {
+            return null;
+        }
+        return buffer.getLong(at + VALUE_AT);
+    }
+
+    private static byte[] encode(String key) {
+        if (key == null) {
+            throw new NullPointerException("Key cannot be null.");
+        }
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Probes for a key.
+     * @return the slot holding the key, or the complement (~) of the empty
+     *         slot where it would be inserted
+     */
+    private int findSlot(byte[] key, int hash) {
+        int slot = spread(hash) & mask;
+        while (!isEmpty(slot)) {
+            if (buffer.getInt(slotAt(slot) + HASH_AT) == hash && keyEquals(slot, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return ~slot;
+    }
+
+    /**
+     * Writes a new entry into an empty slot, appending its key to the arena.
+     * The caller must have made sure that the arena has room for the key.
+     */
+    private void writeSlot(int slot, byte[] key, int hash, Long value) {
+        buffer.put(arenaStart + arenaUsed, key);
+        int at = slotAt(slot);
+        buffer.putLong(at + VALUE_AT, value == null ? 0 : value);
+        buffer.putInt(at + KEY_OFFSET_AT, arenaUsed + 1);
+        buffer.putInt(at + KEY_LENGTH_AT, key.length);
+        buffer.putInt(at + HASH_AT, hash);
+        buffer.putInt(at + FLAGS_AT, value == null ? NULL_VALUE_FLAG : 0);
+        arenaUsed += key.length;
+        buffer.putInt(ARENA_USED_AT, arenaUsed);
+    }
+
+    /**
+     * Adds a key that is known not to be present, growing the table first
+     * when the slots or the arena are too full.
+     */
+    private void add(int slot, byte[] key, int hash, Long value) {
+        boolean slotsFull = size + 1 > LOAD_FACTOR * slots;
+        boolean arenaFull = arenaUsed + key.length > buffer.capacity() - arenaStart;
+        if (slotsFull || arenaFull) {
+            resize(slotsFull ? slots * 2 : slots, key.length);
+            slot = ~findSlot(key, hash);
+        }
+        writeSlot(slot, key, hash, value);
+        size++;
+        buffer.putInt(SIZE_AT, size);
+    }
+
+    /**
+     * Copies every live entry into a new buffer with the provided number of
+     * slots, and an arena with room for the live keys, extraBytes more, and
+     * space to grow. For file backed tables the new buffer is written to a
+     * temporary file that then replaces the original one.
+     */
+    private void resize(int newSlots, int extraBytes) {
+        // measure the live keys, which drops the space of removed ones
+        long liveBytes = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            if (!isEmpty(slot)) {
+                liveBytes += buffer.getInt(slotAt(slot) + KEY_LENGTH_AT);
+            }
+        }
+        long arenaBytes = Math.max(2 * (liveBytes + extraBytes), (long) newSlots * ARENA_BYTES_PER_SLOT);
+
+        try {
+            Path temp = file == null ? null
+                    : file.resolveSibling(file.getFileName() + ".resize");
+            long bytes = bufferSize(newSlots, arenaBytes);
+            ByteBuffer newBuffer = file == null ? allocate(bytes) : mapFile(temp, bytes);
+
+            ByteBuffer oldBuffer = buffer;
+            int oldSlots = slots;
+            int oldArenaStart = arenaStart;
+            attach(newBuffer, newSlots, 0, 0);
+            for (int slot = 0; slot < oldSlots; slot++) {
+                int at = HEADER_SIZE + slot * SLOT_SIZE;
+                int keyOffset = oldBuffer.getInt(at + KEY_OFFSET_AT);
+                if (keyOffset == 0) {
+                    continue;
+                }
+                byte[] key = new byte[oldBuffer.getInt(at + KEY_LENGTH_AT)];
+                oldBuffer.get(oldArenaStart + keyOffset - 1, key);
+                int hash = oldBuffer.getInt(at + HASH_AT);
+                boolean nullValue = (oldBuffer.getInt(at + FLAGS_AT) & NULL_VALUE_FLAG) != 0;
+                writeSlot(~findSlot(key, hash), key, hash,
+                        nullValue ? null : oldBuffer.getLong(at + VALUE_AT));
+                size++;
+            }
+            buffer.putInt(SIZE_AT, size);
+
+            if (file != null) {
+                ((MappedByteBuffer) buffer).force();
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not resize table in " + file, e);
+        }
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection. It is ok that the value is null.
+     * @param key the key of the key,value pair
+     * @param value the value that key maps to
+     * @throws IllegalArgumentException if key already maps to a value
+     * @throws NullPointerException if key is null
+     */
+    public void put(String key, Long value) throws IllegalArgumentException {
+        if (!putIfAbsent(key, value)) {
+            throw new IllegalArgumentException("Key already maps to a value.");
+        }
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection only if key does
+     * not already map to a value.
+     * @param key the key of the key,value pair
+     * @param value the value that key maps to
+     * @return true if the pair was added, or false if key already maps to a
+     *         value (which is left unchanged)
+     * @throws NullPointerException if key is null
+     */
+    public boolean putIfAbsent(String key, Long value) {
+        byte[] bytes = encode(key);
+        int hash = key.hashCode();
+        int slot = findSlot(bytes, hash);
+        if (slot >= 0) {
+            return false;
+        }
+        add(~slot, bytes, hash, value);
+        return true;
+    }
+
+    /**
+     * Retrieves the value that key maps to, or defaultValue when key is not
+     * stored in this collection.
+     * @param key the key to look up
+     * @param defaultValue the value to return when key is not found
+     * @return the value that key maps to, or defaultValue
+     * @throws NullPointerException if key is null
+     */
+    public Long getOrDefault(String key, Long defaultValue) {
+        int slot = findSlot(encode(key), key.hashCode());
+        return slot >= 0 ? valueAt(slot) : defaultValue;
+    }
+
+    /**
+     * Retrieves the value that key maps to. When key is not stored in this
+     * collection, the mappingFunction is first used to compute a value that
+     * key is then mapped to.
+     * @param key the key to look up
+     * @param mappingFunction computes the value for a key that is not found,
+     *        and must not modify this collection
+     * @return the existing or newly computed value that key maps to
+     * @throws NullPointerException if key is null
+     */
+    public Long computeIfAbsent(String key, Function<? super String, ? extends Long> mappingFunction) {
+        byte[] bytes = encode(key);
+        int hash = key.hashCode();
+        int slot = findSlot(bytes, hash);
+        if (slot >= 0) {
+            return valueAt(slot);
+        }
+        Long value = mappingFunction.apply(key);
+        add(~slot, bytes, hash, value);
+        return value;
+    }
+
+    /**
+     * Checks whether a key maps to a value in this collection.
+     * @param key the key to check
+     * @return true if the key maps to a value, and false is the
+     *         key doesn't map to a value
+     */
+    public boolean containsKey(String key) {
+        return findSlot(encode(key), key.hashCode()) >= 0;
+    }
+
+    /**
+     * Retrieves the specific value that a key maps to.
+     * @param key the key to look up
+     * @return the value that key maps to
+     * @throws NoSuchElementException when key is not stored in this
+     *         collection
+     */
+    public Long get(String key) throws NoSuchElementException {
+        int slot = findSlot(encode(key), key.hashCode());
+        if (slot < 0) {
+            throw new NoSuchElementException("Key is not stored in this collection.");
+        }
+        return valueAt(slot);
+    }
+
+    /**
+     * Remove the mapping for a key from this collection. Later entries of its
+     * probe run are shifted back, so lookups never need tombstones.
+     * @param key the key whose mapping to remove
+     * @return the value that the removed key mapped to
+     * @throws NoSuchElementException when key is not stored in this
+     *         collection
+     */
+    public Long remove(String key) throws NoSuchElementException {
+        int slot = findSlot(encode(key), key.hashCode());
+        if (slot < 0) {
+            throw new NoSuchElementException("Key is not stored in this collection.");
+        }
+        Long removed = valueAt(slot);
+
+        byte[] moved = new byte[SLOT_SIZE];
+        int next = (slot + 1) & mask;
+        while (!isEmpty(next)) {
+            int home = spread(buffer.getInt(slotAt(next) + HASH_AT)) & mask;
+            // move the entry back unless its home lies between the gap and it
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                buffer.get(slotAt(next), moved);
+                buffer.put(slotAt(slot), moved);
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        buffer.put(slotAt(slot), new byte[SLOT_SIZE]);
+        size--;
+        buffer.putInt(SIZE_AT, size);
+        return removed;
+    }
+
+    /**
+     * Removes all key,value pairs from this collection.
+     */
+    public void clear() {
+        byte[] empty = new byte[SLOT_SIZE];
+        for (int slot = 0; slot < slots; slot++) {
+            buffer.put(slotAt(slot), empty);
+        }
+        size = 0;
+        arenaUsed = 0;
+        buffer.putInt(SIZE_AT, 0);
+        buffer.putInt(ARENA_USED_AT, 0);
+    }
+
+    /**
+     * Retrieves the number of keys stored in this collection.
+     * @return the number of keys stored in this collection
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieves this collection's capacity.
+     * @return the number of slots in the underlying buffer
+     */
+    public int getCapacity() {
+        return slots;
+    }
+
+    /**
+     * Retrieves a list of all keys in this hashtable. The keys are decoded
+     * onto the heap, so this is meant for small tables or diagnostics.
+     * @return a list containing all keys in the hashtable
+     */
+    public List<String> getKeys() {
+        List<String> keyList = new ArrayList<>(size);
+        forEachKey(keyList::add);
+        return keyList;
+    }
+
+    /**
+     * Decodes every key in this hashtable and passes it to action, without
+     * building a list of all of them.
+     * @param action the visitor to call with each key
+     */
+    public void forEachKey(Consumer<? super String> action) {
+        for (int slot = 0; slot < slots; slot++) {
+            if (!isEmpty(slot)) {
+                action.accept(keyAt(slot));
+            }
+        }
+    }
+
+    /**
+     * Retrieves a live view of this hashtable's keys, which decodes each key
+     * from the buffer only when the iterator reaches it.
+     * @return an iterable view of the keys in this hashtable
+     */
+    public Iterable<String> keys() {
+        return () -> new Iterator<String>() {
+            private int next = advance(0);
+
+            // finds the first occupied slot at or after slot
+            private int advance(int slot) {
+                while (slot < slots && isEmpty(slot)) {
+                    slot++;
+                }
+                return slot;
+            }
+
+            public boolean hasNext() {
+                return next < slots;
+            }
+
+            public String next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more keys in this collection.");
+                }
+                String key = keyAt(next);
+                next = advance(next + 1);
+                return key;
+            }
+        };
+    }
+
+    /**
+     * Writes any changes to a file backed table out to its file. Does
+     * nothing for tables in a direct buffer.
+     */
+    public void force() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    /**
+     * Writes any changes out to the file backing this table. The mapping
+     * itself is released once the table is garbage collected.
+     */
+    public void close() {
+        force();
+    }
+
+
+    // TESTERS
+    /**
+     * Test put(), get(), remove() and null values in a direct buffer
+     */
+    @Test
+    public void testDirectBuffer() {
+        OffHeapStringLongMap map = new OffHeapStringLongMap();
+        map.put("Memorial Union", 1L);
+        map.put("Science Hall", 2L);
+        map.put("", 3L);
+        map.put("Bascom Hall", null);
+
+        assertEquals(4, map.getSize());
+        assertEquals(1L, map.get("Memorial Union"));
+        assertEquals(3L, map.get(""));
+        assertTrue(map.containsKey("Bascom Hall"));
+        assertNull(map.get("Bascom Hall"));
+        assertThrows(IllegalArgumentException.class, () -> map.put("Science Hall", 5L));
+        assertThrows(NoSuchElementException.class, () -> map.get("Union South"));
+        assertEquals(2L, map.remove("Science Hall"));
+        assertTrue(!map.containsKey("Science Hall"));
+        assertEquals(-1L, map.getOrDefault("Science Hall", -1L));
+        assertEquals(9L, map.computeIfAbsent("Science Hall", k -> 9L));
+    }
+
+    /**
+     * Test keys that all share one hashCode, including removing some of them
+     */
+    @Test
+    public void testCollisions() {
+        // "Aa" and "BB" have the same hashCode, so all of these strings collide
+        List<String> colliding = new ArrayList<>();
+        colliding.add("");
+        for (int i = 0; i < 8; i++) {
+            List<String> longer = new ArrayList<>();
+            for (String prefix : colliding) {
+                longer.add(prefix + "Aa");
+                longer.add(prefix + "BB");
+            }
+            colliding = longer;
+        }
+
+        OffHeapStringLongMap map = new OffHeapStringLongMap(1024);
+        for (int i = 0; i < colliding.size(); i++) {
+            map.put(colliding.get(i), (long) i);
+        }
+        for (int i = 0; i < colliding.size(); i += 2) {
+            assertEquals((long) i, map.remove(colliding.get(i)));
+        }
+        for (int i = 0; i < colliding.size(); i++) {
+            assertEquals(i % 2 == 1, map.containsKey(colliding.get(i)));
+        }
+        assertEquals(128, map.getSize());
+    }
+
+    /**
+     * Test growing both the slots and the arena, and that removed keys'
+     * arena space is reclaimed when the table is copied
+     */
+    @Test
+    public void testResize() {
+        OffHeapStringLongMap map = new OffHeapStringLongMap(2);
+        for (long i = 0; i < 10_000; i++) {
+            map.put("a rather long location name number " + i, i);
+        }
+        assertEquals(10_000, map.getSize());
+        assertTrue(map.getCapacity() >= 10_000 / LOAD_FACTOR);
+        for (long i = 0; i < 10_000; i++) {
+            assertEquals(i, map.get("a rather long location name number " + i));
+        }
+        for (long i = 0; i < 10_000; i++) {
+            map.remove("a rather long location name number " + i);
+            map.put("short" + i, i);
+        }
+        assertEquals(10_000, map.getSize());
+        assertEquals(9999L, map.get("short9999"));
+    }
+
+    /**
+     * Test that a file backed table keeps its contents when reopened, both
+     * before and after it has resized
+     */
+    @Test
+    public void testReopenFromFile() throws IOException {
+        Path file = Files.createTempFile("locations", ".map");
+        try {
+            try (OffHeapStringLongMap map = OffHeapStringLongMap.create(file, 4)) {
+                map.put("Memorial Union", 105L);
+                map.put("Bascom Hall", null);
+            }
+            try (OffHeapStringLongMap map = OffHeapStringLongMap.open(file)) {
+                assertEquals(2, map.getSize());
+                assertEquals(105L, map.get("Memorial Union"));
+                assertNull(map.get("Bascom Hall"));
+                for (long i = 0; i < 5000; i++) {
+                    map.put("node" + i, i);
+                }
+                map.remove("Memorial Union");
+            }
+            try (OffHeapStringLongMap map = OffHeapStringLongMap.open(file)) {
+                assertEquals(5001, map.getSize());
+                assertEquals(4321L, map.get("node4321"));
+                assertTrue(!map.containsKey("Memorial Union"));
+                assertEquals(5001, map.getKeys().size());
+            }
+
+            Files.write(file, new byte[64]);
+            assertThrows(IOException.class, () -> OffHeapStringLongMap.open(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
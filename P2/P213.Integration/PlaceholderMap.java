@@ -1,6 +1,8 @@
 import java.util.List;
 import java.util.HashMap;
 import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Implements MapADT using an instance of java.util.HashMap.
@@ -19,6 +21,35 @@ public class PlaceholderMap<KeyType, ValueType> implements MapADT<KeyType, Value
         baseMap.put(key, value);
     }
 
+    @Override
+    public boolean putIfAbsent(KeyType key, ValueType value) {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        if (baseMap.containsKey(key))
+            return false;
+        baseMap.put(key, value);
+        return true;
+    }
+
+    @Override
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        return baseMap.getOrDefault(key, defaultValue);
+    }
+
+    @Override
+    public ValueType computeIfAbsent(KeyType key,
+            Function<? super KeyType, ? extends ValueType> mappingFunction) {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        if (baseMap.containsKey(key))
+            return baseMap.get(key);
+        ValueType value = mappingFunction.apply(key);
+        baseMap.put(key, value);
+        return value;
+    }
+
     @Override
     public boolean containsKey(KeyType key) {
         if (key == null)
@@ -65,4 +96,14 @@ public class PlaceholderMap<KeyType, ValueType> implements MapADT<KeyType, Value
     public List<KeyType> getKeys() {
         throw new UnsupportedOperationException("PlaceholderMap does not support the .getKeys() method");
     }
+
+    @Override
+    public Iterable<KeyType> keys() {
+        return baseMap.keySet();
+    }
+
+    @Override
+    public void forEachKey(Consumer<? super KeyType> action) {
+        baseMap.keySet().forEach(action);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,574 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A hashtable implementation of the MapADT interface that uses open addressing
+ * instead of chaining. Keys, values and cached hashes are stored in parallel
+ * flat arrays, and collisions are resolved with Robin Hood linear probing, so
+ * a lookup walks a short run of adjacent slots instead of a linked list.
+ */
+public class ProbingHashtableMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+    // resize once this fraction of the slots are in use (same as HashtableMap)
+    private static final double LOAD_FACTOR = 0.8;
+    // the number of slots a new or cleared map starts with
+    private static final int DEFAULT_CAPACITY = 64;
+
+    protected Object[] keys;
+    protected Object[] values;
+    protected int[] hashes;
+    private int mask;
+    private int size;
+
+    /**
+     * Creates a map with at least the requested number of slots. The capacity
+     * is rounded up to the next power of two so that slots can be selected
+     * with a bit mask instead of a modulo.
+     * @param capacity the minimum number of slots in the underlying arrays
+     */
+    public ProbingHashtableMap(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive.");
+        }
+        allocate(roundToPowerOfTwo(capacity));
+    }
+
+    public ProbingHashtableMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Rounds the provided capacity up to the next power of two.
+     */
+    private static int roundToPowerOfTwo(int capacity) {
+        int rounded = Integer.highestOneBit(capacity);
+        if (rounded < capacity) {
+            rounded <<= 1;
+        }
+        return Math.max(rounded, 2);
+    }
+
+    /**
+     * Replaces the slot arrays with empty arrays of the provided length.
+     */
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Spreads the bits of a key's hashCode so that keys whose hashCodes only
+     * differ in their upper bits still land in different slots.
+     * @throws NullPointerException if key is null
+     */
+    protected static int spread(Object key) {
+        if (key == null) {
+            throw new NullPointerException("Key cannot be null.");
+        }
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns how far the entry in the provided slot sits from its home slot.
+     */
+    private int probeDistance(int slot) {
+        return (slot - (hashes[slot] & mask)) & mask;
+    }
+
+    /**
+     * Probes for the slot that holds key.
+     * @return the index of that slot, or when key is not stored here, the
+     *         bitwise complement (~) of the slot where it would be inserted
+     */
+    protected int findSlot(Object key, int hash) {
+        int slot = hash & mask;
+        for (int distance = 0; ; distance++) {
+            Object k = keys[slot];
+            // an empty slot, or a slot whose entry is closer to home than we
+            // are, means that key would have been placed before this point
+            if (k == null || probeDistance(slot) < distance) {
+                return ~slot;
+            }
+            if (hashes[slot] == hash && k.equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Places a key that is known not to be present into the table, starting
+     * at the slot where a probe for it stopped and swapping it with any
+     * richer entry it passes along the way.
+     */
+    private void insertAt(int slot, Object key, Object value, int hash) {
+        int distance = (slot - (hash & mask)) & mask;
+        while (keys[slot] != null) {
+            int existing = probeDistance(slot);
+            if (existing < distance) {
+                // steal this slot and keep probing with the evicted entry
+                Object k = keys[slot];
+                Object v = values[slot];
+                int h = hashes[slot];
+                keys[slot] = key;
+                values[slot] = value;
+                hashes[slot] = hash;
+                key = k;
+                value = v;
+                hash = h;
+                distance = existing;
+            }
+            slot = (slot + 1) & mask;
+            distance++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        hashes[slot] = hash;
+    }
+
+    /**
+     * Inserts a new entry at the slot returned by a failed findSlot, and
+     * grows the table when that pushes it past the load factor.
+     */
+    private void add(int slot, Object key, Object value, int hash) {
+        insertAt(slot, key, value, hash);
+        size++;
+        if ((double) size / keys.length >= LOAD_FACTOR) {
+            resize();
+        }
+    }
+
+    /**
+     * Resizes the hash table by doubling its capacity and reinserting all
+     * entries using their cached hashes.
+     */
+    private void resize() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                insertAt(oldHashes[i] & mask, oldKeys[i], oldValues[i], oldHashes[i]);
+            }
+        }
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection. It is ok that the value is null.
+     * @param key the key of the key,value pair
+     * @param value the value that key maps to
+     * @throws IllegalArgumentException if key already maps to a value
+     * @throws NullPointerException if key is null
+     */
+    public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+        int hash = spread(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            throw new IllegalArgumentException("Key already maps to a value.");
+        }
+        add(~slot, key, value, hash);
+    }
+
+    /**
+     * Adds a new key,value pair/mapping to this collection only if key does
+     * not already map to a value.
+     * @param key the key of the key,value pair
+     * @param value the value that key maps to
+     * @return true if the pair was added, or false if key already maps to a
+     *         value (which is left unchanged)
+     * @throws NullPointerException if key is null
+     */
+    public boolean putIfAbsent(KeyType key, ValueType value) {
+        int hash = spread(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            return false;
+        }
+        add(~slot, key, value, hash);
+        return true;
+    }
+
+    /**
+     * Retrieves the value that key maps to, or defaultValue when key is not
+     * stored in this collection.
+     * @param key the key to look up
+     * @param defaultValue the value to return when key is not found
+     * @return the value that key maps to, or defaultValue
+     * @throws NullPointerException if key is null
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType getOrDefault(KeyType key, ValueType defaultValue) {
+        int slot = findSlot(key, spread(key));
+        return slot >= 0 ? (ValueType) values[slot] : defaultValue;
+    }
+
+    /**
+     * Retrieves the value that key maps to. When key is not stored in this
+     * collection, the mappingFunction is first used to compute a value that
+     * key is then mapped to.
+     * @param key the key to look up
+     * @param mappingFunction computes the value for a key that is not found,
+     *        and must not modify this collection
+     * @return the existing or newly computed value that key maps to
+     * @throws NullPointerException if key is null
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType computeIfAbsent(KeyType key,
+            Function<? super KeyType, ? extends ValueType> mappingFunction) {
+        int hash = spread(key);
+        int slot = findSlot(key, hash);
+        if (slot >= 0) {
+            return (ValueType) values[slot];
+        }
+        ValueType value = mappingFunction.apply(key);
+        add(~slot, key, value, hash);
+        return value;
+    }
+
+    /**
+     * Checks whether a key maps to a value in this collection.
+     * @param key the key to check
+     * @return true if the key maps to a value, and false is the
+     *         key doesn't map to a value
+     */
+    public boolean containsKey(KeyType key) {
+        return findSlot(key, spread(key)) >= 0;
+    }
+
+    /**
+     * Retrieves the specific value that a key maps to.
+     * @param key the key to look up
+     * @return the value that key maps to
+     * @throws NoSuchElementException when key is not stored in this
+     *         collection
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType get(KeyType key) throws NoSuchElementException {
+        int slot = findSlot(key, spread(key));
+        if (slot < 0) {
+            throw new NoSuchElementException("Key is not stored in this collection.");
+        }
+        return (ValueType) values[slot];
+    }
+
+    /**
+     * Remove the mapping for a key from this collection. The entries that
+     * follow the removed one are shifted back a slot, so no tombstones are
+     * left behind to slow down later lookups.
+     * @param key the key whose mapping to remove
+     * @return the value that the removed key mapped to
+     * @throws NoSuchElementException when key is not stored in this
+     *         collection
+     */
+    @SuppressWarnings("unchecked")
+    public ValueType remove(KeyType key) throws NoSuchElementException {
+        int slot = findSlot(key, spread(key));
+        if (slot < 0) {
+            throw new NoSuchElementException("Key is not stored in this collection.");
+        }
+        ValueType removed = (ValueType) values[slot];
+
+        // shift following entries back until one is empty or already home
+        int next = (slot + 1) & mask;
+        while (keys[next] != null && probeDistance(next) > 0) {
+            keys[slot] = keys[next];
+            values[slot] = values[next];
+            hashes[slot] = hashes[next];
+            slot = next;
+            next = (next + 1) & mask;
+        }
+        keys[slot] = null;
+        values[slot] = null;
+        hashes[slot] = 0;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Removes all key,value pairs from this collection in constant time, by
+     * replacing the slot arrays with empty ones of the default capacity
+     * rather than emptying every slot of the current ones.
+     */
+    public void clear() {
+        allocate(DEFAULT_CAPACITY);
+        size = 0;
+    }
+
+    /**
+     * Retrieves the number of keys stored in this collection.
+     * @return the number of keys stored in this collection
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Retrieves this collection's capacity.
+     * @return the size of the underlying arrays for this collection
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Retrieves a list of all keys in this hashtable
+     * @return a list containing all keys in the hashtable
+     */
+    public List<KeyType> getKeys() {
+        List<KeyType> keyList = new ArrayList<>(size);
+        forEachKey(keyList::add);
+        return keyList;
+    }
+
+    /**
+     * Passes every key in this hashtable to action, in slot order.
+     * @param action the visitor to call with each key
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachKey(Consumer<? super KeyType> action) {
+        Object[] slots = keys;
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] != null) {
+                action.accept((KeyType) slots[i]);
+            }
+        }
+    }
+
+    /**
+     * Retrieves a live view of this hashtable's keys, which walks the key
+     * array directly instead of copying it into a list.
+     * @return an iterable view of the keys in this hashtable
+     */
+    public Iterable<KeyType> keys() {
+        return () -> new Iterator<KeyType>() {
+            private int next = advance(0);
+
+            // finds the first occupied slot at or after slot
+            private int advance(int slot) {
+                while (slot < keys.length && keys[slot] == null) {
+                    slot++;
+                }
+                return slot;
+            }
+
+            public boolean hasNext() {
+                return next < keys.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            public KeyType next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException("No more keys in this collection.");
+                }
+                KeyType key = (KeyType) keys[next];
+                next = advance(next + 1);
+                return key;
+            }
+        };
+    }
+
+
+    // TESTERS
+    /**
+     * Test both constructors, including rounding up to a power of two
+     */
+    @Test
+    public void testConstructorAndCapacity() {
+        ProbingHashtableMap<String, Integer> map1 = new ProbingHashtableMap<>(100);
+        assertEquals(128, map1.getCapacity());
+
+        ProbingHashtableMap<String, Integer> map2 = new ProbingHashtableMap<>();
+        assertEquals(64, map2.getCapacity());
+    }
+
+    /**
+     * Test put(), get(), and getSize()
+     */
+    @Test
+    public void testPutAndGet() {
+        ProbingHashtableMap<String, Integer> map = new ProbingHashtableMap<>();
+        map.put("one", 1);
+        map.put("two", 2);
+        map.put("three", 3);
+
+        assertEquals(1, map.get("one"));
+        assertEquals(2, map.get("two"));
+        assertEquals(3, map.get("three"));
+        assertEquals(3, map.getSize());
+        assertThrows(NoSuchElementException.class, () -> map.get("four"));
+    }
+
+    /**
+     * Test remove()
+     */
+    @Test
+    public void testRemove() {
+        ProbingHashtableMap<String, Integer> map = new ProbingHashtableMap<>();
+        map.put("one", 1);
+        map.put("two", 2);
+        map.put("three", 3);
+
+        Integer removed = map.remove("two");
+        assertEquals(2, map.getSize());
+        assertEquals(2, removed);
+        assertTrue(!map.containsKey("two"));
+        assertThrows(NoSuchElementException.class, () -> map.remove("two"));
+    }
+
+    /**
+     * Test clear()
+     */
+    @Test
+    public void testClear() {
+        ProbingHashtableMap<Integer, String> map = new ProbingHashtableMap<>();
+        map.put(1, "one");
+        map.put(2, "two");
+
+        map.clear();
+        assertEquals(0, map.getSize());
+        assertTrue(!map.containsKey(1));
+
+        map.put(3, "three");
+        assertEquals("three", map.get(3));
+
+        // a map that grew goes back to the default capacity
+        for (int i = 0; i < 1000; i++) {
+            map.put(100 + i, "many");
+        }
+        assertTrue(map.getCapacity() > DEFAULT_CAPACITY);
+        map.clear();
+        assertEquals(DEFAULT_CAPACITY, map.getCapacity());
+        assertTrue(!map.containsKey(3));
+        map.put(3, "three");
+        assertEquals(1, map.getSize());
+    }
+
+    /**
+     * Test duplicate keys and null values
+     */
+    @Test
+    public void testDuplicateKeysAndNullValues() {
+        ProbingHashtableMap<Integer, String> map = new ProbingHashtableMap<>();
+        map.put(1, "one");
+        map.put(2, null);
+
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, "duplicate"));
+        assertThrows(NullPointerException.class, () -> map.put(null, "null"));
+        assertEquals("one", map.get(1));
+        assertTrue(map.containsKey(2));
+        assertNull(map.get(2));
+    }
+
+    /**
+     * Checks that the table resizes at the same point as HashtableMap
+     */
+    @Test
+    public void testTableResize() {
+        ProbingHashtableMap<String, String> map = new ProbingHashtableMap<>(8);
+        for (char c = 'a'; c <= 'f'; c++) {
+            map.put("" + c, "" + c);
+        }
+        assertEquals(8, map.getCapacity());
+
+        map.put("g", "g");
+        assertEquals(16, map.getCapacity());
+        for (char c = 'a'; c <= 'g'; c++) {
+            assertEquals("" + c, map.get("" + c));
+        }
+    }
+
+    /**
+     * Fills a table with keys that all share the same hashCode, then removes
+     * some of them to check that backward shifting keeps every key reachable
+     */
+    @Test
+    public void testCollisionsAndRemoval() {
+        // "Aa" and "BB" have the same hashCode, so every string built from
+        // nine of these blocks collides with every other one
+        List<String> colliding = new ArrayList<>();
+        colliding.add("");
+        for (int i = 0; i < 9; i++) {
+            List<String> longer = new ArrayList<>();
+            for (String prefix : colliding) {
+                longer.add(prefix + "Aa");
+                longer.add(prefix + "BB");
+            }
+            colliding = longer;
+        }
+
+        ProbingHashtableMap<String, Integer> map = new ProbingHashtableMap<>();
+        for (int i = 0; i < colliding.size(); i++) {
+            map.put(colliding.get(i), i);
+        }
+        for (int i = 0; i < colliding.size(); i += 3) {
+            assertEquals(i, map.remove(colliding.get(i)));
+        }
+        for (int i = 0; i < colliding.size(); i++) {
+            assertEquals(i % 3 != 0, map.containsKey(colliding.get(i)));
+        }
+        assertEquals(341, map.getSize());
+        assertEquals(341, map.getKeys().size());
+    }
+
+    /**
+     * Test putIfAbsent(), getOrDefault() and computeIfAbsent()
+     */
+    @Test
+    public void testSingleProbeOperations() {
+        ProbingHashtableMap<String, Integer> map = new ProbingHashtableMap<>(8);
+        assertTrue(map.putIfAbsent("one", 1));
+        assertFalse(map.putIfAbsent("one", 100));
+        assertEquals(1, map.get("one"));
+
+        assertEquals(1, map.getOrDefault("one", -1));
+        assertEquals(-1, map.getOrDefault("two", -1));
+
+        assertEquals(2, map.computeIfAbsent("two", k -> 2));
+        assertEquals(2, map.computeIfAbsent("two", k -> 200));
+        for (int i = 0; i < 100; i++) {
+            map.computeIfAbsent("key" + i, k -> k.length());
+        }
+        assertEquals(102, map.getSize());
+        assertEquals(5, map.get("key42"));
+    }
+
+    /**
+     * Test that keys() and forEachKey() visit every key exactly once
+     */
+    @Test
+    public void testKeyViews() {
+        ProbingHashtableMap<Integer, Integer> map = new ProbingHashtableMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        map.remove(50);
+
+        int[] visits = new int[100];
+        for (Integer key : map.keys()) {
+            visits[key]++;
+        }
+        map.forEachKey(key -> visits[key]++);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i == 50 ? 0 : 2, visits[i]);
+        }
+
+        // the view is live, so it sees keys added after it was created
+        Iterable<Integer> view = map.keys();
+        map.put(500, 500);
+        int count = 0;
+        for (Integer key : view) {
+            count++;
+        }
+        assertEquals(100, count);
+    }
+}
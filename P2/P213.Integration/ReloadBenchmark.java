@@ -0,0 +1,84 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares reloading a large graph by clearing it and inserting every edge
+ * again with reloading it the way Backend does, when a small share of the
+ * weights change between two versions of the same DOT file. Backend reads
+ * the new file into an EdgeList while queries go on, and only blocks them
+ * while replaceEdges changes the weights that differ.
+ *
+ * Run with: java ReloadBenchmark [edges] [nodes] [changedPercent]
+ * The graph has 2 million edges between 50 thousand locations by default,
+ * and 1 percent of its weights change.
+ */
+public class ReloadBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int edges = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int nodes = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+        double changed = args.length > 2 ? Double.parseDouble(args[2]) / 100 : 0.01;
+        Path before = Files.createTempFile("before", ".dot");
+        Path after = Files.createTempFile("after", ".dot");
+        try {
+            writeGraph(before, edges, nodes, 0);
+            writeGraph(after, edges, nodes, changed);
+            System.out.printf("%d edges between %d nodes, %.1f%% of weights changed%n",
+                    edges, nodes, changed * 100);
+
+            for (int round = 0; round < 2; round++) {
+                DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+                DotGraphLoader.load(before.toString(), graph, ForkJoinPool.commonPool());
+                long start = System.nanoTime();
+                graph.clear();
+                DotGraphLoader.load(after.toString(), graph, ForkJoinPool.commonPool());
+                report("clear and load", start);
+
+                graph = new DijkstraGraph<>();
+                DotGraphLoader.load(before.toString(), graph, ForkJoinPool.commonPool());
+                for (String name : new String[] {"changed", "unchanged"}) {
+                    start = System.nanoTime();
+                    EdgeList edgeList = DotGraphLoader.readEdges(after.toString(), ForkJoinPool.commonPool());
+                    report("read, " + name, start);
+                    start = System.nanoTime();
+                    int changes = graph.replaceEdges(edgeList.names, edgeList.preds, edgeList.succs,
+                            edgeList.weights);
+                    report("apply " + changes + " changes", start);
+                }
+            }
+        } finally {
+            Files.delete(before);
+            Files.delete(after);
+        }
+    }
+
+    /**
+     * Writes the same random edges for the same edges and nodes, with a
+     * changed share of them given a different weight.
+     */
+    private static void writeGraph(Path file, int edges, int nodes, double changed)
+            throws IOException {
+        Random random = new Random(1);
+        Random reweigh = new Random(2);
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("digraph benchmark {\n");
+            for (int i = 0; i < edges; i++) {
+                double weight = Math.round(random.nextDouble() * 3000) / 10.0;
+                if (reweigh.nextDouble() < changed) {
+                    weight += 1;
+                }
+                writer.write("\t\"Location " + random.nextInt(nodes) + "\" -> \"Location "
+                        + random.nextInt(nodes) + "\" [seconds=" + weight + "];\n");
+            }
+            writer.write("}\n");
+        }
+    }
+
+    private static void report(String name, long start) {
+        System.out.printf("  %-26s %8.0f ms%n", name, (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,57 @@
+import java.util.Arrays;
+
+/**
+ * Prints a latency histogram of individual HashtableMap.put calls with and
+ * without incremental resizing. A stop-the-world resize is rare but long,
+ * so it only shows up in the highest percentiles and the max, which the
+ * incremental mode flattens. In exchange, the puts made while a resize is
+ * in progress each move a few buckets, which raises the lower percentiles
+ * a little. GC pauses can still land in either run.
+ *
+ * Run with: java ResizeLatencyBenchmark [puts] [rounds]
+ * Makes 2^19 puts into a map that starts with 16 buckets, 3 times, by default.
+ */
+public class ResizeLatencyBenchmark {
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 19;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        // warm up both modes so that the timed runs measure compiled code
+        putLatencies(count, false);
+        putLatencies(count, true);
+
+        System.out.println("put latency (ns)        p50      p99    p99.9   p99.99        max");
+        for (int round = 0; round < rounds; round++) {
+            for (boolean incremental : new boolean[] {false, true}) {
+                long[] latencies = putLatencies(count, incremental);
+                Arrays.sort(latencies);
+                System.out.printf("%-18s %8d %8d %8d %8d %10d%n",
+                        incremental ? "incremental" : "stop-the-world",
+                        latencies[count / 2], latencies[(int) (count * 0.99)],
+                        latencies[(int) (count * 0.999)], latencies[(int) (count * 0.9999)],
+                        latencies[count - 1]);
+            }
+        }
+    }
+
+    /**
+     * Times each of count puts into a new map with a small initial capacity.
+     */
+    private static long[] putLatencies(int count, boolean incremental) {
+        HashtableMap<Integer, Integer> map = new HashtableMap<>(16, incremental);
+        Integer[] keys = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = i * 31;
+        }
+        long[] latencies = new long[count];
+        for (int i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            map.put(keys[i], keys[i]);
+            latencies[i] = System.nanoTime() - start;
+        }
+        if (map.getSize() != count) {
+            throw new IllegalStateException("Lost puts: " + map.getSize() + " of " + count);
+        }
+        return latencies;
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of one shortest path search: the data of each node along the
+ * path from start to end, together with the cost of each hop (the weight of
+ * the edge between consecutive nodes) and the cumulative cost of reaching
+ * each node. Callers that need both the locations and the times along a
+ * route can read them from this one object instead of searching again for
+ * every hop.
+ */
+public class ShortestPath<NodeType> {
+
+    private final List<NodeType> nodes;
+    private final double[] hopCosts;
+    private final double[] cumulativeCosts;
+
+    /**
+     * Creates a path result from its nodes and the weights of the edges
+     * between them.
+     *
+     * @param nodes    the data of each node along the path, starting with the
+     *                 start node's and ending with the end node's
+     * @param hopCosts hopCosts[i] is the weight of the edge from nodes.get(i)
+     *                 to nodes.get(i+1)
+     * @throws IllegalArgumentException if nodes is empty, or if there isn't
+     *                                  exactly one hop cost per edge
+     */
+    public ShortestPath(List<NodeType> nodes, double[] hopCosts) {
+        if (nodes.isEmpty() || hopCosts.length != nodes.size() - 1) {
+            throw new IllegalArgumentException("A path needs one hop cost between each pair of nodes.");
+        }
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        this.hopCosts = hopCosts.clone();
+        // sum the hops in path order, which is the order a search adds them in
+        this.cumulativeCosts = new double[nodes.size()];
+        for (int i = 0; i < hopCosts.length; i++) {
+            cumulativeCosts[i + 1] = cumulativeCosts[i] + hopCosts[i];
+        }
+    }
+
+    /**
+     * Retrieves the data of each node along the path, in order.
+     *
+     * @return an unmodifiable list that starts with the start data and ends
+     *         with the end data
+     */
+    public List<NodeType> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Retrieves the cost of each hop along the path, in order.
+     *
+     * @return a new list with one fewer cost than there are nodes
+     */
+    public List<Double> getHopCosts() {
+        return toList(hopCosts);
+    }
+
+    /**
+     * Retrieves the cost of the path from the start to each node along it.
+     *
+     * @return a new list with one cost per node, starting with 0.0
+     */
+    public List<Double> getCumulativeCosts() {
+        return toList(cumulativeCosts);
+    }
+
+    /**
+     * Retrieves the cost of the whole path.
+     *
+     * @return the sum of all hop costs
+     */
+    public double getTotalCost() {
+        return cumulativeCosts[cumulativeCosts.length - 1];
+    }
+
+    private static List<Double> toList(double[] values) {
+        List<Double> list = new ArrayList<>(values.length);
+        for (double value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
@@ -0,0 +1,68 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Compares starting up from a large generated DOT file with starting up
+ * from a GraphSnapshot of the same graph: opening the snapshot as a
+ * CompactGraph that can answer queries right away, and loading it into a
+ * DijkstraGraph that can also be changed.
+ *
+ * Run with: java SnapshotBenchmark [edges] [nodes]
+ * The graph has 5 million edges between 100 thousand locations by default,
+ * which needs a larger heap, e.g. -Xmx4g.
+ */
+public class SnapshotBenchmark {
+
+    // keeps the JIT from discarding graphs whose results are never used
+    private static double sink = 0;
+
+    public static void main(String[] args) throws IOException {
+        int edges = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int nodes = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        Path dot = Files.createTempFile("benchmark", ".dot");
+        Path snapshot = Files.createTempFile("benchmark", ".snapshot");
+        try {
+            DotLoaderBenchmark.writeGraph(dot, edges, nodes, 1);
+            System.out.printf("%d edges between %d nodes%n", edges, nodes);
+
+            long start = System.nanoTime();
+            DijkstraGraph<String, Double> graph = new DijkstraGraph<>();
+            DotGraphLoader.load(dot.toString(), graph, ForkJoinPool.commonPool());
+            CompactGraph<String> compact = graph.compact();
+            report("DOT into CompactGraph", start, Files.size(dot));
+            graph = null;
+
+            start = System.nanoTime();
+            GraphSnapshot.write(compact, snapshot);
+            report("snapshot written", start, Files.size(snapshot));
+            compact = null;
+
+            for (int round = 0; round < 3; round++) {
+                start = System.nanoTime();
+                compact = GraphSnapshot.open(snapshot);
+                sink += compact.getEdgeCount();
+                report("snapshot opened", start, Files.size(snapshot));
+            }
+            compact = null;
+
+            start = System.nanoTime();
+            graph = new DijkstraGraph<>();
+            GraphSnapshot.load(snapshot.toString(), graph, ForkJoinPool.commonPool());
+            sink += graph.getEdgeCount();
+            report("snapshot into DijkstraGraph", start, Files.size(snapshot));
+        } finally {
+            Files.delete(dot);
+            Files.delete(snapshot);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void report(String name, long start, long bytes) {
+        System.out.printf("  %-28s %8.0f ms %6.0f MB%n", name, (System.nanoTime() - start) / 1e6,
+                bytes / 1e6);
+    }
+}
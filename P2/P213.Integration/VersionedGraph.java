@@ -0,0 +1,762 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A weighted directed graph that any number of threads can search while
+ * another thread changes it, without locks. Every change publishes a new
+ * Version of the graph, and a Version never changes once it is published: a
+ * reader takes current() once and runs its queries against that Version,
+ * which goes on answering as the graph was when it was published, however
+ * many changes follow.
+ *
+ * Versions share most of their structure. The nodes are kept in chunks of
+ * CHUNK_SIZE slots, each slot holding one node's data and edges in arrays,
+ * and a change copies only the slots of the nodes it touches, the chunks
+ * that hold those slots and the small directory of chunks. Changes are made
+ * by one writer at a time, which the write methods ensure by synchronizing
+ * on the graph.
+ */
+public class VersionedGraph<NodeType> {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int[] NO_NODES = new int[0];
+    private static final double[] NO_WEIGHTS = new double[0];
+
+    /**
+     * A node's data, the indexes and weights of its leaving edges, and the
+     * indexes of its predecessors. Slots are never changed once made, so
+     * they are shared by every version the node is unchanged in.
+     */
+    private static final class Slot {
+        final Object data;
+        final int[] targets;
+        final double[] weights;
+        final int[] sources;
+
+        Slot(Object data, int[] targets, double[] weights, int[] sources) {
+            this.data = data;
+            this.targets = targets;
+            this.weights = weights;
+            this.sources = sources;
+        }
+
+        /**
+         * @return the position of target among this node's successors, or -1
+         */
+        int find(int target) {
+            for (int i = 0; i < targets.length; i++) {
+                if (targets[i] == target) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        Slot withTarget(int target, double weight) {
+            int[] newTargets = Arrays.copyOf(targets, targets.length + 1);
+            double[] newWeights = Arrays.copyOf(weights, weights.length + 1);
+            newTargets[targets.length] = target;
+            newWeights[weights.length] = weight;
+            return new Slot(data, newTargets, newWeights, sources);
+        }
+
+        Slot withWeight(int position, double weight) {
+            double[] newWeights = weights.clone();
+            newWeights[position] = weight;
+            return new Slot(data, targets, newWeights, sources);
+        }
+
+        Slot withoutTarget(int target) {
+            int position = find(target);
+            return new Slot(data, without(targets, position), without(weights, position), sources);
+        }
+
+        Slot withSource(int source) {
+            int[] newSources = Arrays.copyOf(sources, sources.length + 1);
+            newSources[sources.length] = source;
+            return new Slot(data, targets, weights, newSources);
+        }
+
+        Slot withoutSource(int source) {
+            int position = 0;
+            while (sources[position] != source) {
+                position++;
+            }
+            return new Slot(data, targets, weights, without(sources, position));
+        }
+
+        private static int[] without(int[] array, int position) {
+            int[] copy = new int[array.length - 1];
+            System.arraycopy(array, 0, copy, 0, position);
+            System.arraycopy(array, position + 1, copy, position, copy.length - position);
+            return copy;
+        }
+
+        private static double[] without(double[] array, int position) {
+            double[] copy = new double[array.length - 1];
+            System.arraycopy(array, 0, copy, 0, position);
+            System.arraycopy(array, position + 1, copy, position, copy.length - position);
+            return copy;
+        }
+    }
+
+    /**
+     * The arrays one thread reuses across its searches, in any version.
+     */
+    private static final class Search {
+        double[] cost = NO_WEIGHTS;
+        int[] predecessor = NO_NODES;
+        int[] stamp = NO_NODES;
+        int epoch = 0;
+        final IndexedMinHeap queue = new IndexedMinHeap();
+
+        /**
+         * Marks every node index below size as unreached, and empties the queue.
+         */
+        void reset(int size) {
+            if (size > stamp.length) {
+                int length = Math.max(size, stamp.length * 2);
+                cost = new double[length];
+                predecessor = new int[length];
+                stamp = new int[length];
+                epoch = 0;
+            }
+            queue.clear();
+            if (++epoch == 0) {
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+        }
+
+        double cost(int index) {
+            return stamp[index] == epoch ? cost[index] : Double.POSITIVE_INFINITY;
+        }
+
+        void reach(int index, double cost, int predecessor) {
+            this.stamp[index] = epoch;
+            this.cost[index] = cost;
+            this.predecessor[index] = predecessor;
+        }
+    }
+
+    // the index of every node ever inserted, which it keeps even after it is
+    // removed, so that entries are only added and readers never need a lock
+    private final ConcurrentHashtableMap<NodeType, Integer> indexOf;
+    private final ThreadLocal<Search> searches = ThreadLocal.withInitial(Search::new);
+    private volatile Version current;
+    // only used by the writer
+    private int nextIndex;
+
+    /**
+     * Creates an empty graph.
+     */
+    public VersionedGraph() {
+        this.indexOf = new ConcurrentHashtableMap<>();
+        this.current = new Version(0, new Slot[0][], 0, 0, 0);
+    }
+
+    /**
+     * Creates a graph whose first version holds the nodes and edges of graph,
+     * with the same indexes.
+     *
+     * @param graph the nodes and edges to start with
+     */
+    public VersionedGraph(CompactGraph<NodeType> graph) {
+        int nodes = graph.getNodeCount();
+        this.indexOf = new ConcurrentHashtableMap<>(Math.max(16, (int) (nodes / 0.75)));
+        int[] sourceCounts = new int[nodes];
+        for (int i = 0; i < nodes; i++) {
+            for (int e = graph.offsets[i]; e < graph.offsets[i + 1]; e++) {
+                sourceCounts[graph.targets[e]]++;
+            }
+        }
+        int[][] sources = new int[nodes][];
+        for (int i = 0; i < nodes; i++) {
+            sources[i] = sourceCounts[i] == 0 ? NO_NODES : new int[sourceCounts[i]];
+            sourceCounts[i] = 0;
+        }
+        for (int i = 0; i < nodes; i++) {
+            for (int e = graph.offsets[i]; e < graph.offsets[i + 1]; e++) {
+                int target = graph.targets[e];
+                sources[target][sourceCounts[target]++] = i;
+            }
+        }
+        Slot[][] chunks = new Slot[(nodes + CHUNK_SIZE - 1) >>> CHUNK_BITS][];
+        for (int c = 0; c < chunks.length; c++) {
+            chunks[c] = new Slot[CHUNK_SIZE];
+        }
+        for (int i = 0; i < nodes; i++) {
+            int from = graph.offsets[i];
+            int to = graph.offsets[i + 1];
+            chunks[i >>> CHUNK_BITS][i & (CHUNK_SIZE - 1)] = new Slot(graph.dataAt(i),
+                    Arrays.copyOfRange(graph.targets, from, to),
+                    Arrays.copyOfRange(graph.weights, from, to), sources[i]);
+            indexOf.put(graph.dataAt(i), i);
+        }
+        this.nextIndex = nodes;
+        this.current = new Version(0, chunks, nodes, nodes, graph.getEdgeCount());
+    }
+
+    /**
+     * Retrieves the latest published version. It stays the same while the
+     * caller uses it, so queries against it agree with each other.
+     *
+     * @return the latest version of the graph
+     */
+    public Version current() {
+        return current;
+    }
+
+
+    /**
+     * Makes a group of changes and publishes them as a single new version,
+     * so that no reader ever sees only some of them. If changes throws,
+     * none of its changes are published.
+     *
+     * @param changes makes changes through the Writer it is passed, which
+     *                can't be used after changes returns
+     * @return the version holding the changes, or the current version if
+     *         nothing changed
+     */
+    public synchronized Version update(Consumer<Writer> changes) {
+        Writer writer = new Writer(current);
+        try {
+            changes.accept(writer);
+        } finally {
+            writer.open = false;
+        }
+        publish(writer);
+        return current;
+    }
+
+    /**
+     * Inserts a new node and publishes the change.
+     *
+     * @param data the data item stored in the new node
+     * @return true if the node was inserted, and false if a node already
+     *         holds data
+     * @throws NullPointerException if data is null
+     */
+    public synchronized boolean insertNode(NodeType data) {
+        Writer writer = new Writer(current);
+        boolean inserted = writer.insertNode(data);
+        publish(writer);
+        return inserted;
+    }
+
+    /**
+     * Removes a node together with its entering and leaving edges, and
+     * publishes the change.
+     *
+     * @param data the data item stored in the node to remove
+     * @return true if the node was removed, and false if no node holds data
+     * @throws NullPointerException if data is null
+     */
+    public synchronized boolean removeNode(NodeType data) {
+        Writer writer = new Writer(current);
+        boolean removed = writer.removeNode(data);
+        publish(writer);
+        return removed;
+    }
+
+    /**
+     * Inserts an edge, or changes the weight of an existing one, and
+     * publishes the change.
+     *
+     * @param pred   the data item stored in the edge's predecessor node
+     * @param succ   the data item stored in the edge's successor node
+     * @param weight the non-negative weight of the edge
+     * @return true if the edge was inserted or updated, and false if either
+     *         node is missing
+     * @throws NullPointerException if pred or succ is null
+     */
+    public synchronized boolean insertEdge(NodeType pred, NodeType succ, double weight) {
+        Writer writer = new Writer(current);
+        boolean inserted = writer.insertEdge(pred, succ, weight);
+        publish(writer);
+        return inserted;
+    }
+
+    /**
+     * Removes an edge and publishes the change.
+     *
+     * @param pred the data item stored in the edge's predecessor node
+     * @param succ the data item stored in the edge's successor node
+     * @return true if the edge was removed, and false if there is no edge
+     *         from pred to succ
+     * @throws NullPointerException if pred or succ is null
+     */
+    public synchronized boolean removeEdge(NodeType pred, NodeType succ) {
+        Writer writer = new Writer(current);
+        boolean removed = writer.removeEdge(pred, succ);
+        publish(writer);
+        return removed;
+    }
+
+    private void publish(Writer writer) {
+        if (writer.changed) {
+            // the volatile write makes every slot and chunk the writer made
+            // visible to the readers that take this version
+            current = new Version(current.number + 1, writer.chunks, writer.size,
+                    writer.nodeCount, writer.edgeCount);
+        }
+    }
+
+    private static Slot slot(Slot[][] chunks, int index) {
+        Slot[] chunk = chunks[index >>> CHUNK_BITS];
+        return chunk == null ? null : chunk[index & (CHUNK_SIZE - 1)];
+    }
+
+    /**
+     * The graph as it was after some number of changes. A version never
+     * changes, and can be searched by any number of threads at once.
+     */
+    public final class Version {
+        private final long number;
+        private final Slot[][] chunks;
+        private final int size; // one more than the largest index in use
+        private final int nodeCount;
+        private final int edgeCount;
+
+        private Version(long number, Slot[][] chunks, int size, int nodeCount, int edgeCount) {
+            this.number = number;
+            this.chunks = chunks;
+            this.size = size;
+            this.nodeCount = nodeCount;
+            this.edgeCount = edgeCount;
+        }
+
+        /**
+         * @return how many versions were published before this one
+         */
+        public long getNumber() {
+            return number;
+        }
+
+        public int getNodeCount() {
+            return nodeCount;
+        }
+
+        public int getEdgeCount() {
+            return edgeCount;
+        }
+
+        /**
+         * Checks if a node holds data in this version.
+         *
+         * @param data the node contents to check for
+         * @return true if data is held by a node, and false otherwise
+         * @throws NullPointerException if data is null
+         */
+        public boolean containsNode(NodeType data) {
+            return find(data) != -1;
+        }
+
+        /**
+         * @return the data of every node in this version, in index order
+         */
+        @SuppressWarnings("unchecked")
+        public List<NodeType> getAllNodes() {
+            List<NodeType> nodes = new ArrayList<>(nodeCount);
+            for (int i = 0; i < size; i++) {
+                Slot slot = slot(chunks, i);
+                if (slot != null) {
+                    nodes.add((NodeType) slot.data);
+                }
+            }
+            return nodes;
+        }
+
+        /**
+         * Checks if there is an edge from pred to succ in this version.
+         *
+         * @param pred the data item stored in the edge's predecessor node
+         * @param succ the data item stored in the edge's successor node
+         * @return true if the edge exists, and false otherwise
+         */
+        public boolean containsEdge(NodeType pred, NodeType succ) {
+            int from = find(pred);
+            int to = find(succ);
+            return from != -1 && to != -1 && slot(chunks, from).find(to) != -1;
+        }
+
+        /**
+         * Retrieves the weight of the edge from pred to succ in this version.
+         *
+         * @param pred the data item stored in the edge's predecessor node
+         * @param succ the data item stored in the edge's successor node
+         * @return the weight of that edge
+         * @throws NoSuchElementException if either node or the edge between
+         *                                them is not in this version
+         */
+        public double getEdge(NodeType pred, NodeType succ) {
+            int from = find(pred);
+            int to = find(succ);
+            int position = from == -1 || to == -1 ? -1 : slot(chunks, from).find(to);
+            if (position == -1) {
+                throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
+                        succ.toString());
+            }
+            return slot(chunks, from).weights[position];
+        }
+
+        /**
+         * Returns the data of the nodes along the shortest path from start
+         * to end in this version.
+         *
+         * @param start the data item in the starting node for the path
+         * @param end   the data item in the destination node for the path
+         * @return list of data item from node along this shortest path
+         * @throws NoSuchElementException if either the start or end node
+         *         cannot be found in this version, or if there is no directed
+         *         path from the start node to the end node
+         */
+        @SuppressWarnings("unchecked")
+        public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+            int endIndex = require(end);
+            Search search = search(require(start), endIndex);
+            List<NodeType> path = new ArrayList<>();
+            for (int i = endIndex; i != -1; i = search.predecessor[i]) {
+                path.add((NodeType) slot(chunks, i).data);
+            }
+            Collections.reverse(path);
+            return path;
+        }
+
+        /**
+         * Returns the cost of the shortest path from start to end in this
+         * version.
+         *
+         * @param start the data item in the starting node for the path
+         * @param end   the data item in the destination node for the path
+         * @return the cost of the shortest path between these nodes
+         * @throws NoSuchElementException if either the start or end node
+         *         cannot be found in this version, or if there is no directed
+         *         path from the start node to the end node
+         */
+        public double shortestPathCost(NodeType start, NodeType end) {
+            int endIndex = require(end);
+            return search(require(start), endIndex).cost(endIndex);
+        }
+
+        /**
+         * @return the index of the node holding data in this version, or -1
+         */
+        private int find(NodeType data) {
+            Integer index = indexOf.getOrDefault(data, null);
+            // nodes inserted after this version have indexes of size or more
+            return index != null && index < size && slot(chunks, index) != null ? index : -1;
+        }
+
+        private int require(NodeType data) {
+            int index = find(data);
+            if (index == -1) {
+                throw new NoSuchElementException("Either start or end data do not correspond to a graph node.");
+            }
+            return index;
+        }
+
+        /**
+         * Runs Dijkstra's algorithm from start until end is settled, in this
+         * thread's Search.
+         *
+         * @return the Search holding the costs and predecessors found
+         * @throws NoSuchElementException if end can't be reached from start
+         */
+        private Search search(int start, int end) {
+            Search search = searches.get();
+            search.reset(size);
+            search.reach(start, 0, -1);
+            search.queue.addOrDecrease(start, 0);
+            while (!search.queue.isEmpty()) {
+                int index = search.queue.removeMin();
+                if (index == end) {
+                    return search;
+                }
+                double cost = search.cost(index);
+                Slot slot = slot(chunks, index);
+                for (int i = 0; i < slot.targets.length; i++) {
+                    int target = slot.targets[i];
+                    double newCost = cost + slot.weights[i];
+                    if (newCost < search.cost(target)) {
+                        search.reach(target, newCost, index);
+                        search.queue.addOrDecrease(target, newCost);
+                    }
+                }
+            }
+            throw new NoSuchElementException("No path from start to end is found");
+        }
+    }
+
+    /**
+     * Makes the changes that become the next version. It changes copies of
+     * the slots and chunks it touches, never the ones that are already
+     * published.
+     */
+    public final class Writer {
+        private Slot[][] chunks;
+        private boolean[] copied; // which chunks this writer has copied
+        private int size;
+        private int nodeCount;
+        private int edgeCount;
+        private boolean changed = false;
+        private boolean open = true;
+
+        private Writer(Version base) {
+            this.chunks = base.chunks.clone();
+            this.copied = new boolean[chunks.length];
+            this.size = base.size;
+            this.nodeCount = base.nodeCount;
+            this.edgeCount = base.edgeCount;
+        }
+
+        /**
+         * Inserts a new node.
+         *
+         * @param data the data item stored in the new node
+         * @return true if the node was inserted, and false if a node already
+         *         holds data
+         * @throws NullPointerException if data is null
+         */
+        public boolean insertNode(NodeType data) {
+            if (find(data) != -1) {
+                return false;
+            }
+            Integer index = indexOf.getOrDefault(data, null);
+            if (index == null) {
+                index = nextIndex++;
+                indexOf.put(data, index);
+            }
+            set(index, new Slot(data, NO_NODES, NO_WEIGHTS, NO_NODES));
+            nodeCount++;
+            return true;
+        }
+
+        /**
+         * Removes a node together with its entering and leaving edges.
+         *
+         * @param data the data item stored in the node to remove
+         * @return true if the node was removed, and false if no node holds data
+         * @throws NullPointerException if data is null
+         */
+        public boolean removeNode(NodeType data) {
+            int index = find(data);
+            if (index == -1) {
+                return false;
+            }
+            Slot removed = slot(chunks, index);
+            boolean selfLoop = false;
+            for (int target : removed.targets) {
+                if (target == index) {
+                    selfLoop = true;
+                } else {
+                    set(target, slot(chunks, target).withoutSource(index));
+                }
+            }
+            for (int source : removed.sources) {
+                if (source != index) {
+                    set(source, slot(chunks, source).withoutTarget(index));
+                }
+            }
+            edgeCount -= removed.targets.length + removed.sources.length - (selfLoop ? 1 : 0);
+            set(index, null);
+            nodeCount--;
+            return true;
+        }
+
+        /**
+         * Inserts an edge, or changes the weight of an existing one.
+         *
+         * @param pred   the data item stored in the edge's predecessor node
+         * @param succ   the data item stored in the edge's successor node
+         * @param weight the non-negative weight of the edge
+         * @return true if the edge was inserted or updated, and false if
+         *         either node is missing
+         * @throws NullPointerException if pred or succ is null
+         */
+        public boolean insertEdge(NodeType pred, NodeType succ, double weight) {
+            int from = find(pred);
+            int to = find(succ);
+            if (from == -1 || to == -1) {
+                return false;
+            }
+            Slot slot = slot(chunks, from);
+            int position = slot.find(to);
+            if (position != -1) {
+                if (slot.weights[position] != weight) {
+                    set(from, slot.withWeight(position, weight));
+                }
+                return true;
+            }
+            set(from, slot.withTarget(to, weight));
+            // read again, since this is the same slot for a self-loop
+            set(to, slot(chunks, to).withSource(from));
+            edgeCount++;
+            return true;
+        }
+
+        /**
+         * Removes an edge.
+         *
+         * @param pred the data item stored in the edge's predecessor node
+         * @param succ the data item stored in the edge's successor node
+         * @return true if the edge was removed, and false if there is no
+         *         edge from pred to succ
+         * @throws NullPointerException if pred or succ is null
+         */
+        public boolean removeEdge(NodeType pred, NodeType succ) {
+            int from = find(pred);
+            int to = find(succ);
+            if (from == -1 || to == -1 || slot(chunks, from).find(to) == -1) {
+                return false;
+            }
+            set(from, slot(chunks, from).withoutTarget(to));
+            set(to, slot(chunks, to).withoutSource(from));
+            edgeCount--;
+            return true;
+        }
+
+        private int find(NodeType data) {
+            if (!open) {
+                throw new IllegalStateException("Writer used after its update returned.");
+            }
+            Integer index = indexOf.getOrDefault(data, null);
+            return index != null && index < size && slot(chunks, index) != null ? index : -1;
+        }
+
+        /**
+         * Puts slot at index, copying its chunk first unless this writer
+         * already has.
+         */
+        private void set(int index, Slot slot) {
+            int chunk = index >>> CHUNK_BITS;
+            if (chunk >= chunks.length) {
+                int length = Math.max(chunk + 1, chunks.length * 2);
+                chunks = Arrays.copyOf(chunks, length);
+                copied = Arrays.copyOf(copied, length);
+            }
+            if (!copied[chunk]) {
+                chunks[chunk] = chunks[chunk] == null ? new Slot[CHUNK_SIZE] : chunks[chunk].clone();
+                copied[chunk] = true;
+            }
+            chunks[chunk][index & (CHUNK_SIZE - 1)] = slot;
+            size = Math.max(size, index + 1);
+            changed = true;
+        }
+    }
+
+    /**
+     * Checks that a version keeps answering as it did when it was taken,
+     * while later versions see the changes made since
+     */
+    @Test
+    public void testVersionsStayUnchanged() {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        graph.update(writer -> {
+            for (String name : new String[] {"A", "B", "C", "D"}) {
+                writer.insertNode(name);
+            }
+            writer.insertEdge("A", "B", 1);
+            writer.insertEdge("B", "C", 1);
+            writer.insertEdge("A", "C", 5);
+            writer.insertEdge("C", "C", 2);
+        });
+        VersionedGraph<String>.Version before = graph.current();
+        assertEquals(1, before.getNumber());
+        assertEquals(4, before.getNodeCount());
+        assertEquals(4, before.getEdgeCount());
+
+        assertTrue(graph.insertEdge("A", "C", 1));
+        assertTrue(graph.removeNode("B"));
+        assertFalse(graph.removeNode("B"));
+        assertTrue(graph.insertNode("E"));
+        assertTrue(graph.insertEdge("C", "E", 3));
+        assertFalse(graph.insertEdge("B", "E", 3));
+        assertTrue(graph.removeEdge("C", "C"));
+        assertFalse(graph.removeEdge("C", "C"));
+        VersionedGraph<String>.Version after = graph.current();
+        assertEquals(6, after.getNumber());
+
+        assertEquals(List.of("A", "B", "C"), before.shortestPathData("A", "C"));
+        assertEquals(2, before.shortestPathCost("A", "C"));
+        assertEquals(5, before.getEdge("A", "C"));
+        assertTrue(before.containsEdge("C", "C"));
+        assertFalse(before.containsNode("E"));
+        assertThrows(NoSuchElementException.class, () -> before.shortestPathCost("A", "E"));
+        assertEquals(List.of("A", "B", "C", "D"), before.getAllNodes());
+
+        assertEquals(List.of("A", "C", "E"), after.shortestPathData("A", "E"));
+        assertEquals(4, after.shortestPathCost("A", "E"));
+        assertFalse(after.containsNode("B"));
+        assertFalse(after.containsEdge("C", "C"));
+        assertThrows(NoSuchElementException.class, () -> after.getEdge("A", "B"));
+        assertThrows(NoSuchElementException.class, () -> after.shortestPathData("A", "D"));
+        assertEquals(4, after.getNodeCount());
+        assertEquals(2, after.getEdgeCount());
+
+        // a node inserted again starts without the edges it had before
+        assertTrue(graph.insertNode("B"));
+        assertFalse(graph.current().containsEdge("A", "B"));
+        assertEquals(2, graph.current().getEdgeCount());
+        assertTrue(before.containsEdge("A", "B"));
+    }
+
+    /**
+     * Checks that a graph built from a CompactGraph matches it, that changes
+     * nothing actually changes publish no version, and that a batch which
+     * throws publishes none of its changes
+     */
+    @Test
+    public void testBuildAndFailedUpdate() {
+        CompactGraph<String> compact = new CompactGraph<>(new Object[] {"A", "B", "C"},
+                new int[] {0, 2, 3, 4}, new int[] {1, 2, 2, 0}, new double[] {1, 4, 2, 1});
+        VersionedGraph<String> graph = new VersionedGraph<>(compact);
+        VersionedGraph<String>.Version first = graph.current();
+        assertEquals(3, first.getNodeCount());
+        assertEquals(4, first.getEdgeCount());
+        assertEquals(compact.shortestPathData("A", "C"), first.shortestPathData("A", "C"));
+        assertEquals(compact.shortestPathCost("C", "B"), first.shortestPathCost("C", "B"));
+
+        assertFalse(graph.insertNode("A"));
+        assertTrue(graph.insertEdge("A", "B", 1));
+        assertSame(first, graph.current());
+
+        AtomicReference<VersionedGraph<String>.Writer> kept = new AtomicReference<>();
+        assertThrows(IllegalStateException.class, () -> graph.update(writer -> {
+            kept.set(writer);
+            writer.insertNode("D");
+            writer.removeNode("A");
+            throw new IllegalStateException("stop");
+        }));
+        assertSame(first, graph.current());
+        assertThrows(IllegalStateException.class, () -> kept.get().insertNode("E"));
+
+        // the index D was given is kept for it
+        assertTrue(graph.insertNode("D"));
+        assertTrue(graph.insertEdge("C", "D", 1));
+        assertTrue(graph.removeNode("A"));
+        assertEquals(List.of("B", "C", "D"), graph.current().getAllNodes());
+        assertEquals(2, graph.current().getEdgeCount());
+        assertEquals(List.of("A", "B", "C"), first.getAllNodes());
+    }
+
+    /**
+     * Checks that readers searching versions while a writer changes the
+     * graph always see whole versions that don't change under them. Run
+     * VersionedGraphStress for a longer run.
+     */
+    @Test
+    public void testConcurrentReadersAndWriter() throws InterruptedException {
+        long[] counts = VersionedGraphStress.run(2_000, 3);
+        assertTrue(counts[0] > 0);
+        assertTrue(counts[1] > 0);
+    }
+}
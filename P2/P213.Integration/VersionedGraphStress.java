@@ -0,0 +1,225 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs threads that search a VersionedGraph while another thread keeps
+ * changing it, and checks that every version the readers take is whole and
+ * stays the same while they use it.
+ *
+ * In every version the cheapest path from "start" to "end" costs exactly
+ * ROUTE_COST and passes through a single middle node. Each batch of changes
+ * moves that route to another middle node and splits its cost differently,
+ * so a reader that saw only part of a batch would find another cost or
+ * path. Between batches the writer inserts and removes noise nodes and
+ * expensive edges one change at a time, and readers check that searching
+ * between noise nodes twice in the same version gives the same answer.
+ *
+ * Run with: java VersionedGraphStress [seconds] [readers]
+ * Runs for 5 minutes with one reader per processor, and at least 2, by default.
+ */
+public class VersionedGraphStress {
+
+    static final double ROUTE_COST = 10;
+    private static final int MIDDLES = 64;
+    private static final int NOISE = 2_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int readers = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(2, Runtime.getRuntime().availableProcessors());
+        long[] counts = run(seconds * 1000L, readers);
+        System.out.printf("%d versions published and %d searches by %d readers in %d s, all consistent%n",
+                counts[0], counts[1], readers, seconds);
+    }
+
+    /**
+     * Changes a graph from the calling thread for millis milliseconds, while
+     * reader threads search it.
+     *
+     * @return the number of versions published, and of searches run
+     * @throws AssertionError describing the first inconsistency a reader
+     *         found, or the exception it threw
+     */
+    static long[] run(long millis, int readers) throws InterruptedException {
+        VersionedGraph<String> graph = build(new Random(1));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicLong searches = new AtomicLong();
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int r = 0; r < readers; r++) {
+            Random random = new Random(100 + r);
+            Thread thread = new Thread(() -> {
+                try {
+                    long last = -1;
+                    while (failure.get() == null && System.nanoTime() < deadline) {
+                        last = read(graph.current(), last, random);
+                        searches.addAndGet(2);
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        Random random = new Random(2);
+        int route = 0;
+        try {
+            while (failure.get() == null && System.nanoTime() < deadline) {
+                route = moveRoute(graph, route, random);
+                for (int i = 0; i < 20; i++) {
+                    changeNoise(graph, route, random);
+                }
+            }
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError("Found an inconsistent version", failure.get());
+        }
+        return new long[] {graph.current().getNumber(), searches.get()};
+    }
+
+    /**
+     * Builds the first version: the route through middle 0, every other
+     * middle costing twice ROUTE_COST, and noise nodes with a few edges each.
+     */
+    private static VersionedGraph<String> build(Random random) {
+        VersionedGraph<String> graph = new VersionedGraph<>();
+        graph.update(writer -> {
+            writer.insertNode("start");
+            writer.insertNode("end");
+            for (int m = 0; m < MIDDLES; m++) {
+                writer.insertNode("m" + m);
+                writer.insertEdge("start", "m" + m, m == 0 ? 1 : ROUTE_COST);
+                writer.insertEdge("m" + m, "end", m == 0 ? ROUTE_COST - 1 : ROUTE_COST);
+            }
+            for (int n = 0; n < NOISE; n++) {
+                writer.insertNode("n" + n);
+            }
+            for (int n = 0; n < NOISE; n++) {
+                for (int e = 0; e < 4; e++) {
+                    writer.insertEdge("n" + n, anyNode(random), 100 + random.nextInt(100));
+                    writer.insertEdge(anyNode(random), "n" + n, 100 + random.nextInt(100));
+                }
+            }
+        });
+        return graph;
+    }
+
+    /**
+     * Moves the route to another middle node in one batch, putting the old
+     * one back to twice ROUTE_COST first, and sometimes removes and inserts
+     * another middle node again in the same batch.
+     *
+     * @return the new route's middle node
+     */
+    private static int moveRoute(VersionedGraph<String> graph, int route, Random random) {
+        int next = (route + 1 + random.nextInt(MIDDLES - 1)) % MIDDLES;
+        int other = (next + 1 + random.nextInt(MIDDLES - 1)) % MIDDLES;
+        // whole numbers, so that the two halves add up to exactly ROUTE_COST
+        double first = 1 + random.nextInt((int) ROUTE_COST - 1);
+        boolean replaceOther = other != route && random.nextBoolean();
+        graph.update(writer -> {
+            writer.insertEdge("start", "m" + route, ROUTE_COST);
+            writer.insertEdge("m" + route, "end", ROUTE_COST);
+            writer.insertEdge("start", "m" + next, first);
+            writer.insertEdge("m" + next, "end", ROUTE_COST - first);
+            if (replaceOther) {
+                writer.removeNode("m" + other);
+                writer.insertNode("m" + other);
+                writer.insertEdge("start", "m" + other, ROUTE_COST);
+                writer.insertEdge("m" + other, "end", ROUTE_COST);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Makes one change that can't make a path from start to end cheaper:
+     * removes or inserts a noise node, inserts, reweighs or removes an edge
+     * touching a noise node, or takes a middle node off the route out and
+     * puts it back one edge at a time.
+     */
+    private static void changeNoise(VersionedGraph<String> graph, int route, Random random) {
+        String noise = "n" + random.nextInt(NOISE);
+        switch (random.nextInt(6)) {
+            case 0:
+                if (!graph.removeNode(noise)) {
+                    graph.insertNode(noise);
+                }
+                break;
+            case 1:
+            case 2:
+                graph.insertEdge(noise, anyNode(random), 100 + random.nextInt(100));
+                break;
+            case 3:
+                graph.insertEdge(anyNode(random), noise, 100 + random.nextInt(100));
+                break;
+            case 4:
+                graph.removeEdge(noise, anyNode(random));
+                break;
+            default:
+                String middle = "m" + ((route + 1 + random.nextInt(MIDDLES - 1)) % MIDDLES);
+                graph.removeNode(middle);
+                graph.insertNode(middle);
+                graph.insertEdge(middle, "end", ROUTE_COST);
+                graph.insertEdge("start", middle, ROUTE_COST);
+        }
+    }
+
+    private static String anyNode(Random random) {
+        int n = random.nextInt(NOISE + MIDDLES + 2);
+        return n < NOISE ? "n" + n : n < NOISE + MIDDLES ? "m" + (n - NOISE)
+                : n == NOISE + MIDDLES ? "start" : "end";
+    }
+
+    /**
+     * Checks the route in version, and that two searches between random
+     * noise nodes agree.
+     *
+     * @return the number of version
+     */
+    private static long read(VersionedGraph<String>.Version version, long last, Random random) {
+        if (version.getNumber() < last) {
+            throw new AssertionError("Version " + version.getNumber() + " taken after " + last);
+        }
+        List<String> path = version.shortestPathData("start", "end");
+        double cost = version.shortestPathCost("start", "end");
+        if (cost != ROUTE_COST || path.size() != 3
+                || version.getEdge("start", path.get(1)) + version.getEdge(path.get(1), "end") != cost) {
+            throw new AssertionError("Version " + version.getNumber() + " has route " + path
+                    + " costing " + cost);
+        }
+        String from = "n" + random.nextInt(NOISE);
+        String to = "n" + random.nextInt(NOISE);
+        if (version.containsNode(from) && version.containsNode(to)) {
+            String first = describe(version, from, to);
+            Thread.yield();
+            String second = describe(version, from, to);
+            if (!first.equals(second)) {
+                throw new AssertionError("Version " + version.getNumber() + " changed from "
+                        + first + " to " + second);
+            }
+        }
+        if (version.getAllNodes().size() != version.getNodeCount()) {
+            throw new AssertionError("Version " + version.getNumber() + " miscounts its nodes");
+        }
+        return version.getNumber();
+    }
+
+    private static String describe(VersionedGraph<String>.Version version, String from, String to) {
+        try {
+            return version.shortestPathData(from, to) + " " + version.shortestPathCost(from, to);
+        } catch (NoSuchElementException e) {
+            return "no path";
+        }
+    }
+}